@@ -41,4 +41,5 @@ INSERT INTO LIKES(appreciation, date_eval, adresse_ip, fk_rest) VALUES ('F', sys
 INSERT INTO LIKES(appreciation, date_eval, adresse_ip, fk_rest) VALUES ('T', sysdate, '1.2.3.7', 2);
 INSERT INTO LIKES(appreciation, date_eval, adresse_ip, fk_rest) VALUES ('T', sysdate, '1.2.3.8', 2);
 INSERT INTO LIKES(appreciation, date_eval, adresse_ip, fk_rest) VALUES ('T', sysdate, '1.2.3.9', 2);
+INSERT INTO RESTAURANT_STATS(fk_rest, fk_crit, nb_notes, somme_notes, somme_carres) SELECT c.fk_rest, n.fk_crit, COUNT(*), SUM(n.note), SUM(n.note * n.note) FROM NOTES n JOIN COMMENTAIRES c ON c.numero = n.fk_comm GROUP BY c.fk_rest, n.fk_crit;
 COMMIT;
\ No newline at end of file
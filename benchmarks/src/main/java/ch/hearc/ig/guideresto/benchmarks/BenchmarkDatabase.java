@@ -0,0 +1,55 @@
+package ch.hearc.ig.guideresto.benchmarks;
+
+import ch.hearc.ig.guideresto.persistence.jpa.JpaUtils;
+
+import java.nio.file.Path;
+
+/**
+ * Base des benchmarks : le profil base embarquée ({@code -Dguideresto.db=h2}) remplie avec des données
+ * synthétiques. Le volume se règle par propriétés système, transmises aux JVM de mesure par JMH :
+ * <ul>
+ *     <li>guideresto.db.restaurants : nombre de restaurants (10 000 par défaut pour les benchmarks)</li>
+ *     <li>guideresto.db.evaluations : nombre d'évaluations, dont 80 % de likes et 20 % de commentaires
+ *     notés (1 000 000 par défaut pour les benchmarks)</li>
+ *     <li>guideresto.db.cities : nombre de villes (200 par défaut)</li>
+ * </ul>
+ * La graine des données est fixe. La base est par défaut un fichier H2 du répertoire temporaire, propre à chaque
+ * volume (guideresto.db.url pour en choisir un autre) : la première JVM de mesure la génère et l'importe,
+ * les suivantes la réutilisent. Les benchmarks d'écriture y ajoutent des lignes à chaque exécution ;
+ * supprimer le fichier pour repartir des seules données synthétiques.
+ */
+public final class BenchmarkDatabase {
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Sélectionne la base embarquée synthétique puis la crée et la remplit si ce n'est pas déjà fait
+     */
+    public static synchronized void ensureSeeded() {
+        setDefault("guideresto.db", "h2");
+        setDefault("guideresto.db.seed", "synthetic");
+        setDefault("guideresto.db.restaurants", "10000");
+        setDefault("guideresto.db.evaluations", "1000000");
+        setDefault("guideresto.db.url", defaultUrl());
+        JpaUtils.getEntityManagerFactory();
+    }
+
+    /**
+     * @return L'URL d'une base fichier dont le nom reprend le volume demandé, pour ne jamais réutiliser
+     * une base d'un autre volume
+     */
+    private static String defaultUrl() {
+        String name = "guideresto-bench-" + System.getProperty("guideresto.db.cities", "200")
+                + "-" + System.getProperty("guideresto.db.restaurants")
+                + "-" + System.getProperty("guideresto.db.evaluations");
+        Path file = Path.of(System.getProperty("java.io.tmpdir"), name).toAbsolutePath();
+        return "jdbc:h2:" + file;
+    }
+
+    private static void setDefault(String property, String value) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, value);
+        }
+    }
+}
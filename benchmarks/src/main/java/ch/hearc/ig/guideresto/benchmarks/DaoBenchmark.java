@@ -0,0 +1,89 @@
+package ch.hearc.ig.guideresto.benchmarks;
+
+import ch.hearc.ig.guideresto.business.City;
+import ch.hearc.ig.guideresto.business.Restaurant;
+import ch.hearc.ig.guideresto.business.RestaurantListItem;
+import ch.hearc.ig.guideresto.persistence.dao.CityDao;
+import ch.hearc.ig.guideresto.persistence.dao.RestaurantDao;
+import ch.hearc.ig.guideresto.persistence.dao.Slice;
+import ch.hearc.ig.guideresto.persistence.jpa.JpaUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks des DAO : opérations génériques d'AbstractDao et requêtes nommées de RestaurantDao.
+ * Chaque opération s'exécute dans une unité de travail neuve, comme une action de l'application :
+ * le cache de premier niveau ne sert jamais d'une opération à l'autre.
+ * Chaque benchmark reçoit {@link SeededDatabase}, même sans en tirer de paramètre : c'est son @Setup qui
+ * sélectionne et remplit la base embarquée dans la JVM de mesure.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DaoBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private final RestaurantDao restaurantDao = new RestaurantDao();
+    private final CityDao cityDao = new CityDao();
+
+    @Benchmark
+    public Restaurant findById(SeededDatabase db) {
+        return JpaUtils.inUnitOfWork(() -> restaurantDao.findById(db.randomRestaurantId()));
+    }
+
+    @Benchmark
+    public List<Restaurant> findAll(SeededDatabase db) {
+        return JpaUtils.inUnitOfWork(restaurantDao::findAll);
+    }
+
+    @Benchmark
+    public City save(SeededDatabase db) {
+        String suffix = Integer.toString(ThreadLocalRandom.current().nextInt(1_000_000));
+        return JpaUtils.inUnitOfWork(() -> cityDao.save(new City("9" + suffix, "Bench " + suffix)));
+    }
+
+    @Benchmark
+    public Restaurant findByIdWithDetails(SeededDatabase db) {
+        return JpaUtils.inUnitOfWork(() -> restaurantDao.findByIdWithDetails(db.randomRestaurantId()));
+    }
+
+    @Benchmark
+    public List<Restaurant> findByName(SeededDatabase db) {
+        return JpaUtils.inUnitOfWork(() -> restaurantDao.findByName(db.randomNamePrefix()));
+    }
+
+    @Benchmark
+    public List<Restaurant> findByCity(SeededDatabase db) {
+        return JpaUtils.inUnitOfWork(() -> restaurantDao.findByCity(db.randomCityId()));
+    }
+
+    @Benchmark
+    public Slice<Restaurant> findSliceByType(SeededDatabase db) {
+        return JpaUtils.inUnitOfWork(() -> restaurantDao.findSliceByType(db.randomTypeId(), null, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Slice<RestaurantListItem> findListItems(SeededDatabase db) {
+        return JpaUtils.inUnitOfWork(() -> restaurantDao.findListItems(null, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Slice<RestaurantListItem> findListItemsByName(SeededDatabase db) {
+        return JpaUtils.inUnitOfWork(() -> restaurantDao.findListItemsByName(db.randomNamePrefix(), null, PAGE_SIZE));
+    }
+}
@@ -0,0 +1,67 @@
+package ch.hearc.ig.guideresto.benchmarks;
+
+import ch.hearc.ig.guideresto.persistence.importer.SyntheticDataGenerator;
+import ch.hearc.ig.guideresto.persistence.jpa.JpaUtils;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * État partagé des benchmarks : la base remplie par {@link BenchmarkDatabase} et les IDs existants,
+ * dans lesquels chaque opération tire ses paramètres au hasard (pour ne pas mesurer un seul ID chaud)
+ */
+@State(Scope.Benchmark)
+public class SeededDatabase {
+
+    private int[] restaurantIds;
+    private int[] cityIds;
+    private int[] typeIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.ensureSeeded();
+        JpaUtils.inUnitOfWork(() -> {
+            restaurantIds = ids("SELECT r.id FROM Restaurant r");
+            cityIds = ids("SELECT c.id FROM City c");
+            typeIds = ids("SELECT t.id FROM RestaurantType t");
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        JpaUtils.shutdown();
+    }
+
+    public Integer randomRestaurantId() {
+        return pick(restaurantIds);
+    }
+
+    public Integer randomCityId() {
+        return pick(cityIds);
+    }
+
+    public Integer randomTypeId() {
+        return pick(typeIds);
+    }
+
+    /**
+     * @return Un début de nom de restaurant existant ("Restaurant 123"), qui correspond à plusieurs restaurants
+     */
+    public String randomNamePrefix() {
+        return SyntheticDataGenerator.restaurantName(ThreadLocalRandom.current().nextInt(Math.max(restaurantIds.length / 10, 1)));
+    }
+
+    private static int pick(int[] ids) {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private static int[] ids(String jpql) {
+        List<Integer> ids = JpaUtils.getEntityManager().createQuery(jpql, Integer.class).getResultList();
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
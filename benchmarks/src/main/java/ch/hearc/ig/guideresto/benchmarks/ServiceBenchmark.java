@@ -0,0 +1,65 @@
+package ch.hearc.ig.guideresto.benchmarks;
+
+import ch.hearc.ig.guideresto.business.CompleteEvaluation;
+import ch.hearc.ig.guideresto.business.Restaurant;
+import ch.hearc.ig.guideresto.persistence.importer.SyntheticDataGenerator;
+import ch.hearc.ig.guideresto.persistence.jpa.JpaUtils;
+import ch.hearc.ig.guideresto.service.EvaluationService;
+import ch.hearc.ig.guideresto.service.RestaurantService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks des services sur les chemins les plus utilisés par l'application :
+ * statistiques d'un restaurant, ajout d'une évaluation et création d'un restaurant
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceBenchmark {
+
+    private final EvaluationService evaluationService = new EvaluationService();
+    private final RestaurantService restaurantService = new RestaurantService();
+
+    @Benchmark
+    public int countLikes(SeededDatabase db) {
+        return JpaUtils.inUnitOfWork(() -> evaluationService.countLikes(db.randomRestaurantId()));
+    }
+
+    @Benchmark
+    public double getOverallAverageGrade(SeededDatabase db) {
+        return JpaUtils.inUnitOfWork(() -> evaluationService.getOverallAverageGrade(db.randomRestaurantId()));
+    }
+
+    @Benchmark
+    public CompleteEvaluation addCompleteEvaluation(SeededDatabase db) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<String, Integer> grades = new LinkedHashMap<>();
+        for (String criteria : SyntheticDataGenerator.CRITERIA) {
+            grades.put(criteria, 1 + random.nextInt(5));
+        }
+        return JpaUtils.inUnitOfWork(() -> evaluationService.addCompleteEvaluation(
+                db.randomRestaurantId(), "bench", "Évaluation de benchmark", grades));
+    }
+
+    @Benchmark
+    public Restaurant createRestaurant(SeededDatabase db) {
+        return JpaUtils.inUnitOfWork(() -> restaurantService.createRestaurant("Bench", "Restaurant de benchmark",
+                null, "Rue du Benchmark 1", db.randomCityId(), db.randomTypeId()));
+    }
+}
@@ -9,6 +9,27 @@ import java.util.Date;
  */
 @Entity
 @Table(name = "LIKES")
+@NamedQueries({
+        @NamedQuery(
+                name = "BasicEvaluation.countByRestaurantAndAppreciation",
+                query = "SELECT COUNT(b) FROM BasicEvaluation b WHERE b.restaurant.id = :restaurantId AND b.likeRestaurant = :like"
+        ),
+        @NamedQuery(
+                name = "BasicEvaluation.countByRestaurant",
+                query = "SELECT new ch.hearc.ig.guideresto.business.LikeCounts(b.restaurant.id, "
+                        + "SUM(CASE WHEN b.likeRestaurant = :like THEN 1L ELSE 0L END), "
+                        + "SUM(CASE WHEN b.likeRestaurant = :dislike THEN 1L ELSE 0L END)) "
+                        + "FROM BasicEvaluation b GROUP BY b.restaurant.id"
+        ),
+        @NamedQuery(
+                name = "BasicEvaluation.findLegacyIpAddresses",
+                query = "SELECT DISTINCT b.ipAddress FROM BasicEvaluation b WHERE LOCATE('/', b.ipAddress) > 0"
+        ),
+        @NamedQuery(
+                name = "BasicEvaluation.updateIpAddress",
+                query = "UPDATE BasicEvaluation b SET b.ipAddress = :canonical WHERE b.ipAddress = :legacy"
+        )
+})
 public class BasicEvaluation extends Evaluation {
 
     @Column(name = "APPRECIATION", nullable = false, length = 1)
@@ -29,7 +50,7 @@ public class BasicEvaluation extends Evaluation {
     public BasicEvaluation(Integer id, Date visitDate, Restaurant restaurant, Boolean likeRestaurant, String ipAddress) {
         super(id, visitDate, restaurant);
         this.likeRestaurant = likeRestaurant;
-        this.ipAddress = ipAddress;
+        this.ipAddress = IpAddresses.canonical(ipAddress);
     }
 
     public Boolean getLikeRestaurant() {
@@ -44,7 +65,10 @@ public class BasicEvaluation extends Evaluation {
         return ipAddress;
     }
 
+    /**
+     * @param ipAddress L'adresse IP du votant, enregistrée sous sa forme canonique ({@link IpAddresses})
+     */
     public void setIpAddress(String ipAddress) {
-        this.ipAddress = ipAddress;
+        this.ipAddress = IpAddresses.canonical(ipAddress);
     }
 }
\ No newline at end of file
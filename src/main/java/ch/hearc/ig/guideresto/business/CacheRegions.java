@@ -0,0 +1,20 @@
+package ch.hearc.ig.guideresto.business;
+
+/**
+ * Noms des régions du cache de second niveau déclarées sur les entités
+ */
+public final class CacheRegions {
+
+    /**
+     * Région des entités de référence (villes, types, critères)
+     */
+    public static final String REFERENCE_DATA = "reference-data";
+
+    /**
+     * Région des requêtes nommées portant sur les entités de référence
+     */
+    public static final String REFERENCE_QUERIES = "reference-queries";
+
+    private CacheRegions() {
+    }
+}
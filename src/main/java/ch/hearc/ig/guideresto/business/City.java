@@ -1,6 +1,10 @@
 package ch.hearc.ig.guideresto.business;
 
+import ch.hearc.ig.guideresto.persistence.jpa.PooledSequence;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.jpa.HibernateHints;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -9,30 +13,45 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "VILLES")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.REFERENCE_DATA)
 @NamedQueries({
         @NamedQuery(
                 name = "City.findAll",
-                query = "SELECT c FROM City c ORDER BY c.cityName"
+                query = "SELECT c FROM City c ORDER BY c.cityName, c.id",
+                hints = {
+                        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.REFERENCE_QUERIES)
+                }
+        ),
+        @NamedQuery(
+                name = "City.findAllAfter",
+                query = "SELECT c FROM City c " +
+                        "WHERE c.cityName > :cityName OR (c.cityName = :cityName AND c.id > :id) " +
+                        "ORDER BY c.cityName, c.id"
         ),
         @NamedQuery(
                 name = "City.findByZipCode",
-                query = "SELECT c FROM City c WHERE c.zipCode = :zipCode"
+                query = "SELECT c FROM City c WHERE c.zipCode = :zipCode",
+                hints = {
+                        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.REFERENCE_QUERIES)
+                }
+        ),
+        @NamedQuery(
+                name = "City.findByIds",
+                query = "SELECT c FROM City c WHERE c.id IN :ids"
         ),
         @NamedQuery(
-                name = "City.findByCityName",
-                query = "SELECT c FROM City c WHERE UPPER(c.cityName) LIKE UPPER(:cityName)"
+                name = "City.findIdsAndNames",
+                query = "SELECT c.id, c.cityName FROM City c"
         )
 })
 public class City implements IBusinessObject {
 
     @Id
     @Column(name = "NUMERO")
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_villes")
-    @SequenceGenerator(
-            name = "seq_villes",
-            sequenceName = "SEQ_VILLES",
-            allocationSize = 1
-    )
+    @PooledSequence(name = "SEQ_VILLES", blockSize = 10)
     private Integer id;
 
     @Column(name = "CODE_POSTAL", nullable = false, length = 100)
@@ -10,6 +10,26 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "COMMENTAIRES")
+@NamedQueries({
+        @NamedQuery(
+                name = "CompleteEvaluation.countByRestaurant",
+                query = "SELECT COUNT(ce) FROM CompleteEvaluation ce WHERE ce.restaurant.id = :restaurantId"
+        ),
+        @NamedQuery(
+                name = "CompleteEvaluation.findAll",
+                query = "SELECT ce FROM CompleteEvaluation ce ORDER BY ce.id"
+        ),
+        @NamedQuery(
+                name = "CompleteEvaluation.findByRestaurant",
+                query = "SELECT ce FROM CompleteEvaluation ce WHERE ce.restaurant.id = :restaurantId ORDER BY ce.id"
+        ),
+        @NamedQuery(
+                name = "CompleteEvaluation.findByRestaurantWithGrades",
+                query = "SELECT DISTINCT ce FROM CompleteEvaluation ce " +
+                        "LEFT JOIN FETCH ce.grades g LEFT JOIN FETCH g.criteria " +
+                        "WHERE ce.restaurant.id = :restaurantId ORDER BY ce.id"
+        )
+})
 public class CompleteEvaluation extends Evaluation {
 
     @Column(name = "COMMENTAIRE", nullable = false)
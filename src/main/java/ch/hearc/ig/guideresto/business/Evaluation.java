@@ -1,5 +1,6 @@
 package ch.hearc.ig.guideresto.business;
 
+import ch.hearc.ig.guideresto.persistence.jpa.PooledSequence;
 import jakarta.persistence.*;
 import java.util.Date;
 
@@ -9,16 +10,21 @@ import java.util.Date;
 @Entity
 @Table(name = "EVALUATIONS")
 @Inheritance(strategy = InheritanceType.TABLE_PER_CLASS)
+@NamedQueries({
+        @NamedQuery(
+                name = "Evaluation.countByRestaurant",
+                query = "SELECT COUNT(e) FROM Evaluation e WHERE e.restaurant.id = :restaurantId"
+        ),
+        @NamedQuery(
+                name = "Evaluation.existsByRestaurant",
+                query = "SELECT 1 FROM Evaluation e WHERE e.restaurant.id = :restaurantId"
+        )
+})
 public abstract class Evaluation implements IBusinessObject {
 
     @Id
     @Column(name = "NUMERO")
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_eval")
-    @SequenceGenerator(
-            name = "seq_eval",
-            sequenceName = "SEQ_EVAL",
-            allocationSize = 1
-    )
+    @PooledSequence(name = "SEQ_EVAL", blockSize = 50)
     private Integer id;
 
     @Column(name = "DATE_EVAL", nullable = false)
@@ -1,32 +1,47 @@
 package ch.hearc.ig.guideresto.business;
 
+import ch.hearc.ig.guideresto.persistence.jpa.PooledSequence;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.jpa.HibernateHints;
 
 /**
  * @author cedric.baudet
  */
 @Entity
 @Table(name = "CRITERES_EVALUATION")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.REFERENCE_DATA)
 @NamedQueries({
         @NamedQuery(
                 name = "EvaluationCriteria.findAll",
-                query = "SELECT ec FROM EvaluationCriteria ec ORDER BY ec.name"
+                query = "SELECT ec FROM EvaluationCriteria ec ORDER BY ec.name, ec.id",
+                hints = {
+                        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.REFERENCE_QUERIES)
+                }
+        ),
+        @NamedQuery(
+                name = "EvaluationCriteria.findAllAfter",
+                query = "SELECT ec FROM EvaluationCriteria ec " +
+                        "WHERE ec.name > :name OR (ec.name = :name AND ec.id > :id) " +
+                        "ORDER BY ec.name, ec.id"
         ),
         @NamedQuery(
                 name = "EvaluationCriteria.findByName",
                 query = "SELECT ec FROM EvaluationCriteria ec WHERE UPPER(ec.name) LIKE UPPER(:name)"
+        ),
+        @NamedQuery(
+                name = "EvaluationCriteria.findIdsAndNames",
+                query = "SELECT ec.id, ec.name FROM EvaluationCriteria ec ORDER BY ec.name"
         )
 })
 public class EvaluationCriteria implements IBusinessObject {
 
     @Id
     @Column(name = "NUMERO")
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_criteres")
-    @SequenceGenerator(
-            name = "seq_criteres",
-            sequenceName = "SEQ_CRITERES_EVALUATION",
-            allocationSize = 1
-    )
+    @PooledSequence(name = "SEQ_CRITERES_EVALUATION", blockSize = 5)
     private Integer id;
 
     @Column(name = "NOM", nullable = false, unique = true, length = 100)
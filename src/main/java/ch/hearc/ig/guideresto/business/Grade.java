@@ -1,5 +1,6 @@
 package ch.hearc.ig.guideresto.business;
 
+import ch.hearc.ig.guideresto.persistence.jpa.PooledSequence;
 import jakarta.persistence.*;
 
 /**
@@ -7,16 +8,17 @@ import jakarta.persistence.*;
  */
 @Entity
 @Table(name = "NOTES")
+@NamedQueries({
+        @NamedQuery(
+                name = "Grade.findAll",
+                query = "SELECT g FROM Grade g ORDER BY g.id"
+        )
+})
 public class Grade implements IBusinessObject {
 
     @Id
     @Column(name = "NUMERO")
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_notes")
-    @SequenceGenerator(
-            name = "seq_notes",
-            sequenceName = "SEQ_NOTES",
-            allocationSize = 1
-    )
+    @PooledSequence(name = "SEQ_NOTES", blockSize = 100)
     private Integer id;
 
     @Column(name = "NOTE", nullable = false)
@@ -0,0 +1,226 @@
+package ch.hearc.ig.guideresto.business;
+
+/**
+ * Forme canonique des adresses IP enregistrées avec les likes (colonne ADRESSE_IP), pour que deux écritures
+ * d'une même adresse donnent la même valeur à indexer et à dédoublonner :
+ * <ul>
+ *     <li>IPv4 en notation décimale pointée : "192.168.1.10"</li>
+ *     <li>IPv6 selon la RFC 5952 (minuscules, zéros de tête omis, plus longue suite de groupes nuls en "::") :
+ *     "2001:db8::1" ; une adresse IPv4 mappée (::ffff:a.b.c.d) devient l'adresse IPv4</li>
+ * </ul>
+ * Seuls des littéraux sont analysés : aucune résolution DNS n'est jamais effectuée.
+ */
+public final class IpAddresses {
+
+    /**
+     * Valeur enregistrée lorsque l'adresse du client n'est pas connue
+     */
+    public static final String UNAVAILABLE = "Indisponible";
+
+    private IpAddresses() {
+    }
+
+    /**
+     * Met une adresse IP sous sa forme canonique. Accepte aussi la forme "hôte/adresse" de
+     * {@link java.net.InetAddress#toString()}, les crochets et l'identifiant de zone IPv6 ("%eth0", ignoré).
+     * @param address L'adresse textuelle
+     * @return La forme canonique, l'adresse telle quelle (sans espaces) si ce n'est pas un littéral IP,
+     * ou null si address est null
+     */
+    public static String canonical(String address) {
+        if (address == null) {
+            return null;
+        }
+        String trimmed = address.trim();
+        byte[] bytes = toBytes(trimmed);
+        return bytes == null ? trimmed : format(bytes);
+    }
+
+    /**
+     * @param address L'adresse textuelle
+     * @return Les 4 (IPv4) ou 16 (IPv6) octets de l'adresse, ou null si ce n'est pas un littéral IP
+     */
+    public static byte[] toBytes(String address) {
+        if (address == null) {
+            return null;
+        }
+        String text = address.trim();
+        int slash = text.lastIndexOf('/');
+        if (slash >= 0) {
+            text = text.substring(slash + 1);
+        }
+        if (text.startsWith("[") && text.endsWith("]")) {
+            text = text.substring(1, text.length() - 1);
+        }
+        if (text.indexOf(':') >= 0) {
+            int zone = text.indexOf('%');
+            return parseIpv6(zone >= 0 ? text.substring(0, zone) : text);
+        }
+        return parseIpv4(text);
+    }
+
+    /**
+     * @param bytes Les 4 ou 16 octets d'une adresse
+     * @return Sa forme canonique
+     */
+    public static String format(byte[] bytes) {
+        if (bytes.length == 4) {
+            return (bytes[0] & 0xff) + "." + (bytes[1] & 0xff) + "." + (bytes[2] & 0xff) + "." + (bytes[3] & 0xff);
+        }
+        if (bytes.length != 16) {
+            throw new IllegalArgumentException("Une adresse IP compte 4 ou 16 octets, pas " + bytes.length);
+        }
+        if (isIpv4Mapped(bytes)) {
+            return (bytes[12] & 0xff) + "." + (bytes[13] & 0xff) + "." + (bytes[14] & 0xff) + "." + (bytes[15] & 0xff);
+        }
+
+        int[] groups = new int[8];
+        for (int i = 0; i < 8; i++) {
+            groups[i] = ((bytes[2 * i] & 0xff) << 8) | (bytes[2 * i + 1] & 0xff);
+        }
+        // Plus longue suite d'au moins deux groupes nuls, la première en cas d'égalité
+        int bestStart = -1;
+        int bestLength = 1;
+        for (int i = 0; i < 8; ) {
+            if (groups[i] != 0) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < 8 && groups[i] == 0) {
+                i++;
+            }
+            if (i - start > bestLength) {
+                bestStart = start;
+                bestLength = i - start;
+            }
+        }
+
+        StringBuilder text = new StringBuilder(39);
+        for (int i = 0; i < 8; i++) {
+            if (i == bestStart) {
+                text.append("::");
+                i += bestLength - 1;
+                continue;
+            }
+            if (text.length() > 0 && text.charAt(text.length() - 1) != ':') {
+                text.append(':');
+            }
+            text.append(Integer.toHexString(groups[i]));
+        }
+        return text.toString();
+    }
+
+    private static boolean isIpv4Mapped(byte[] bytes) {
+        for (int i = 0; i < 10; i++) {
+            if (bytes[i] != 0) {
+                return false;
+            }
+        }
+        return bytes[10] == (byte) 0xff && bytes[11] == (byte) 0xff;
+    }
+
+    private static byte[] parseIpv4(String text) {
+        String[] parts = text.split("\\.", -1);
+        if (parts.length != 4) {
+            return null;
+        }
+        byte[] bytes = new byte[4];
+        for (int i = 0; i < 4; i++) {
+            int value = parseDecimalOctet(parts[i]);
+            if (value < 0) {
+                return null;
+            }
+            bytes[i] = (byte) value;
+        }
+        return bytes;
+    }
+
+    private static int parseDecimalOctet(String part) {
+        if (part.isEmpty() || part.length() > 3) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < part.length(); i++) {
+            char c = part.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value <= 255 ? value : -1;
+    }
+
+    private static byte[] parseIpv6(String text) {
+        int doubleColon = text.indexOf("::");
+        if (doubleColon >= 0 && text.indexOf("::", doubleColon + 1) >= 0) {
+            return null;
+        }
+        int[] head;
+        int[] tail;
+        if (doubleColon < 0) {
+            head = parseGroups(text, true);
+            tail = new int[0];
+        } else {
+            head = parseGroups(text.substring(0, doubleColon), false);
+            tail = parseGroups(text.substring(doubleColon + 2), true);
+        }
+        if (head == null || tail == null) {
+            return null;
+        }
+        int count = head.length + tail.length;
+        if (doubleColon < 0 ? count != 8 : count > 7) {
+            return null;
+        }
+
+        int[] groups = new int[8];
+        System.arraycopy(head, 0, groups, 0, head.length);
+        System.arraycopy(tail, 0, groups, 8 - tail.length, tail.length);
+        byte[] bytes = new byte[16];
+        for (int i = 0; i < 8; i++) {
+            bytes[2 * i] = (byte) (groups[i] >>> 8);
+            bytes[2 * i + 1] = (byte) groups[i];
+        }
+        return bytes;
+    }
+
+    /**
+     * @param part Une suite de groupes hexadécimaux séparés par ":", éventuellement vide
+     * @param allowIpv4 true si le dernier groupe peut être une adresse IPv4 (qui compte pour deux groupes)
+     * @return Les valeurs des groupes, ou null si la suite est invalide
+     */
+    private static int[] parseGroups(String part, boolean allowIpv4) {
+        if (part.isEmpty()) {
+            return new int[0];
+        }
+        String[] pieces = part.split(":", -1);
+        int last = pieces.length - 1;
+        boolean embeddedIpv4 = allowIpv4 && pieces[last].indexOf('.') >= 0;
+        int[] groups = new int[pieces.length + (embeddedIpv4 ? 1 : 0)];
+        for (int i = 0; i < pieces.length; i++) {
+            if (i == last && embeddedIpv4) {
+                byte[] ipv4 = parseIpv4(pieces[i]);
+                if (ipv4 == null) {
+                    return null;
+                }
+                groups[i] = ((ipv4[0] & 0xff) << 8) | (ipv4[1] & 0xff);
+                groups[i + 1] = ((ipv4[2] & 0xff) << 8) | (ipv4[3] & 0xff);
+                continue;
+            }
+            String piece = pieces[i];
+            if (piece.isEmpty() || piece.length() > 4) {
+                return null;
+            }
+            int value = 0;
+            for (int j = 0; j < piece.length(); j++) {
+                int digit = Character.digit(piece.charAt(j), 16);
+                if (digit < 0) {
+                    return null;
+                }
+                value = (value << 4) | digit;
+            }
+            groups[i] = value;
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,10 @@
+package ch.hearc.ig.guideresto.business;
+
+/**
+ * Nombre de likes et de dislikes d'un restaurant, calculé en base de données
+ * @param restaurantId L'ID du restaurant
+ * @param likes Nombre de likes
+ * @param dislikes Nombre de dislikes
+ */
+public record LikeCounts(Integer restaurantId, long likes, long dislikes) {
+}
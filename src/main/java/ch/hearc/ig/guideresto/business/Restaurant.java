@@ -1,5 +1,6 @@
 package ch.hearc.ig.guideresto.business;
 
+import ch.hearc.ig.guideresto.persistence.jpa.PooledSequence;
 import jakarta.persistence.*;
 import org.apache.commons.collections4.CollectionUtils;
 
@@ -14,31 +15,123 @@ import java.util.Set;
 @NamedQueries({
         @NamedQuery(
                 name = "Restaurant.findAll",
-                query = "SELECT r FROM Restaurant r ORDER BY r.name"
+                query = "SELECT r FROM Restaurant r ORDER BY r.name, r.id"
+        ),
+        @NamedQuery(
+                name = "Restaurant.findAllAfter",
+                query = "SELECT r FROM Restaurant r " +
+                        "WHERE r.name > :name OR (r.name = :name AND r.id > :id) " +
+                        "ORDER BY r.name, r.id"
         ),
         @NamedQuery(
                 name = "Restaurant.findByName",
-                query = "SELECT r FROM Restaurant r WHERE UPPER(r.name) LIKE UPPER(:name)"
+                query = "SELECT r FROM Restaurant r WHERE UPPER(r.name) LIKE UPPER(:pattern) ORDER BY r.name, r.id"
         ),
         @NamedQuery(
                 name = "Restaurant.findByCity",
-                query = "SELECT r FROM Restaurant r WHERE r.address.city.id = :cityId"
+                query = "SELECT r FROM Restaurant r WHERE r.address.city.id = :cityId ORDER BY r.name, r.id"
+        ),
+        @NamedQuery(
+                name = "Restaurant.findByCityAfter",
+                query = "SELECT r FROM Restaurant r WHERE r.address.city.id = :cityId " +
+                        "AND (r.name > :name OR (r.name = :name AND r.id > :id)) " +
+                        "ORDER BY r.name, r.id"
         ),
         @NamedQuery(
                 name = "Restaurant.findByType",
-                query = "SELECT r FROM Restaurant r WHERE r.type.id = :typeId"
+                query = "SELECT r FROM Restaurant r WHERE r.type.id = :typeId ORDER BY r.name, r.id"
+        ),
+        @NamedQuery(
+                name = "Restaurant.findByTypeAfter",
+                query = "SELECT r FROM Restaurant r WHERE r.type.id = :typeId " +
+                        "AND (r.name > :name OR (r.name = :name AND r.id > :id)) " +
+                        "ORDER BY r.name, r.id"
+        ),
+        @NamedQuery(
+                name = "Restaurant.listAll",
+                query = "SELECT new ch.hearc.ig.guideresto.business.RestaurantListItem(r.id, r.name, r.address.street, c.zipCode, c.cityName, t.label) " +
+                        "FROM Restaurant r JOIN r.address.city c JOIN r.type t " +
+                        "ORDER BY r.name, r.id"
+        ),
+        @NamedQuery(
+                name = "Restaurant.listAllAfter",
+                query = "SELECT new ch.hearc.ig.guideresto.business.RestaurantListItem(r.id, r.name, r.address.street, c.zipCode, c.cityName, t.label) " +
+                        "FROM Restaurant r JOIN r.address.city c JOIN r.type t " +
+                        "WHERE r.name > :name OR (r.name = :name AND r.id > :id) " +
+                        "ORDER BY r.name, r.id"
+        ),
+        @NamedQuery(
+                name = "Restaurant.listByCity",
+                query = "SELECT new ch.hearc.ig.guideresto.business.RestaurantListItem(r.id, r.name, r.address.street, c.zipCode, c.cityName, t.label) " +
+                        "FROM Restaurant r JOIN r.address.city c JOIN r.type t " +
+                        "WHERE c.id = :cityId " +
+                        "ORDER BY r.name, r.id"
+        ),
+        @NamedQuery(
+                name = "Restaurant.listByCityAfter",
+                query = "SELECT new ch.hearc.ig.guideresto.business.RestaurantListItem(r.id, r.name, r.address.street, c.zipCode, c.cityName, t.label) " +
+                        "FROM Restaurant r JOIN r.address.city c JOIN r.type t " +
+                        "WHERE c.id = :cityId AND " +
+                        "(r.name > :name OR (r.name = :name AND r.id > :id)) " +
+                        "ORDER BY r.name, r.id"
+        ),
+        @NamedQuery(
+                name = "Restaurant.listByType",
+                query = "SELECT new ch.hearc.ig.guideresto.business.RestaurantListItem(r.id, r.name, r.address.street, c.zipCode, c.cityName, t.label) " +
+                        "FROM Restaurant r JOIN r.address.city c JOIN r.type t " +
+                        "WHERE t.id = :typeId " +
+                        "ORDER BY r.name, r.id"
+        ),
+        @NamedQuery(
+                name = "Restaurant.listByTypeAfter",
+                query = "SELECT new ch.hearc.ig.guideresto.business.RestaurantListItem(r.id, r.name, r.address.street, c.zipCode, c.cityName, t.label) " +
+                        "FROM Restaurant r JOIN r.address.city c JOIN r.type t " +
+                        "WHERE t.id = :typeId AND " +
+                        "(r.name > :name OR (r.name = :name AND r.id > :id)) " +
+                        "ORDER BY r.name, r.id"
+        ),
+        @NamedQuery(
+                name = "Restaurant.listByIds",
+                query = "SELECT new ch.hearc.ig.guideresto.business.RestaurantListItem(r.id, r.name, r.address.street, c.zipCode, c.cityName, t.label) " +
+                        "FROM Restaurant r JOIN r.address.city c JOIN r.type t " +
+                        "WHERE r.id IN :ids"
+        ),
+        @NamedQuery(
+                name = "Restaurant.findByIds",
+                query = "SELECT r FROM Restaurant r WHERE r.id IN :ids"
+        ),
+        @NamedQuery(
+                name = "Restaurant.findIdsAndNames",
+                query = "SELECT r.id, r.name FROM Restaurant r"
+        ),
+        @NamedQuery(
+                name = "Restaurant.findExistingIds",
+                query = "SELECT r.id FROM Restaurant r WHERE r.id IN :ids"
+        ),
+        @NamedQuery(
+                name = "Restaurant.findByIdWithDetails",
+                query = "SELECT r FROM Restaurant r WHERE r.id = :id"
         )
 })
+/*
+ * Graphe de la vue détaillée : type, ville et évaluations (likes et évaluations complètes, requête polymorphe)
+ * chargés avec le restaurant. Les notes des évaluations complètes sont chargées par une seconde requête
+ * (CompleteEvaluation.findByRestaurantWithGrades).
+ */
+@NamedEntityGraph(
+        name = "Restaurant.details",
+        attributeNodes = {
+                @NamedAttributeNode("type"),
+                @NamedAttributeNode(value = "address", subgraph = "address"),
+                @NamedAttributeNode("evaluations")
+        },
+        subgraphs = @NamedSubgraph(name = "address", attributeNodes = @NamedAttributeNode("city"))
+)
 public class Restaurant implements IBusinessObject {
 
     @Id
     @Column(name = "NUMERO")
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_restaurants")
-    @SequenceGenerator(
-            name = "seq_restaurants",
-            sequenceName = "SEQ_RESTAURANTS",
-            allocationSize = 1
-    )
+    @PooledSequence(name = "SEQ_RESTAURANTS", blockSize = 20)
     private Integer id;
 
     @Column(name = "NOM", nullable = false, length = 100)
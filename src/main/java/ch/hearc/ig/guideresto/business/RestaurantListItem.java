@@ -0,0 +1,15 @@
+package ch.hearc.ig.guideresto.business;
+
+/**
+ * Ligne d'une liste de restaurants : uniquement les colonnes affichées, lues en un seul SELECT
+ * avec jointures (sans la description, ni entité gérée, ni chargement paresseux)
+ * @param id L'ID du restaurant
+ * @param name Le nom du restaurant
+ * @param street La rue
+ * @param zipCode Le NPA de la ville
+ * @param cityName Le nom de la ville
+ * @param typeLabel Le libellé du type gastronomique
+ */
+public record RestaurantListItem(Integer id, String name, String street, String zipCode, String cityName,
+                                 String typeLabel) {
+}
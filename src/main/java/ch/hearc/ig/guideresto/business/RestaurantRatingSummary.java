@@ -0,0 +1,37 @@
+package ch.hearc.ig.guideresto.business;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Synthèse des évaluations d'un restaurant, calculée en base de données
+ * @param restaurantId L'ID du restaurant
+ * @param likes Nombre de likes
+ * @param dislikes Nombre de dislikes
+ * @param completeEvaluations Nombre d'évaluations complètes
+ * @param gradeCount Nombre de notes, tous critères confondus
+ * @param overallAverage Moyenne de toutes les notes, ou 0.0 si aucune note
+ * @param averageByCriteria Moyenne des notes par nom de critère (0.0 pour un critère sans note), triée par nom
+ */
+public record RestaurantRatingSummary(Integer restaurantId, long likes, long dislikes, long completeEvaluations,
+                                      long gradeCount, double overallAverage, Map<String, Double> averageByCriteria) {
+
+    public RestaurantRatingSummary {
+        averageByCriteria = Collections.unmodifiableMap(new LinkedHashMap<>(averageByCriteria));
+    }
+
+    /**
+     * Retourne la moyenne des notes d'un critère
+     * @param criteriaName Le nom du critère (insensible à la casse)
+     * @return La moyenne des notes, ou 0.0 si aucune note
+     */
+    public double getAverageForCriteria(String criteriaName) {
+        for (Map.Entry<String, Double> entry : averageByCriteria.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(criteriaName)) {
+                return entry.getValue();
+            }
+        }
+        return 0.0;
+    }
+}
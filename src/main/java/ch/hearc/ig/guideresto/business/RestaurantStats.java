@@ -0,0 +1,150 @@
+package ch.hearc.ig.guideresto.business;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Statistiques des notes d'un restaurant pour un critère (table RESTAURANT_STATS) : nombre de notes,
+ * somme et somme des carrés, tenues à jour dans la transaction qui ajoute ou supprime les notes.
+ * La moyenne et la variance se lisent ainsi sur une seule ligne, quel que soit le nombre d'avis.
+ * Une ligne n'existe que si le restaurant a au moins une note pour le critère.
+ */
+@Entity
+@Table(name = "RESTAURANT_STATS")
+@IdClass(RestaurantStats.Key.class)
+@NamedQueries({
+        @NamedQuery(
+                name = "RestaurantStats.findByRestaurant",
+                query = "SELECT s FROM RestaurantStats s WHERE s.restaurantId = :restaurantId"
+        ),
+        @NamedQuery(
+                name = "RestaurantStats.findByRestaurants",
+                query = "SELECT s FROM RestaurantStats s WHERE s.restaurantId IN :restaurantIds"
+        ),
+        @NamedQuery(
+                name = "RestaurantStats.deleteByRestaurant",
+                query = "DELETE FROM RestaurantStats s WHERE s.restaurantId = :restaurantId"
+        )
+})
+public class RestaurantStats {
+
+    /**
+     * Clé de la table : restaurant et critère
+     */
+    public static class Key implements Serializable {
+
+        private Integer restaurantId;
+        private Integer criteriaId;
+
+        public Key() {
+        }
+
+        public Key(Integer restaurantId, Integer criteriaId) {
+            this.restaurantId = restaurantId;
+            this.criteriaId = criteriaId;
+        }
+
+        public Integer getRestaurantId() {
+            return restaurantId;
+        }
+
+        public Integer getCriteriaId() {
+            return criteriaId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key
+                    && Objects.equals(restaurantId, key.restaurantId)
+                    && Objects.equals(criteriaId, key.criteriaId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(restaurantId, criteriaId);
+        }
+    }
+
+    @Id
+    @Column(name = "FK_REST")
+    private Integer restaurantId;
+
+    @Id
+    @Column(name = "FK_CRIT")
+    private Integer criteriaId;
+
+    @Column(name = "NB_NOTES", nullable = false)
+    private long gradeCount;
+
+    @Column(name = "SOMME_NOTES", nullable = false)
+    private long gradeSum;
+
+    @Column(name = "SOMME_CARRES", nullable = false)
+    private long squareSum;
+
+    public RestaurantStats() {
+    }
+
+    public RestaurantStats(Integer restaurantId, Integer criteriaId) {
+        this.restaurantId = restaurantId;
+        this.criteriaId = criteriaId;
+    }
+
+    /**
+     * Ajoute (ou retire, avec des valeurs négatives) des notes aux statistiques
+     * @param count Nombre de notes
+     * @param sum Somme des notes
+     * @param squares Somme des carrés des notes
+     */
+    public void add(long count, long sum, long squares) {
+        gradeCount += count;
+        gradeSum += sum;
+        squareSum += squares;
+    }
+
+    /**
+     * @return La moyenne des notes, ou 0.0 si aucune note
+     */
+    public double getAverage() {
+        return gradeCount == 0 ? 0.0 : (double) gradeSum / gradeCount;
+    }
+
+    /**
+     * @return La variance des notes (population), ou 0.0 si aucune note
+     */
+    public double getVariance() {
+        if (gradeCount == 0) {
+            return 0.0;
+        }
+        double average = getAverage();
+        return Math.max(0.0, (double) squareSum / gradeCount - average * average);
+    }
+
+    public Integer getRestaurantId() {
+        return restaurantId;
+    }
+
+    public Integer getCriteriaId() {
+        return criteriaId;
+    }
+
+    public long getGradeCount() {
+        return gradeCount;
+    }
+
+    public long getGradeSum() {
+        return gradeSum;
+    }
+
+    public long getSquareSum() {
+        return squareSum;
+    }
+
+    @Override
+    public String toString() {
+        return "RestaurantStats{restaurantId=" + restaurantId + ", criteriaId=" + criteriaId
+                + ", gradeCount=" + gradeCount + ", gradeSum=" + gradeSum + ", squareSum=" + squareSum + "}";
+    }
+}
@@ -1,6 +1,10 @@
 package ch.hearc.ig.guideresto.business;
 
+import ch.hearc.ig.guideresto.persistence.jpa.PooledSequence;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.jpa.HibernateHints;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -9,10 +13,22 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "TYPES_GASTRONOMIQUES")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.REFERENCE_DATA)
 @NamedQueries({
         @NamedQuery(
                 name = "RestaurantType.findAll",
-                query = "SELECT rt FROM RestaurantType rt ORDER BY rt.label"
+                query = "SELECT rt FROM RestaurantType rt ORDER BY rt.label, rt.id",
+                hints = {
+                        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.REFERENCE_QUERIES)
+                }
+        ),
+        @NamedQuery(
+                name = "RestaurantType.findAllAfter",
+                query = "SELECT rt FROM RestaurantType rt " +
+                        "WHERE rt.label > :label OR (rt.label = :label AND rt.id > :id) " +
+                        "ORDER BY rt.label, rt.id"
         ),
         @NamedQuery(
                 name = "RestaurantType.findByLabel",
@@ -23,12 +39,7 @@ public class RestaurantType implements IBusinessObject {
 
     @Id
     @Column(name = "NUMERO")
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_types_gastro")
-    @SequenceGenerator(
-            name = "seq_types_gastro",
-            sequenceName = "SEQ_TYPES_GASTRONOMIQUES",
-            allocationSize = 1
-    )
+    @PooledSequence(name = "SEQ_TYPES_GASTRONOMIQUES", blockSize = 5)
     private Integer id;
 
     @Column(name = "LIBELLE", nullable = false, unique = true, length = 100)
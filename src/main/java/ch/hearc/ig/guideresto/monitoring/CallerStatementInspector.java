@@ -0,0 +1,25 @@
+package ch.hearc.ig.guideresto.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Préfixe chaque instruction SQL générée par Hibernate d'un commentaire qui nomme l'opération mesurée en cours,
+ * par exemple {@code /* RestaurantDao.findById *}{@code /}, pour retrouver l'appelant depuis les outils de la base
+ * (V$SQL, rapports AWR) ou dans le journal des requêtes lentes.
+ * Activé par hibernate.session_factory.statement_inspector (persistence.xml) ;
+ * {@code -Dguideresto.sql.tagCaller=false} le neutralise.
+ */
+public class CallerStatementInspector implements StatementInspector {
+
+    private static final boolean ENABLED =
+            Boolean.parseBoolean(System.getProperty("guideresto.sql.tagCaller", "true"));
+
+    @Override
+    public String inspect(String sql) {
+        if (!ENABLED) {
+            return sql;
+        }
+        String operation = Monitoring.currentOperation();
+        return operation == null ? sql : "/* " + operation + " */ " + sql;
+    }
+}
@@ -0,0 +1,22 @@
+package ch.hearc.ig.guideresto.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Appel d'une méthode d'un DAO JPA
+ */
+@Name("ch.hearc.ig.guideresto.DaoOperation")
+@Label("Opération de DAO")
+@Category({"GuideResto", "DAO"})
+public class DaoOperationEvent extends OperationEvent {
+
+    /**
+     * @param entityType Le type d'entité du DAO
+     * @param entityId L'ID de l'entité concernée, ou null
+     */
+    public DaoOperationEvent(Class<?> entityType, Integer entityId) {
+        super(entityType, entityId);
+    }
+}
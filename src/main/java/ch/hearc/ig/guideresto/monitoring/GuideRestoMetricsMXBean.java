@@ -0,0 +1,30 @@
+package ch.hearc.ig.guideresto.monitoring;
+
+import java.util.List;
+
+/**
+ * Mesures de l'application exposées par JMX (jconsole, VisualVM...) sous le nom
+ * {@value Monitoring#OBJECT_NAME}
+ */
+public interface GuideRestoMetricsMXBean {
+
+    /**
+     * @return Les statistiques des opérations des DAO, des services et des transactions
+     */
+    List<OperationStatistics> getOperations();
+
+    /**
+     * @return Les statistiques Hibernate (requêtes, chargements, cache de second niveau)
+     */
+    HibernateMetrics getHibernate();
+
+    /**
+     * @return Les formes de requêtes SQL les plus lentes (durée maximale), voir {@link SlowQueryLog}
+     */
+    List<SqlStatementStatistics> getSlowestStatements();
+
+    /**
+     * Remet à zéro les mesures des opérations, des requêtes SQL et les statistiques Hibernate
+     */
+    void reset();
+}
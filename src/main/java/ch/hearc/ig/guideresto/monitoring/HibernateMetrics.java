@@ -0,0 +1,124 @@
+package ch.hearc.ig.guideresto.monitoring;
+
+import org.hibernate.stat.Statistics;
+
+import java.beans.ConstructorProperties;
+import java.util.Locale;
+
+/**
+ * Instantané des statistiques Hibernate (hibernate.generate_statistics) utiles au suivi des performances :
+ * requêtes, chargements et fetchs d'entités, cache de second niveau, instructions JDBC et transactions.
+ * Les compteurs sont cumulés depuis la création de l'EntityManagerFactory.
+ */
+public class HibernateMetrics {
+
+    private final long queries;
+    private final long maxQueryMillis;
+    private final String slowestQuery;
+    private final long entityLoads;
+    private final long entityFetches;
+    private final long collectionFetches;
+    private final long secondLevelCacheHits;
+    private final long secondLevelCacheMisses;
+    private final long preparedStatements;
+    private final long transactions;
+
+    @ConstructorProperties({"queries", "maxQueryMillis", "slowestQuery", "entityLoads", "entityFetches",
+            "collectionFetches", "secondLevelCacheHits", "secondLevelCacheMisses", "preparedStatements", "transactions"})
+    public HibernateMetrics(long queries, long maxQueryMillis, String slowestQuery, long entityLoads,
+                            long entityFetches, long collectionFetches, long secondLevelCacheHits,
+                            long secondLevelCacheMisses, long preparedStatements, long transactions) {
+        this.queries = queries;
+        this.maxQueryMillis = maxQueryMillis;
+        this.slowestQuery = slowestQuery;
+        this.entityLoads = entityLoads;
+        this.entityFetches = entityFetches;
+        this.collectionFetches = collectionFetches;
+        this.secondLevelCacheHits = secondLevelCacheHits;
+        this.secondLevelCacheMisses = secondLevelCacheMisses;
+        this.preparedStatements = preparedStatements;
+        this.transactions = transactions;
+    }
+
+    /**
+     * @param statistics Les statistiques de la SessionFactory
+     * @return Un instantané de ces statistiques
+     */
+    public static HibernateMetrics of(Statistics statistics) {
+        return new HibernateMetrics(
+                statistics.getQueryExecutionCount(),
+                statistics.getQueryExecutionMaxTime(),
+                statistics.getQueryExecutionMaxTimeQueryString(),
+                statistics.getEntityLoadCount(),
+                statistics.getEntityFetchCount(),
+                statistics.getCollectionFetchCount(),
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getPrepareStatementCount(),
+                statistics.getTransactionCount());
+    }
+
+    public long getQueries() {
+        return queries;
+    }
+
+    public long getMaxQueryMillis() {
+        return maxQueryMillis;
+    }
+
+    public String getSlowestQuery() {
+        return slowestQuery;
+    }
+
+    public long getEntityLoads() {
+        return entityLoads;
+    }
+
+    public long getEntityFetches() {
+        return entityFetches;
+    }
+
+    public long getCollectionFetches() {
+        return collectionFetches;
+    }
+
+    public long getSecondLevelCacheHits() {
+        return secondLevelCacheHits;
+    }
+
+    public long getSecondLevelCacheMisses() {
+        return secondLevelCacheMisses;
+    }
+
+    public long getPreparedStatements() {
+        return preparedStatements;
+    }
+
+    public long getTransactions() {
+        return transactions;
+    }
+
+    /**
+     * @return La part des lectures du cache de second niveau servies par le cache, entre 0 et 1
+     */
+    public double getSecondLevelCacheHitRatio() {
+        long lookups = secondLevelCacheHits + secondLevelCacheMisses;
+        return lookups == 0 ? 0 : (double) secondLevelCacheHits / lookups;
+    }
+
+    /**
+     * @return Le nombre moyen de fetchs (entités et collections chargées à la demande) par requête,
+     * un indicateur des problèmes N+1
+     */
+    public double getFetchesPerQuery() {
+        return queries == 0 ? 0 : (double) (entityFetches + collectionFetches) / queries;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "requêtes %d (max %d ms)  chargements %d  fetchs %d+%d (%.2f/requête)  cache L2 %.1f %%  instructions %d  transactions %d",
+                queries, maxQueryMillis, entityLoads, entityFetches, collectionFetches, getFetchesPerQuery(),
+                getSecondLevelCacheHitRatio() * 100, preparedStatements, transactions);
+    }
+}
@@ -0,0 +1,26 @@
+package ch.hearc.ig.guideresto.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Accès JDBC d'un Data Mapper (les lectures servies par son identity map ne sont pas enregistrées)
+ */
+@Name("ch.hearc.ig.guideresto.MapperOperation")
+@Label("Opération de Data Mapper")
+@Category({"GuideResto", "JDBC"})
+public class MapperOperationEvent extends OperationEvent {
+
+    @Label("Mapper")
+    Class<?> mapper;
+
+    /**
+     * @param mapper La classe du Data Mapper
+     * @param entityId L'ID de l'objet concerné, ou null
+     */
+    public MapperOperationEvent(Class<?> mapper, Integer entityId) {
+        super(null, entityId);
+        this.mapper = mapper;
+    }
+}
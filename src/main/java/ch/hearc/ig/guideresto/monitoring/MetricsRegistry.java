@@ -0,0 +1,80 @@
+package ch.hearc.ig.guideresto.monitoring;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registre des mesures de l'application : pour chaque opération nommée ("RestaurantDao.findById",
+ * "EvaluationService.countLikes", "JpaUtils.transaction"...), le nombre d'appels, le nombre d'erreurs
+ * et l'histogramme des durées. Les mesures sont cumulées depuis le démarrage ou le dernier {@link #reset()}.
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private static final class Operation {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+    }
+
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Enregistre un appel
+     * @param name Le nom de l'opération
+     * @param nanos Sa durée en nanosecondes
+     * @param failed true si l'appel s'est terminé par une exception
+     */
+    public void record(String name, long nanos, boolean failed) {
+        Operation operation = operations.computeIfAbsent(name, key -> new Operation());
+        operation.latency.record(nanos);
+        if (failed) {
+            operation.errors.increment();
+        }
+    }
+
+    /**
+     * @param name Le nom de l'opération
+     * @return Ses statistiques, ou null si elle n'a jamais été appelée
+     */
+    public OperationStatistics getOperation(String name) {
+        Operation operation = operations.get(name);
+        return operation == null ? null : toStatistics(name, operation);
+    }
+
+    /**
+     * @return Les statistiques de toutes les opérations appelées, de la plus coûteuse (temps total) à la moins coûteuse
+     */
+    public List<OperationStatistics> getOperations() {
+        List<OperationStatistics> statistics = new ArrayList<>(operations.size());
+        operations.forEach((name, operation) -> statistics.add(toStatistics(name, operation)));
+        statistics.sort(Comparator.comparingLong(OperationStatistics::getTotalMicros).reversed()
+                .thenComparing(OperationStatistics::getName));
+        return statistics;
+    }
+
+    /**
+     * Remet toutes les mesures à zéro
+     */
+    public void reset() {
+        operations.clear();
+    }
+
+    private static OperationStatistics toStatistics(String name, Operation operation) {
+        LatencyHistogram latency = operation.latency;
+        return new OperationStatistics(name, latency.getCount(), operation.errors.sum(),
+                latency.getPercentile(50) / 1000, latency.getPercentile(99) / 1000,
+                latency.getMax() / 1000, Math.round(latency.getMean() / 1000));
+    }
+}
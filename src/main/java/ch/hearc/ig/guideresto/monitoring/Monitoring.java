@@ -0,0 +1,317 @@
+package ch.hearc.ig.guideresto.monitoring;
+
+import ch.hearc.ig.guideresto.persistence.dao.Page;
+import ch.hearc.ig.guideresto.persistence.dao.Slice;
+import ch.hearc.ig.guideresto.persistence.jpa.JpaUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.SessionFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Point d'entrée de l'instrumentation : les DAO, les services et {@link JpaUtils} mesurent leurs appels
+ * avec {@link #time(String, OperationEvent, Supplier)}, qui alimente le {@link MetricsRegistry} et émet
+ * les événements Java Flight Recorder ({@link OperationEvent}) lorsqu'un enregistrement est en cours.
+ *
+ * {@link #start()} publie les mesures par JMX et, toutes les {@code guideresto.metrics.logInterval}
+ * secondes (60 par défaut, 0 pour désactiver), en écrit un instantané dans le journal
+ * {@code ch.hearc.ig.guideresto.monitoring}. La mesure elle-même est toujours active : elle ne coûte que
+ * deux lectures d'horloge et quelques opérations atomiques par appel.
+ */
+public final class Monitoring {
+
+    public static final String OBJECT_NAME = "ch.hearc.ig.guideresto:type=Metrics";
+
+    private static final Logger logger = LogManager.getLogger(Monitoring.class);
+
+    private static final long LOG_INTERVAL_SECONDS = Long.getLong("guideresto.metrics.logInterval", 60);
+
+    // Nombre de formes de requêtes SQL les plus lentes écrites dans chaque instantané
+    private static final int SNAPSHOT_STATEMENTS = 5;
+
+    private static final MetricsRegistry registry = MetricsRegistry.getInstance();
+
+    // Résultat des opérations sans résultat, dont le nombre de lignes ne s'applique pas
+    private static final Object NO_RESULT = new Object();
+
+    // Opérations mesurées en cours sur le thread courant, de la plus externe à la plus interne
+    private static final ThreadLocal<CallStack> callStack = ThreadLocal.withInitial(CallStack::new);
+
+    private static ScheduledExecutorService reporter;
+    private static ObjectName registeredName;
+
+    private Monitoring() {
+    }
+
+    /**
+     * Exécute et mesure une opération
+     * @param operation Le nom de l'opération, par exemple "RestaurantDao.findById"
+     * @param call L'opération
+     * @return Le résultat de l'opération
+     */
+    public static <R> R time(String operation, Supplier<R> call) {
+        return time(operation, null, call);
+    }
+
+    /**
+     * Exécute et mesure une opération, et l'enregistre dans Java Flight Recorder si un enregistrement est en cours
+     * @param operation Le nom de l'opération, par exemple "RestaurantDao.findById"
+     * @param event L'événement JFR à émettre, ou null ; son nom d'opération, son nombre de lignes
+     *              (déduit du résultat) et son échec sont renseignés ici
+     * @param call L'opération
+     * @return Le résultat de l'opération
+     */
+    public static <R> R time(String operation, OperationEvent event, Supplier<R> call) {
+        CallStack stack = callStack.get();
+        stack.push(operation);
+        if (event != null) {
+            event.begin();
+        }
+        long start = System.nanoTime();
+        R result = null;
+        boolean failed = true;
+        try {
+            result = call.get();
+            failed = false;
+            return result;
+        } finally {
+            registry.record(operation, System.nanoTime() - start, failed);
+            stack.pop();
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.operation = operation;
+                    event.rows = rowsOf(result);
+                    event.failed = failed;
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Exécute et mesure une opération sans résultat
+     * @param operation Le nom de l'opération
+     * @param call L'opération
+     * @see #time(String, Supplier)
+     */
+    public static void time(String operation, Runnable call) {
+        time(operation, null, call);
+    }
+
+    /**
+     * Exécute et mesure une opération sans résultat
+     * @param operation Le nom de l'opération
+     * @param event L'événement JFR à émettre, ou null
+     * @param call L'opération
+     * @see #time(String, OperationEvent, Supplier)
+     */
+    public static void time(String operation, OperationEvent event, Runnable call) {
+        time(operation, event, () -> {
+            call.run();
+            return NO_RESULT;
+        });
+    }
+
+    /**
+     * @return L'opération mesurée la plus interne en cours sur le thread courant, sans compter les transactions
+     * (par exemple "RestaurantDao.findById"), ou null en dehors de toute opération mesurée
+     */
+    public static String currentOperation() {
+        return callStack.get().innermost();
+    }
+
+    /**
+     * @return Les opérations mesurées en cours sur le thread courant, de la plus externe à la plus interne
+     * (par exemple "EvaluationService.addBasicEvaluation > EvaluationDao.insert > JpaUtils.transaction"),
+     * ou null en dehors de toute opération mesurée
+     */
+    public static String currentCallPath() {
+        return callStack.get().path();
+    }
+
+    /**
+     * @return Les statistiques Hibernate de l'EntityManagerFactory de l'application
+     */
+    public static HibernateMetrics getHibernateMetrics() {
+        return HibernateMetrics.of(JpaUtils.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics());
+    }
+
+    /**
+     * Publie les mesures par JMX et démarre l'écriture périodique dans le journal. Sans effet si déjà démarré.
+     */
+    public static synchronized void start() {
+        if (registeredName != null) {
+            return;
+        }
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new GuideRestoMetrics(), name);
+            }
+            registeredName = name;
+        } catch (JMException ex) {
+            logger.warn("Impossible de publier les mesures par JMX : {}", ex.getMessage());
+        }
+
+        if (LOG_INTERVAL_SECONDS > 0) {
+            reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "guideresto-metrics");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reporter.scheduleAtFixedRate(Monitoring::logSnapshot, LOG_INTERVAL_SECONDS, LOG_INTERVAL_SECONDS,
+                    TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Écrit un dernier instantané, arrête l'écriture périodique et retire les mesures de JMX.
+     * À appeler avant {@link JpaUtils#shutdown()}.
+     */
+    public static synchronized void stop() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+            logSnapshot();
+        }
+        if (registeredName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+            } catch (JMException ex) {
+                logger.debug("Mesures déjà retirées de JMX : {}", ex.getMessage());
+            }
+            registeredName = null;
+        }
+    }
+
+    /**
+     * @param result Le résultat d'une opération
+     * @return Le nombre d'entités ou de lignes qu'il contient : taille d'une collection ou d'une tranche,
+     * 0 ou 1 pour une entité, -1 pour un compteur, un booléen, un flux ou une opération sans résultat
+     */
+    private static long rowsOf(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result == NO_RESULT) {
+            return -1;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.content().size();
+        }
+        if (result instanceof Page<?> page) {
+            return page.content().size();
+        }
+        if (result instanceof Number || result instanceof Boolean || result instanceof Stream<?>) {
+            return -1;
+        }
+        return 1;
+    }
+
+    /**
+     * Écrit dans le journal les statistiques des opérations appelées, de la plus coûteuse à la moins coûteuse,
+     * puis les statistiques Hibernate
+     */
+    public static void logSnapshot() {
+        try {
+            List<OperationStatistics> operations = registry.getOperations();
+            if (operations.isEmpty()) {
+                return;
+            }
+            StringBuilder snapshot = new StringBuilder("Mesures (cumulées depuis le démarrage) :");
+            for (OperationStatistics operation : operations) {
+                snapshot.append(System.lineSeparator()).append("  ").append(operation);
+            }
+            snapshot.append(System.lineSeparator()).append("  Hibernate : ").append(getHibernateMetrics());
+            for (SqlStatementStatistics statement : SlowQueryLog.getInstance().getSlowestStatements(SNAPSHOT_STATEMENTS)) {
+                snapshot.append(System.lineSeparator()).append("  SQL ").append(statement);
+            }
+            logger.info(snapshot);
+        } catch (RuntimeException ex) {
+            logger.warn("Impossible d'écrire les mesures : {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Implémentation JMX, qui lit le registre au moment de l'appel
+     */
+    private static final class GuideRestoMetrics implements GuideRestoMetricsMXBean {
+
+        @Override
+        public List<OperationStatistics> getOperations() {
+            return registry.getOperations();
+        }
+
+        @Override
+        public HibernateMetrics getHibernate() {
+            return getHibernateMetrics();
+        }
+
+        @Override
+        public List<SqlStatementStatistics> getSlowestStatements() {
+            return SlowQueryLog.getInstance().getSlowestStatements();
+        }
+
+        @Override
+        public void reset() {
+            registry.reset();
+            SlowQueryLog.getInstance().reset();
+            JpaUtils.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics().clear();
+        }
+    }
+
+    /**
+     * Pile des noms d'opérations en cours sur un thread. Empiler et dépiler n'alloue rien tant que
+     * la profondeur ne dépasse pas la capacité initiale.
+     */
+    private static final class CallStack {
+
+        private String[] names = new String[8];
+        private int depth;
+
+        private void push(String name) {
+            if (depth == names.length) {
+                names = Arrays.copyOf(names, depth * 2);
+            }
+            names[depth++] = name;
+        }
+
+        private void pop() {
+            names[--depth] = null;
+        }
+
+        private String innermost() {
+            for (int i = depth - 1; i >= 0; i--) {
+                if (!JpaUtils.TRANSACTION_METRIC.equals(names[i])) {
+                    return names[i];
+                }
+            }
+            return null;
+        }
+
+        private String path() {
+            return depth == 0 ? null : String.join(" > ", Arrays.asList(names).subList(0, depth));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ch.hearc.ig.guideresto.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Événement Java Flight Recorder d'une opération mesurée par {@link Monitoring}.
+ * Les événements d'un même thread s'emboîtent dans l'enregistrement : un appel de service contient les appels
+ * de DAO qu'il a provoqués, qui contiennent leurs transactions et leurs instructions JDBC.
+ * Sans enregistrement JFR en cours, l'événement n'est pas émis et son coût est négligeable.
+ */
+@Category("GuideResto")
+@StackTrace(false)
+public abstract class OperationEvent extends Event {
+
+    @Label("Opération")
+    String operation;
+
+    @Label("Type d'entité")
+    Class<?> entityType;
+
+    @Label("ID")
+    @Description("ID de l'entité concernée, 0 si l'opération ne porte pas sur une entité précise")
+    long entityId;
+
+    @Label("Lignes")
+    @Description("Nombre d'entités ou de lignes retournées, -1 s'il ne s'applique pas")
+    long rows;
+
+    @Label("Échec")
+    @Description("L'opération s'est terminée par une exception")
+    boolean failed;
+
+    protected OperationEvent(Class<?> entityType, Integer entityId) {
+        this.entityType = entityType;
+        this.entityId = entityId == null ? 0 : entityId;
+    }
+}
@@ -0,0 +1,71 @@
+package ch.hearc.ig.guideresto.monitoring;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Statistiques d'une opération (méthode de DAO ou de service, transaction) à un instant donné.
+ * Les durées sont en microsecondes.
+ */
+public class OperationStatistics {
+
+    private final String name;
+    private final long calls;
+    private final long errors;
+    private final long p50Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+    private final long meanMicros;
+
+    @ConstructorProperties({"name", "calls", "errors", "p50Micros", "p99Micros", "maxMicros", "meanMicros"})
+    public OperationStatistics(String name, long calls, long errors, long p50Micros, long p99Micros,
+                               long maxMicros, long meanMicros) {
+        this.name = name;
+        this.calls = calls;
+        this.errors = errors;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+        this.meanMicros = meanMicros;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public long getMeanMicros() {
+        return meanMicros;
+    }
+
+    /**
+     * @return Le temps total passé dans l'opération, en microsecondes (approximé par la moyenne)
+     */
+    public long getTotalMicros() {
+        return meanMicros * calls;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-50s appels %8d  erreurs %5d  p50 %8d µs  p99 %8d µs  max %8d µs",
+                name, calls, errors, p50Micros, p99Micros, maxMicros);
+    }
+}
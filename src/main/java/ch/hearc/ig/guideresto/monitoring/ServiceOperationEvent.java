@@ -0,0 +1,22 @@
+package ch.hearc.ig.guideresto.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Appel d'une méthode publique d'un service
+ */
+@Name("ch.hearc.ig.guideresto.ServiceOperation")
+@Label("Opération de service")
+@Category({"GuideResto", "Service"})
+public class ServiceOperationEvent extends OperationEvent {
+
+    /**
+     * @param entityType Le type de l'entité sur laquelle porte l'appel, par exemple Restaurant
+     * @param entityId Son ID, ou null
+     */
+    public ServiceOperationEvent(Class<?> entityType, Integer entityId) {
+        super(entityType, entityId);
+    }
+}
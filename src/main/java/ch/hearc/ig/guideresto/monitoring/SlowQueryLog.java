@@ -0,0 +1,236 @@
+package ch.hearc.ig.guideresto.monitoring;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Journal des requêtes SQL lentes, alimenté par les connexions JDBC instrumentées ({@link #wrap(Connection)}) :
+ * <ul>
+ *     <li>chaque instruction dont l'exécution et la lecture des lignes dépassent
+ *     {@code guideresto.sql.slowThresholdMs} millisecondes (100 par défaut, -1 pour désactiver) est journalisée
+ *     avec ses paramètres, les opérations en cours (méthode de DAO, de service) et le nombre de lignes</li>
+ *     <li>les durées sont cumulées par forme de requête (texte normalisé), pour connaître les plus lentes par JMX
+ *     ({@link #getSlowestStatements()}). Au-delà de {@code guideresto.sql.maxShapes} formes (1000 par défaut),
+ *     le dixième des formes exécutées le moins récemment laisse sa place, en une seule passe : une forme
+ *     nouvelle n'est donc jamais la prochaine évincée, et le coût de l'éviction est réparti sur les formes
+ *     ajoutées ensuite.</li>
+ * </ul>
+ * {@code -Dguideresto.sql.monitor=false} désactive l'instrumentation : les connexions ne sont plus enveloppées.
+ */
+public final class SlowQueryLog {
+
+    private static final Logger logger = LogManager.getLogger(SlowQueryLog.class);
+
+    private static final SlowQueryLog INSTANCE = new SlowQueryLog(
+            Boolean.parseBoolean(System.getProperty("guideresto.sql.monitor", "true")),
+            Long.getLong("guideresto.sql.slowThresholdMs", 100),
+            Integer.getInteger("guideresto.sql.maxShapes", 1000),
+            Integer.getInteger("guideresto.sql.topSize", 20));
+
+    // Longueur maximale d'un paramètre journalisé
+    private static final int MAX_BIND_LENGTH = 100;
+
+    private static final Pattern COMMENTS = Pattern.compile("/\\*.*?\\*/|--[^\\n]*", Pattern.DOTALL);
+    private static final Pattern STRING_LITERALS = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERALS = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LISTS = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final class Shape {
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private volatile String slowestCaller;
+        private volatile long lastSeenNanos = System.nanoTime();
+    }
+
+    private final boolean enabled;
+    private final long thresholdNanos;
+    private final int maxShapes;
+    private final int topSize;
+
+    private final Map<String, Shape> shapes = new ConcurrentHashMap<>();
+    // Texte SQL brut -> forme normalisée, pour ne pas normaliser à chaque exécution
+    private final Map<String, String> normalized = new ConcurrentHashMap<>();
+
+    private SlowQueryLog(boolean enabled, long thresholdMillis, int maxShapes, int topSize) {
+        this.enabled = enabled;
+        this.thresholdNanos = thresholdMillis < 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.maxShapes = Math.max(1, maxShapes);
+        this.topSize = Math.max(1, topSize);
+    }
+
+    public static SlowQueryLog getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Enveloppe une connexion JDBC pour mesurer les instructions qui y sont exécutées
+     * @param connection La connexion
+     * @return La connexion instrumentée, ou la connexion elle-même si l'instrumentation est désactivée
+     */
+    public Connection wrap(Connection connection) {
+        return enabled ? TimedConnection.wrap(connection, this) : connection;
+    }
+
+    /**
+     * @param connection Une connexion éventuellement obtenue par {@link #wrap(Connection)}
+     * @return La connexion enveloppée, ou la connexion elle-même si elle n'est pas instrumentée
+     */
+    public Connection unwrap(Connection connection) {
+        return TimedConnection.unwrap(connection);
+    }
+
+    /**
+     * Enregistre l'exécution d'une instruction, et la journalise si elle dépasse le seuil
+     * @param sql Le texte SQL exécuté
+     * @param binds Les paramètres liés (indice 0 pour le paramètre 1), éventuellement plus long que bindCount
+     * @param bindCount Le nombre de paramètres liés
+     * @param nanos La durée d'exécution et de lecture des lignes, en nanosecondes
+     * @param rows Le nombre de lignes lues ou modifiées, ou -1 s'il est inconnu
+     * @param caller Les opérations en cours lors de l'exécution ({@link Monitoring#currentCallPath()}), ou null
+     */
+    void record(String sql, Object[] binds, int bindCount, long nanos, long rows, String caller) {
+        if (sql == null) {
+            return;
+        }
+        Shape shape = shapeOf(normalizeCached(sql));
+        shape.lastSeenNanos = System.nanoTime();
+        shape.executions.increment();
+        shape.totalNanos.add(nanos);
+        if (rows > 0) {
+            shape.rows.add(rows);
+        }
+        if (nanos > shape.maxNanos.get() && shape.maxNanos.accumulateAndGet(nanos, Math::max) == nanos) {
+            shape.slowestCaller = caller;
+        }
+
+        if (nanos >= thresholdNanos) {
+            logger.warn("Requête lente : {} ms, {} ligne(s), dans {} : {} {}",
+                    TimeUnit.NANOSECONDS.toMillis(nanos), rows < 0 ? "?" : rows,
+                    caller == null ? "(hors opération mesurée)" : caller, sql.trim(), formatBinds(binds, bindCount));
+        }
+    }
+
+    /**
+     * @return Les {@code guideresto.sql.topSize} formes de requêtes les plus lentes (20 par défaut)
+     * @see #getSlowestStatements(int)
+     */
+    public List<SqlStatementStatistics> getSlowestStatements() {
+        return getSlowestStatements(topSize);
+    }
+
+    /**
+     * @param limit Le nombre de formes voulues
+     * @return Les formes de requêtes les plus lentes, de la plus longue durée maximale à la plus courte
+     */
+    public List<SqlStatementStatistics> getSlowestStatements(int limit) {
+        List<SqlStatementStatistics> statistics = new ArrayList<>(shapes.size());
+        shapes.forEach((sql, shape) -> {
+            long executions = shape.executions.sum();
+            if (executions > 0) {
+                statistics.add(new SqlStatementStatistics(sql, executions, shape.rows.sum(),
+                        shape.totalNanos.sum() / executions / 1000, shape.maxNanos.get() / 1000, shape.slowestCaller));
+            }
+        });
+        statistics.sort(Comparator.comparingLong(SqlStatementStatistics::getMaxMicros).reversed()
+                .thenComparing(SqlStatementStatistics::getSql));
+        return statistics.size() > limit ? new ArrayList<>(statistics.subList(0, limit)) : statistics;
+    }
+
+    /**
+     * Remet à zéro les statistiques par forme de requête
+     */
+    public void reset() {
+        shapes.clear();
+    }
+
+    /**
+     * Normalise un texte SQL : sans commentaires, littéraux remplacés par ?, listes IN (?, ?, ...) réduites
+     * à IN (?...) et espaces regroupés
+     * @param sql Le texte SQL
+     * @return Sa forme normalisée
+     */
+    static String normalize(String sql) {
+        String shape = COMMENTS.matcher(sql).replaceAll(" ");
+        shape = STRING_LITERALS.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERALS.matcher(shape).replaceAll("?");
+        shape = IN_LISTS.matcher(shape).replaceAll("in (?...)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    private Shape shapeOf(String sql) {
+        Shape shape = shapes.get(sql);
+        if (shape != null) {
+            return shape;
+        }
+        if (shapes.size() >= maxShapes) {
+            evictLeastRecent();
+        }
+        return shapes.computeIfAbsent(sql, key -> new Shape());
+    }
+
+    private String normalizeCached(String sql) {
+        String shape = normalized.get(sql);
+        if (shape == null) {
+            shape = normalize(sql);
+            if (normalized.size() < maxShapes * 4) {
+                normalized.put(sql, shape);
+            }
+        }
+        return shape;
+    }
+
+    private synchronized void evictLeastRecent() {
+        // Un autre thread vient peut-être de faire la place
+        if (shapes.size() < maxShapes) {
+            return;
+        }
+        List<Map.Entry<String, Shape>> entries = new ArrayList<>(shapes.entrySet());
+        entries.sort(Comparator.comparingLong(entry -> entry.getValue().lastSeenNanos));
+        int count = Math.max(1, maxShapes / 10);
+        for (Map.Entry<String, Shape> entry : entries.subList(0, Math.min(count, entries.size()))) {
+            shapes.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static String formatBinds(Object[] binds, int bindCount) {
+        if (bindCount == 0) {
+            return "";
+        }
+        StringBuilder formatted = new StringBuilder("[");
+        for (int i = 0; i < bindCount; i++) {
+            if (i > 0) {
+                formatted.append(", ");
+            }
+            formatted.append(formatBind(binds[i]));
+        }
+        return formatted.append(']').toString();
+    }
+
+    private static String formatBind(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof byte[] bytes) {
+            return "<" + bytes.length + " octets>";
+        }
+        String text = value.toString();
+        if (text.length() > MAX_BIND_LENGTH) {
+            text = text.substring(0, MAX_BIND_LENGTH) + "...";
+        }
+        return value instanceof CharSequence ? "'" + text + "'" : text;
+    }
+}
@@ -0,0 +1,66 @@
+package ch.hearc.ig.guideresto.monitoring;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Statistiques d'une forme de requête SQL (le texte normalisé, sans littéraux ni commentaires) à un instant donné.
+ * Les durées sont en microsecondes et couvrent l'exécution et la lecture des lignes.
+ */
+public class SqlStatementStatistics {
+
+    private final String sql;
+    private final long executions;
+    private final long rows;
+    private final long meanMicros;
+    private final long maxMicros;
+    private final String slowestCaller;
+
+    @ConstructorProperties({"sql", "executions", "rows", "meanMicros", "maxMicros", "slowestCaller"})
+    public SqlStatementStatistics(String sql, long executions, long rows, long meanMicros, long maxMicros,
+                                  String slowestCaller) {
+        this.sql = sql;
+        this.executions = executions;
+        this.rows = rows;
+        this.meanMicros = meanMicros;
+        this.maxMicros = maxMicros;
+        this.slowestCaller = slowestCaller;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public long getExecutions() {
+        return executions;
+    }
+
+    /**
+     * @return Le nombre total de lignes lues ou modifiées
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    public long getMeanMicros() {
+        return meanMicros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    /**
+     * @return Les opérations en cours lors de l'exécution la plus lente, par exemple
+     * "RestaurantService.getRestaurantById > RestaurantDao.findById", ou null si elle a eu lieu hors de toute
+     * opération mesurée
+     */
+    public String getSlowestCaller() {
+        return slowestCaller;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("exécutions %8d  lignes %10d  moyenne %8d µs  max %8d µs  %s",
+                executions, rows, meanMicros, maxMicros, sql);
+    }
+}
@@ -0,0 +1,293 @@
+package ch.hearc.ig.guideresto.monitoring;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Proxy JDBC qui mesure les instructions exécutées sur une connexion et les transmet au {@link SlowQueryLog}.
+ * Une requête est mesurée de son exécution à la fermeture de son ResultSet, en ne comptant que le temps
+ * passé dans le pilote (exécution et {@link ResultSet#next()}), pas celui de l'appelant entre deux lignes.
+ */
+final class TimedConnection implements InvocationHandler {
+
+    private final Connection connection;
+    private final SlowQueryLog log;
+
+    private TimedConnection(Connection connection, SlowQueryLog log) {
+        this.connection = connection;
+        this.log = log;
+    }
+
+    static Connection wrap(Connection connection, SlowQueryLog log) {
+        if (Proxy.isProxyClass(connection.getClass())
+                && Proxy.getInvocationHandler(connection) instanceof TimedConnection) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new TimedConnection(connection, log));
+    }
+
+    static Connection unwrap(Connection connection) {
+        if (Proxy.isProxyClass(connection.getClass())
+                && Proxy.getInvocationHandler(connection) instanceof TimedConnection timed) {
+            return timed.connection;
+        }
+        return connection;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "prepareStatement", "prepareCall":
+                return TimedStatement.wrap((Statement) delegate(connection, method, args), (String) args[0],
+                        (Connection) proxy, log);
+            case "createStatement":
+                return TimedStatement.wrap((Statement) delegate(connection, method, args), null,
+                        (Connection) proxy, log);
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "Timed[" + connection + "]";
+            default:
+                return delegate(connection, method, args);
+        }
+    }
+
+    private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Instruction en cours de mesure : texte SQL, paramètres liés et, pour une requête, durée et lignes
+     * accumulées jusqu'à la fermeture de son ResultSet
+     */
+    private static final class TimedStatement implements InvocationHandler {
+
+        private final Statement statement;
+        private final Connection connection;
+        private final SlowQueryLog log;
+        private String sql;
+
+        private Object[] binds = new Object[8];
+        private int bindCount;
+
+        // Requête dont le ResultSet est encore ouvert
+        private boolean pending;
+        private String pendingSql;
+        private String pendingCaller;
+        private long pendingNanos;
+        private long pendingRows;
+
+        private TimedStatement(Statement statement, String sql, Connection connection, SlowQueryLog log) {
+            this.statement = statement;
+            this.sql = sql;
+            this.connection = connection;
+            this.log = log;
+        }
+
+        private static Statement wrap(Statement statement, String sql, Connection connection, SlowQueryLog log) {
+            Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                    : statement instanceof PreparedStatement ? PreparedStatement.class
+                    : Statement.class;
+            return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type},
+                    new TimedStatement(statement, sql, connection, log));
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "executeQuery":
+                    return executeQuery(proxy, method, args);
+                case "executeUpdate", "executeLargeUpdate":
+                    return executeUpdate(method, args);
+                case "executeBatch", "executeLargeBatch":
+                    return executeBatch(method, args);
+                case "execute":
+                    return execute(proxy, method, args);
+                case "getResultSet":
+                    return wrapResultSet(proxy, (ResultSet) delegate(statement, method, args));
+                case "addBatch":
+                    if (args != null && sql == null) {
+                        sql = (String) args[0];
+                    }
+                    return delegate(statement, method, args);
+                case "clearParameters":
+                    clearBinds();
+                    return delegate(statement, method, args);
+                case "close":
+                    finishQuery();
+                    return delegate(statement, method, args);
+                case "getConnection":
+                    return connection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Timed[" + statement + "]";
+                default:
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                        bind(index, name.equals("setNull") ? null : args[1]);
+                    }
+                    return delegate(statement, method, args);
+            }
+        }
+
+        private Object executeQuery(Object proxy, Method method, Object[] args) throws Throwable {
+            finishQuery();
+            String executed = args != null ? (String) args[0] : sql;
+            String caller = Monitoring.currentCallPath();
+            long start = System.nanoTime();
+            ResultSet resultSet;
+            try {
+                resultSet = (ResultSet) delegate(statement, method, args);
+            } catch (Throwable ex) {
+                log.record(executed, binds, bindCount, System.nanoTime() - start, -1, caller);
+                throw ex;
+            }
+            startQuery(executed, caller, System.nanoTime() - start);
+            return wrapResultSet(proxy, resultSet);
+        }
+
+        private Object executeUpdate(Method method, Object[] args) throws Throwable {
+            finishQuery();
+            String executed = args != null ? (String) args[0] : sql;
+            String caller = Monitoring.currentCallPath();
+            long start = System.nanoTime();
+            long rows = -1;
+            try {
+                Object result = delegate(statement, method, args);
+                rows = ((Number) result).longValue();
+                return result;
+            } finally {
+                log.record(executed, binds, bindCount, System.nanoTime() - start, rows, caller);
+            }
+        }
+
+        private Object executeBatch(Method method, Object[] args) throws Throwable {
+            finishQuery();
+            String caller = Monitoring.currentCallPath();
+            long start = System.nanoTime();
+            long rows = -1;
+            try {
+                Object result = delegate(statement, method, args);
+                rows = countBatchRows(result);
+                return result;
+            } finally {
+                // Les paramètres journalisés sont ceux de la dernière ligne du lot
+                log.record(sql, binds, bindCount, System.nanoTime() - start, rows, caller);
+            }
+        }
+
+        private Object execute(Object proxy, Method method, Object[] args) throws Throwable {
+            finishQuery();
+            String executed = args != null ? (String) args[0] : sql;
+            String caller = Monitoring.currentCallPath();
+            long start = System.nanoTime();
+            boolean hasResultSet;
+            try {
+                hasResultSet = (Boolean) delegate(statement, method, args);
+            } catch (Throwable ex) {
+                log.record(executed, binds, bindCount, System.nanoTime() - start, -1, caller);
+                throw ex;
+            }
+            long nanos = System.nanoTime() - start;
+            if (hasResultSet) {
+                startQuery(executed, caller, nanos);
+            } else {
+                log.record(executed, binds, bindCount, nanos, statement.getUpdateCount(), caller);
+            }
+            return hasResultSet;
+        }
+
+        private void startQuery(String executed, String caller, long nanos) {
+            pending = true;
+            pendingSql = executed;
+            pendingCaller = caller;
+            pendingNanos = nanos;
+            pendingRows = 0;
+        }
+
+        private void finishQuery() {
+            if (pending) {
+                pending = false;
+                log.record(pendingSql, binds, bindCount, pendingNanos, pendingRows, pendingCaller);
+            }
+        }
+
+        private Object wrapResultSet(Object statementProxy, ResultSet resultSet) {
+            if (resultSet == null || !pending) {
+                return resultSet;
+            }
+            return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "next":
+                                long start = System.nanoTime();
+                                boolean hasRow = (Boolean) delegate(resultSet, method, args);
+                                pendingNanos += System.nanoTime() - start;
+                                if (hasRow) {
+                                    pendingRows++;
+                                }
+                                return hasRow;
+                            case "close":
+                                finishQuery();
+                                return delegate(resultSet, method, args);
+                            case "getStatement":
+                                return statementProxy;
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                return delegate(resultSet, method, args);
+                        }
+                    });
+        }
+
+        private void bind(int index, Object value) {
+            if (index < 1) {
+                return;
+            }
+            if (index > binds.length) {
+                binds = Arrays.copyOf(binds, Math.max(index, binds.length * 2));
+            }
+            binds[index - 1] = value;
+            bindCount = Math.max(bindCount, index);
+        }
+
+        private void clearBinds() {
+            Arrays.fill(binds, 0, bindCount, null);
+            bindCount = 0;
+        }
+
+        private static long countBatchRows(Object result) {
+            long rows = 0;
+            if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    rows += Math.max(count, 0);
+                }
+            } else if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    rows += Math.max(count, 0);
+                }
+            }
+            return rows;
+        }
+    }
+}
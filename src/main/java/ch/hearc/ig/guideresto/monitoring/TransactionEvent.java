@@ -0,0 +1,18 @@
+package ch.hearc.ig.guideresto.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Transaction JPA ouverte par JpaUtils, du begin au commit ou au rollback (champ « Échec »)
+ */
+@Name("ch.hearc.ig.guideresto.Transaction")
+@Label("Transaction")
+@Category({"GuideResto", "Transaction"})
+public class TransactionEvent extends OperationEvent {
+
+    public TransactionEvent() {
+        super(null, null);
+    }
+}
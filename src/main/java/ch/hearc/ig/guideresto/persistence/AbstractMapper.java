@@ -1,6 +1,8 @@
 package ch.hearc.ig.guideresto.persistence;
 
 import ch.hearc.ig.guideresto.business.IBusinessObject;
+import ch.hearc.ig.guideresto.monitoring.MapperOperationEvent;
+import ch.hearc.ig.guideresto.monitoring.Monitoring;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -8,43 +10,161 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.function.Supplier;
 
 public abstract class AbstractMapper<T extends IBusinessObject> {
 
     protected static final Logger logger = LogManager.getLogger();
 
-    public abstract T findById(int id);
-    public abstract Set<T> findAll();
-    public abstract T create(T object);
-    public abstract boolean update(T object);
-    public abstract boolean delete(T object);
-    public abstract boolean deleteById(int id);
+    /**
+     * Taille par défaut de l'identity map, modifiable avec la propriété système guideresto.mapper.cacheSize
+     */
+    private static final int DEFAULT_CACHE_SIZE = Integer.getInteger("guideresto.mapper.cacheSize", 1000);
+
+    private final IdentityMapCache<T> cache;
+
+    // Vrai lorsque tous les objets de la table sont en cache (findAll peut alors éviter la base)
+    private volatile boolean fullyLoaded;
+    private volatile long evictionsAtFullLoad;
+
+    protected AbstractMapper() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param cacheSize Nombre maximal d'objets conservés dans l'identity map de ce mapper
+     */
+    protected AbstractMapper(int cacheSize) {
+        this.cache = new IdentityMapCache<>(cacheSize);
+    }
+
+    protected abstract T doFindById(int id);
+    protected abstract Set<T> doFindAll();
+    protected abstract T doCreate(T object);
+    protected abstract boolean doUpdate(T object);
+    protected abstract boolean doDelete(T object);
+    protected abstract boolean doDeleteById(int id);
 
     protected abstract String getSequenceQuery();
     protected abstract String getExistsQuery();
     protected abstract String getCountQuery();
 
+    /**
+     * Recherche un objet par son ID, d'abord dans le cache puis en base de données
+     * @param id L'ID de l'objet
+     * @return L'objet trouvé, ou null
+     */
+    public T findById(int id) {
+        T cached = cache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        T loaded = timed("findById", id, () -> doFindById(id));
+        return loaded == null ? null : cache.putIfAbsent(loaded);
+    }
+
+    /**
+     * Récupère tous les objets. Tant que la table entière tient dans le cache, seul le premier
+     * appel interroge la base de données.
+     * @return Les objets, une seule instance par ID
+     */
+    public Set<T> findAll() {
+        if (fullyLoaded && cache.getEvictionCount() == evictionsAtFullLoad) {
+            return new LinkedHashSet<>(cache.values());
+        }
+
+        long evictionsBefore = cache.getEvictionCount();
+        Set<T> result = new LinkedHashSet<>();
+        for (T loaded : timed("findAll", null, this::doFindAll)) {
+            result.add(cache.putIfAbsent(loaded));
+        }
+        if (cache.getEvictionCount() == evictionsBefore) {
+            evictionsAtFullLoad = evictionsBefore;
+            fullyLoaded = true;
+        }
+        return result;
+    }
+
+    /**
+     * Insère un objet en base de données et l'ajoute au cache
+     * @param object L'objet à insérer
+     * @return L'objet créé (avec son ID), ou null en cas d'erreur
+     */
+    public T create(T object) {
+        T created = timed("create", object.getId(), () -> doCreate(object));
+        if (created != null && created.getId() != null) {
+            addToCache(created);
+        }
+        return created;
+    }
+
+    /**
+     * Met à jour un objet en base de données et dans le cache
+     * @param object L'objet à mettre à jour
+     * @return true si la mise à jour a réussi
+     */
+    public boolean update(T object) {
+        boolean updated = timed("update", object.getId(), () -> doUpdate(object));
+        if (updated) {
+            addToCache(object);
+        }
+        return updated;
+    }
+
+    /**
+     * Supprime un objet de la base de données et du cache
+     * @param object L'objet à supprimer
+     * @return true si la suppression a réussi
+     */
+    public boolean delete(T object) {
+        boolean deleted = timed("delete", object.getId(), () -> doDelete(object));
+        if (deleted) {
+            removeFromCache(object.getId());
+        }
+        return deleted;
+    }
+
+    /**
+     * Supprime un objet par son ID, en base de données et dans le cache
+     * @param id L'ID de l'objet à supprimer
+     * @return true si la suppression a réussi
+     */
+    public boolean deleteById(int id) {
+        boolean deleted = timed("deleteById", id, () -> doDeleteById(id));
+        if (deleted) {
+            removeFromCache(id);
+        }
+        return deleted;
+    }
+
+    /**
+     * @return Les compteurs (hits, misses, évictions) de l'identity map de ce mapper
+     */
+    public IdentityMapCache.Statistics getCacheStatistics() {
+        return cache.getStatistics();
+    }
+
     /**
      * Vérifie si un objet avec l'ID donné existe.
      * @param id the ID to check
      * @return true si l'objet existe, false sinon
      */
     public boolean exists(int id) {
-        Connection connection = ConnectionUtils.getConnection();
-
-        try (PreparedStatement stmt = connection.prepareStatement(getExistsQuery())) {
-            stmt.setInt(1, id);
+        return timed("exists", id, () -> {
+            try (Connection connection = ConnectionUtils.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(getExistsQuery())) {
+                stmt.setInt(1, id);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                return rs.next();
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next();
+                }
+            } catch (SQLException ex) {
+                logger.error("SQLException: {}", ex.getMessage());
             }
-        } catch (SQLException ex) {
-            logger.error("SQLException: {}", ex.getMessage());
-        }
-        return false;
+            return false;
+        });
     }
 
     /**
@@ -52,30 +172,65 @@ public abstract class AbstractMapper<T extends IBusinessObject> {
      * @return
      */
     public int count() {
-        Connection connection = ConnectionUtils.getConnection();
-
-        try (PreparedStatement stmt = connection.prepareStatement(getCountQuery());
-             ResultSet rs = stmt.executeQuery()) {
+        return timed("count", null, () -> {
+            try (Connection connection = ConnectionUtils.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(getCountQuery());
+                 ResultSet rs = stmt.executeQuery()) {
 
-            if (rs.next()) {
-                return rs.getInt(1);
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+                return 0;
+            } catch (SQLException ex) {
+                logger.error("SQLException: {}", ex.getMessage());
+                return 0;
             }
-            return 0;
-        } catch (SQLException ex) {
-            logger.error("SQLException: {}", ex.getMessage());
-            return 0;
-        }
+        });
+    }
+
+    /**
+     * Nom de la séquence Oracle de la table. Lorsqu'il est fourni, {@link #getSequenceValue()} réserve
+     * les valeurs par blocs avec le {@link SequenceBlockAllocator} partagé avec Hibernate.
+     * @return Le nom de la séquence, ou null pour exécuter {@link #getSequenceQuery()} à chaque appel
+     */
+    protected String getSequenceName() {
+        return null;
     }
 
     /**
-     * Obtient la valeur de la séquence actuelle en base de données
-     * @return Le nombre de villes
-     * @En cas d'erreur SQL
+     * @return Le nombre de valeurs de séquence réservées par aller-retour, ou 0 (par défaut) pour suivre
+     * la taille déclarée pour la séquence par le {@code @PooledSequence} de son entité
+     * ({@link SequenceBlockAllocator#nextValue(Connection, String)})
+     */
+    protected int getSequenceBlockSize() {
+        return 0;
+    }
+
+    /**
+     * Obtient une valeur de la séquence de la table, à affecter à l'objet avant son insertion
+     * (les triggers TR_BIF_* conservent un NUMERO déjà renseigné)
+     * @return La valeur de la séquence, ou 0 en cas d'erreur SQL
      */
     protected Integer getSequenceValue() {
-        Connection connection = ConnectionUtils.getConnection();
+        return timed("getSequenceValue", null, this::readSequenceValue);
+    }
+
+    private Integer readSequenceValue() {
+        String sequenceName = getSequenceName();
+        if (sequenceName != null) {
+            int blockSize = getSequenceBlockSize();
+            try (Connection connection = ConnectionUtils.getConnection()) {
+                return Math.toIntExact(blockSize > 0
+                        ? SequenceBlockAllocator.nextValue(connection, sequenceName, blockSize)
+                        : SequenceBlockAllocator.nextValue(connection, sequenceName));
+            } catch (SQLException ex) {
+                logger.error("SQLException: {}", ex.getMessage());
+                return 0;
+            }
+        }
 
-        try (PreparedStatement stmt = connection.prepareStatement(getSequenceQuery());
+        try (Connection connection = ConnectionUtils.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(getSequenceQuery());
              ResultSet rs = stmt.executeQuery()) {
 
             if (rs.next()) {
@@ -88,21 +243,33 @@ public abstract class AbstractMapper<T extends IBusinessObject> {
         }
     }
 
+    /**
+     * Exécute et mesure un accès JDBC de ce mapper, sous le nom "<classe du mapper>.<opération>",
+     * et l'enregistre dans JFR ({@link MapperOperationEvent})
+     * @param operation Le nom de l'opération
+     * @param id L'ID de l'objet concerné, ou null
+     * @param call L'accès JDBC
+     * @return Son résultat
+     */
+    protected <R> R timed(String operation, Integer id, Supplier<R> call) {
+        return Monitoring.time(getClass().getSimpleName() + "." + operation,
+                new MapperOperationEvent(getClass(), id), call);
+    }
+
     /**
      * Vérifie si le cache est actuellement vide
      * @return true si le cache ne contient aucun objet, false sinon
      */
     protected boolean isCacheEmpty() {
-        // TODO à implémenter par vos soins
-        throw new UnsupportedOperationException("Vous devez implémenter votre cache vous-même !");
+        return cache.isEmpty();
     }
 
     /**
      * Vide le cache
      */
     protected void resetCache() {
-        // TODO à implémenter par vos soins
-        throw new UnsupportedOperationException("Vous devez implémenter votre cache vous-même !");
+        fullyLoaded = false;
+        cache.clear();
     }
 
     /**
@@ -110,8 +277,7 @@ public abstract class AbstractMapper<T extends IBusinessObject> {
      * @param objet l'objet à ajouter
      */
     protected void addToCache(T objet) {
-        // TODO à implémenter par vos soins
-        throw new UnsupportedOperationException("Vous devez implémenter votre cache vous-même !");
+        cache.put(objet);
     }
 
     /**
@@ -119,7 +285,6 @@ public abstract class AbstractMapper<T extends IBusinessObject> {
      * @param id l'ID de l'objet à retirer du cache
      */
     protected void removeFromCache(Integer id) {
-        // TODO à implémenter par vos soins
-        throw new UnsupportedOperationException("Vous devez implémenter votre cache vous-même !");
+        cache.remove(id);
     }
 }
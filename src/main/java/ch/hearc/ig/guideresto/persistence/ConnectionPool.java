@@ -0,0 +1,405 @@
+package ch.hearc.ig.guideresto.persistence;
+
+import ch.hearc.ig.guideresto.monitoring.SlowQueryLog;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool de connexions JDBC borné.
+ * <ul>
+ *     <li>taille minimale et maximale, avec délai d'attente maximal à l'emprunt</li>
+ *     <li>validation de la connexion à l'emprunt</li>
+ *     <li>éviction des connexions inactives au-delà de la taille minimale</li>
+ *     <li>détection des fuites : la pile d'appel de l'emprunt est journalisée si une connexion
+ *     n'est pas rendue à temps</li>
+ * </ul>
+ * Les connexions retournées sont des proxys : {@link Connection#close()} rend la connexion au pool
+ * au lieu de la fermer, et les instructions exécutées sont mesurées par le {@link SlowQueryLog}.
+ * Chaque emprunt reçoit son propre proxy, inerte une fois fermé : un appelant qui garde sa connexion
+ * après l'avoir rendue ne peut ni l'utiliser ni la rendre une seconde fois pendant qu'un autre l'emprunte.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /**
+     * Paramètres du pool
+     * @param minSize Nombre de connexions maintenues ouvertes en permanence
+     * @param maxSize Nombre maximal de connexions ouvertes simultanément
+     * @param borrowTimeout Attente maximale pour obtenir une connexion
+     * @param idleTimeout Durée d'inactivité après laquelle une connexion excédentaire est fermée
+     * @param leakThreshold Durée d'emprunt au-delà de laquelle une fuite est signalée (0 pour désactiver)
+     * @param validationTimeout Délai accordé à la validation d'une connexion
+     * @param housekeepingInterval Périodicité de l'éviction et de la détection des fuites
+     */
+    public record Settings(int minSize, int maxSize, Duration borrowTimeout, Duration idleTimeout,
+                           Duration leakThreshold, Duration validationTimeout, Duration housekeepingInterval) {
+
+        public Settings {
+            if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+                throw new IllegalArgumentException("Tailles de pool invalides : min=" + minSize + ", max=" + maxSize);
+            }
+        }
+
+        /**
+         * Lit les paramètres du pool dans un ResourceBundle (clés database.pool.*),
+         * avec des valeurs par défaut pour les clés absentes
+         * @param bundle Le bundle de configuration
+         * @return Les paramètres du pool
+         */
+        public static Settings fromBundle(ResourceBundle bundle) {
+            return new Settings(
+                    readInt(bundle, "database.pool.minSize", 2),
+                    readInt(bundle, "database.pool.maxSize", 10),
+                    Duration.ofMillis(readInt(bundle, "database.pool.borrowTimeoutMs", 30_000)),
+                    Duration.ofMillis(readInt(bundle, "database.pool.idleTimeoutMs", 600_000)),
+                    Duration.ofMillis(readInt(bundle, "database.pool.leakThresholdMs", 60_000)),
+                    Duration.ofMillis(readInt(bundle, "database.pool.validationTimeoutMs", 5_000)),
+                    Duration.ofMillis(readInt(bundle, "database.pool.housekeepingIntervalMs", 30_000))
+            );
+        }
+
+        private static int readInt(ResourceBundle bundle, String key, int defaultValue) {
+            try {
+                return Integer.parseInt(bundle.getString(key).trim());
+            } catch (MissingResourceException | NumberFormatException ex) {
+                return defaultValue;
+            }
+        }
+    }
+
+    /**
+     * Photographie des métriques du pool
+     * @param active Connexions actuellement empruntées
+     * @param idle Connexions disponibles dans le pool
+     * @param total Connexions physiques ouvertes
+     * @param waiting Threads en attente d'une connexion
+     * @param borrowCount Nombre total d'emprunts réussis
+     * @param timeoutCount Nombre d'emprunts abandonnés faute de connexion disponible
+     * @param averageWait Attente moyenne à l'emprunt
+     * @param maxWait Attente maximale observée à l'emprunt
+     */
+    public record Metrics(int active, int idle, int total, int waiting, long borrowCount, long timeoutCount,
+                          Duration averageWait, Duration maxWait) {
+    }
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final Settings settings;
+
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowedConnections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final ScheduledExecutorService housekeeper;
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public ConnectionPool(String url, String username, String password, Settings settings) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxSize(), true);
+
+        fillToMinimum();
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "guideresto-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = settings.housekeepingInterval().toMillis();
+        housekeeper.scheduleWithFixedDelay(this::housekeeping, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Emprunte une connexion au pool. La connexion doit être rendue en appelant {@link Connection#close()}.
+     * @return Une connexion valide, en mode autoCommit désactivé
+     * @throws SQLTimeoutException si aucune connexion ne s'est libérée dans le délai imparti
+     * @throws SQLException en cas d'erreur lors de l'ouverture d'une connexion
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed.get()) {
+            throw new SQLException("Le pool de connexions est fermé");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(settings.borrowTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                timeoutCount.increment();
+                throw new SQLTimeoutException("Aucune connexion disponible après " + settings.borrowTimeout().toMillis() + " ms");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Attente d'une connexion interrompue", ex);
+        }
+
+        try {
+            PooledConnection pooled = takeValidConnection();
+            recordWait(System.nanoTime() - start);
+            pooled.markBorrowed(settings.leakThreshold().isZero());
+            borrowedConnections.add(pooled);
+            return SlowQueryLog.getInstance().wrap(new Lease(pooled).proxy);
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * @return Les métriques actuelles du pool
+     */
+    public Metrics getMetrics() {
+        long borrows = borrowCount.sum();
+        Duration averageWait = borrows == 0 ? Duration.ZERO : Duration.ofNanos(totalWaitNanos.sum() / borrows);
+        return new Metrics(borrowedConnections.size(), idleConnections.size(), totalConnections.get(),
+                permits.getQueueLength(), borrows, timeoutCount.sum(), averageWait, Duration.ofNanos(maxWaitNanos.get()));
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Ferme le pool et toutes les connexions inactives. Les connexions empruntées sont fermées à leur retour.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    private PooledConnection takeValidConnection() throws SQLException {
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            if (isValid(pooled)) {
+                return pooled;
+            }
+            logger.debug("Connexion invalide retirée du pool");
+            destroy(pooled);
+        }
+        return open();
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            int timeoutSeconds = (int) Math.max(1, settings.validationTimeout().toSeconds());
+            return pooled.physical.isValid(timeoutSeconds);
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, username, password);
+        physical.setAutoCommit(false);
+        totalConnections.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private void release(PooledConnection pooled) {
+        borrowedConnections.remove(pooled);
+        try {
+            if (closed.get() || pooled.physical.isClosed()) {
+                destroy(pooled);
+                return;
+            }
+            // Une connexion rendue ne doit pas emporter de transaction en cours
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+            } else {
+                pooled.physical.setAutoCommit(false);
+            }
+            pooled.markIdle();
+            idleConnections.offerFirst(pooled);
+        } catch (SQLException ex) {
+            logger.warn("Connexion inutilisable retirée du pool : {}", ex.getMessage());
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        try {
+            pooled.physical.close();
+        } catch (SQLException ex) {
+            logger.debug("Erreur lors de la fermeture d'une connexion : {}", ex.getMessage());
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        borrowCount.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    private void housekeeping() {
+        try {
+            evictIdleConnections();
+            detectLeaks();
+            fillToMinimum();
+        } catch (RuntimeException ex) {
+            logger.error("Erreur lors de la maintenance du pool de connexions", ex);
+        }
+    }
+
+    private void evictIdleConnections() {
+        long now = System.nanoTime();
+        long idleTimeout = settings.idleTimeout().toNanos();
+        // Les connexions les plus anciennement utilisées se trouvent en fin de file
+        PooledConnection pooled;
+        while (totalConnections.get() > settings.minSize()
+                && (pooled = idleConnections.peekLast()) != null
+                && now - pooled.lastUsedNanos > idleTimeout) {
+            if (idleConnections.removeLastOccurrence(pooled)) {
+                destroy(pooled);
+            }
+        }
+    }
+
+    private void detectLeaks() {
+        if (settings.leakThreshold().isZero()) {
+            return;
+        }
+        long now = System.nanoTime();
+        long threshold = settings.leakThreshold().toNanos();
+        for (PooledConnection pooled : borrowedConnections) {
+            if (!pooled.leakReported && now - pooled.borrowedAtNanos > threshold) {
+                pooled.leakReported = true;
+                logger.warn("Fuite de connexion probable : connexion empruntée depuis {} ms sans être rendue",
+                        TimeUnit.NANOSECONDS.toMillis(now - pooled.borrowedAtNanos), pooled.borrowStack);
+            }
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!closed.get() && totalConnections.get() < settings.minSize()) {
+            try {
+                idleConnections.offerLast(open());
+            } catch (SQLException ex) {
+                logger.error("Impossible d'ouvrir une connexion pour le pool : {}", ex.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Connexion physique gérée par le pool
+     */
+    private static final class PooledConnection {
+
+        private final Connection physical;
+        private volatile long borrowedAtNanos;
+        private volatile long lastUsedNanos = System.nanoTime();
+        private volatile Throwable borrowStack;
+        private volatile boolean leakReported;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private void markBorrowed(boolean skipStackCapture) {
+            borrowedAtNanos = System.nanoTime();
+            leakReported = false;
+            borrowStack = skipStackCapture ? null : new Throwable("Emprunt de la connexion");
+        }
+
+        private void markIdle() {
+            borrowStack = null;
+            lastUsedNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Emprunt d'une connexion : le proxy remis à l'appelant pour la durée de cet emprunt seulement
+     */
+    private final class Lease implements InvocationHandler {
+
+        private final PooledConnection pooled;
+        private final Connection proxy;
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        private Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+            this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) {
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + pooled.physical + "]";
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (returned.get()) {
+                throw new SQLException("La connexion a déjà été rendue au pool");
+            }
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
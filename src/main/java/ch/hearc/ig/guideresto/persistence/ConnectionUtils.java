@@ -4,14 +4,14 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 
 /**
  * Provide helper methods to deal with database connections.
- * Ideally, this should also manage connection pools in a bigger application.
+ * Connections are borrowed from a shared {@link ConnectionPool}, configured once from
+ * resources/database.properties. Callers must close the connection to give it back to the pool.
  *
  * @author arnaud.geiser
  * @author alain.matile
@@ -20,39 +20,60 @@ public class ConnectionUtils {
 
     private static final Logger logger = LogManager.getLogger();
 
-    private static Connection connection;
+    private static volatile ConnectionPool pool;
 
+    /**
+     * Borrow a connection from the pool
+     * @return a pooled connection (autoCommit disabled), or null if none could be obtained
+     */
     public static Connection getConnection() {
         try {
-            // Load database credentials from resources/database.properties
-            ResourceBundle dbProps = ResourceBundle.getBundle("database");
-            String url = dbProps.getString("database.url");
-            String username = dbProps.getString("database.username");
-            String password = dbProps.getString("database.password");
-
-            logger.info("Trying to connect to user schema '{}' with JDBC string '{}'", username, url);
-
-            // Initialize a connection if required
-            if (ConnectionUtils.connection == null || ConnectionUtils.connection.isClosed()) {
-                Connection connection = DriverManager.getConnection(url, username, password);
-                connection.setAutoCommit(false);
-                ConnectionUtils.connection = connection;
-            }
+            return getPool().getConnection();
         } catch (SQLException ex) {
             logger.error(ex.getMessage(), ex);
         } catch (MissingResourceException ex) {
             logger.error(ex.getMessage(), ex);
         }
-        return ConnectionUtils.connection;
+        return null;
+    }
+
+    /**
+     * Return the shared connection pool, creating it on first use
+     * @return the connection pool
+     */
+    public static ConnectionPool getPool() {
+        ConnectionPool current = ConnectionUtils.pool;
+        if (current == null) {
+            synchronized (ConnectionUtils.class) {
+                current = ConnectionUtils.pool;
+                if (current == null) {
+                    // Load database credentials from resources/database.properties
+                    ResourceBundle dbProps = ResourceBundle.getBundle("database");
+                    String url = dbProps.getString("database.url");
+                    String username = dbProps.getString("database.username");
+                    String password = dbProps.getString("database.password");
+                    ConnectionPool.Settings settings = ConnectionPool.Settings.fromBundle(dbProps);
+
+                    logger.info("Creating connection pool ({}-{}) for user schema '{}' with JDBC string '{}'",
+                            settings.minSize(), settings.maxSize(), username, url);
+
+                    current = new ConnectionPool(url, username, password, settings);
+                    ConnectionUtils.pool = current;
+                }
+            }
+        }
+        return current;
     }
 
+    /**
+     * Close the connection pool and every idle connection
+     */
     public static void closeConnection() {
-        try {
-            if (ConnectionUtils.connection != null && !ConnectionUtils.connection.isClosed()) {
-                ConnectionUtils.connection.close();
+        synchronized (ConnectionUtils.class) {
+            if (ConnectionUtils.pool != null) {
+                ConnectionUtils.pool.close();
+                ConnectionUtils.pool = null;
             }
-        } catch (SQLException e) {
-            logger.error(e.getMessage(), e);
         }
     }
 }
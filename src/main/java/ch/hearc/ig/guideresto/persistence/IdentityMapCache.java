@@ -0,0 +1,263 @@
+package ch.hearc.ig.guideresto.persistence;
+
+import ch.hearc.ig.guideresto.business.IBusinessObject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Identity map bornée, indexée par l'ID des objets métier.
+ * Le cache est découpé en segments protégés chacun par leur propre verrou (lock striping) :
+ * deux threads qui accèdent à des IDs de segments différents ne se bloquent jamais.
+ * Chaque segment applique une politique d'éviction LRU sur sa part de la capacité totale.
+ *
+ * @param <T> Le type d'objet métier mis en cache
+ */
+public class IdentityMapCache<T extends IBusinessObject> {
+
+    private static final int DEFAULT_SEGMENTS = 16;
+
+    /**
+     * Compteurs du cache
+     * @param hits Nombre de lectures servies par le cache
+     * @param misses Nombre de lectures absentes du cache
+     * @param evictions Nombre d'objets évincés faute de place
+     * @param size Nombre d'objets actuellement en cache
+     * @param capacity Nombre maximal d'objets en cache
+     */
+    public record Statistics(long hits, long misses, long evictions, int size, int capacity) {
+
+        /**
+         * @return La proportion de lectures servies par le cache, entre 0 et 1
+         */
+        public double hitRatio() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+    }
+
+    private final Segment<T>[] segments;
+    private final int capacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity Nombre maximal d'objets conservés
+     */
+    public IdentityMapCache(int capacity) {
+        this(capacity, DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * @param capacity Nombre maximal d'objets conservés
+     * @param segmentCount Nombre de segments (arrondi à la puissance de deux supérieure)
+     */
+    public IdentityMapCache(int capacity, int segmentCount) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("La capacité du cache doit être positive : " + capacity);
+        }
+        int count = 1;
+        while (count < Math.min(segmentCount, capacity)) {
+            count <<= 1;
+        }
+        this.capacity = capacity;
+        @SuppressWarnings("unchecked")
+        Segment<T>[] segments = (Segment<T>[]) new Segment<?>[count];
+        int perSegment = (capacity + count - 1) / count;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(perSegment, evictions);
+        }
+        this.segments = segments;
+    }
+
+    /**
+     * Lit un objet dans le cache et met à jour les compteurs
+     * @param id L'ID de l'objet
+     * @return L'objet en cache, ou null s'il est absent
+     */
+    public T get(Integer id) {
+        T value = segmentFor(id).get(id);
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Ajoute ou remplace un objet dans le cache
+     * @param value L'objet à mettre en cache (doit avoir un ID)
+     */
+    public void put(T value) {
+        Integer id = requireId(value);
+        segmentFor(id).put(id, value);
+    }
+
+    /**
+     * Ajoute un objet s'il n'est pas déjà en cache
+     * @param value L'objet à mettre en cache (doit avoir un ID)
+     * @return L'instance déjà présente pour cet ID, ou l'objet passé en paramètre
+     */
+    public T putIfAbsent(T value) {
+        Integer id = requireId(value);
+        return segmentFor(id).putIfAbsent(id, value);
+    }
+
+    /**
+     * Retire un objet du cache
+     * @param id L'ID de l'objet
+     */
+    public void remove(Integer id) {
+        segmentFor(id).remove(id);
+    }
+
+    /**
+     * Vide le cache (les compteurs sont conservés)
+     */
+    public void clear() {
+        for (Segment<T> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<T> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Une copie des objets actuellement en cache
+     */
+    public List<T> values() {
+        List<T> values = new ArrayList<>();
+        for (Segment<T> segment : segments) {
+            segment.copyValuesTo(values);
+        }
+        return values;
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public Statistics getStatistics() {
+        return new Statistics(hits.sum(), misses.sum(), evictions.sum(), size(), capacity);
+    }
+
+    private Segment<T> segmentFor(Integer id) {
+        int hash = id.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[hash & (segments.length - 1)];
+    }
+
+    private static Integer requireId(IBusinessObject value) {
+        Integer id = value.getId();
+        if (id == null) {
+            throw new IllegalArgumentException("Impossible de mettre en cache un objet sans ID");
+        }
+        return id;
+    }
+
+    /**
+     * Segment du cache : une LinkedHashMap en ordre d'accès, protégée par un verrou
+     */
+    private static final class Segment<T> {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<Integer, T> entries;
+
+        private Segment(int capacity, LongAdder evictions) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        T get(Integer id) {
+            lock.lock();
+            try {
+                return entries.get(id);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void put(Integer id, T value) {
+            lock.lock();
+            try {
+                entries.put(id, value);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        T putIfAbsent(Integer id, T value) {
+            lock.lock();
+            try {
+                T existing = entries.putIfAbsent(id, value);
+                return existing != null ? existing : value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(Integer id) {
+            lock.lock();
+            try {
+                entries.remove(id);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                entries.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return entries.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void copyValuesTo(List<T> target) {
+            lock.lock();
+            try {
+                target.addAll(entries.values());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package ch.hearc.ig.guideresto.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Distribue les valeurs des séquences Oracle par blocs : un seul aller-retour vers la base de données
+ * réserve plusieurs valeurs consécutives de la séquence, qui sont ensuite attribuées en mémoire.
+ *
+ * Chaque valeur réservée est un vrai NEXTVAL de la séquence : les séquences restent en INCREMENT BY 1
+ * et les triggers TR_BIF_* (qui utilisent NEXTVAL lorsque NUMERO est null) ne peuvent jamais produire
+ * une valeur déjà attribuée par ce composant. Utilisé à la fois par Hibernate ({@code PooledSequenceGenerator})
+ * et par les Data Mappers JDBC ({@link AbstractMapper#getSequenceValue()}).
+ *
+ * La taille de bloc déclarée peut être remplacée avec la propriété système
+ * {@code guideresto.sequence.<NOM_SEQUENCE>.blockSize}. Les blocs d'une séquence sont partagés par tous
+ * ses utilisateurs : ceux qui déclarent une taille doivent déclarer la même, sans quoi
+ * {@link #nextValue(Connection, String, int)} échoue. Ceux qui n'en déclarent pas
+ * ({@link #nextValue(Connection, String)}) suivent la taille déclarée.
+ */
+public final class SequenceBlockAllocator {
+
+    /**
+     * Taille des blocs d'une séquence utilisée avant qu'une taille ne soit déclarée pour elle
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 20;
+
+    private static final Map<String, SequenceBlock> blocks = new ConcurrentHashMap<>();
+
+    private SequenceBlockAllocator() {
+    }
+
+    /**
+     * Retourne la prochaine valeur d'une séquence, en réservant un nouveau bloc si nécessaire
+     * @param connection La connexion à utiliser si un nouveau bloc doit être réservé
+     * @param sequenceName Le nom de la séquence
+     * @param blockSize Le nombre de valeurs réservées à chaque aller-retour
+     * @return La prochaine valeur de la séquence
+     * @throws SQLException en cas d'erreur lors de la réservation d'un bloc
+     * @throws IllegalArgumentException si la séquence est déjà utilisée avec une autre taille de bloc
+     */
+    public static long nextValue(Connection connection, String sequenceName, int blockSize) throws SQLException {
+        String key = sequenceName.toUpperCase();
+        int size = resolveBlockSize(key, blockSize);
+        // Un bloc ouvert sans taille déclarée est remplacé : ses valeurs non attribuées sont abandonnées
+        SequenceBlock block = blocks.compute(key, (name, existing) ->
+                existing == null || !existing.declared && existing.blockSize != size
+                        ? new SequenceBlock(name, size, true) : existing);
+        if (block.blockSize != size) {
+            throw new IllegalArgumentException("La séquence " + key + " est déjà utilisée avec des blocs de "
+                    + block.blockSize + " valeurs, et non " + size);
+        }
+        block.declared = true;
+        return block.next(connection);
+    }
+
+    /**
+     * Retourne la prochaine valeur d'une séquence sans déclarer de taille de bloc : les blocs suivent la taille
+     * déjà déclarée pour la séquence (par exemple par le {@code @PooledSequence} de son entité), sinon celle
+     * de la propriété système ou {@value #DEFAULT_BLOCK_SIZE} jusqu'à ce qu'une taille soit déclarée
+     * @param connection La connexion à utiliser si un nouveau bloc doit être réservé
+     * @param sequenceName Le nom de la séquence
+     * @return La prochaine valeur de la séquence
+     * @throws SQLException en cas d'erreur lors de la réservation d'un bloc
+     */
+    public static long nextValue(Connection connection, String sequenceName) throws SQLException {
+        String key = sequenceName.toUpperCase();
+        return blocks.computeIfAbsent(key, name -> new SequenceBlock(name, resolveBlockSize(name, DEFAULT_BLOCK_SIZE), false))
+                .next(connection);
+    }
+
+    /**
+     * Réserve en un seul aller-retour des valeurs de séquence destinées à l'appelant, hors des blocs partagés
+     * (par exemple pour un import qui attribue lui-même les NUMERO de ses lignes)
+     * @param connection La connexion à utiliser
+     * @param sequenceName Le nom de la séquence
+     * @param count Le nombre de valeurs à réserver
+     * @return Les valeurs réservées, triées
+     * @throws SQLException en cas d'erreur ou si la séquence n'a pas retourné toutes les valeurs demandées
+     */
+    public static long[] reserve(Connection connection, String sequenceName, int count) throws SQLException {
+        long[] values = new long[count];
+        if (count > 0 && fetch(connection, sequenceName.toUpperCase(), values) < count) {
+            throw new SQLException("La séquence " + sequenceName + " n'a pas retourné " + count + " valeurs");
+        }
+        return values;
+    }
+
+    /**
+     * Abandonne les valeurs réservées mais pas encore attribuées (par exemple après une réinitialisation
+     * des séquences). Les prochains appels réserveront de nouveaux blocs.
+     */
+    public static void reset() {
+        blocks.clear();
+    }
+
+    /**
+     * Détermine la taille de bloc effective d'une séquence
+     * @param sequenceName Le nom de la séquence
+     * @param declaredBlockSize La taille de bloc déclarée par l'entité ou le mapper
+     * @return La taille configurée par propriété système, sinon la taille déclarée
+     */
+    public static int resolveBlockSize(String sequenceName, int declaredBlockSize) {
+        int blockSize = Integer.getInteger("guideresto.sequence." + sequenceName.toUpperCase() + ".blockSize",
+                declaredBlockSize);
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Taille de bloc invalide pour " + sequenceName + " : " + blockSize);
+        }
+        return blockSize;
+    }
+
+    /**
+     * Bloc de valeurs réservées pour une séquence
+     */
+    private static final class SequenceBlock {
+
+        private final String sequenceName;
+        private final int blockSize;
+        private final long[] values;
+        // Vrai si la taille a été déclarée par un utilisateur de la séquence
+        private volatile boolean declared;
+        private int position;
+        private int available;
+
+        private SequenceBlock(String sequenceName, int blockSize, boolean declared) {
+            this.sequenceName = sequenceName;
+            this.blockSize = blockSize;
+            this.values = new long[blockSize];
+            this.declared = declared;
+        }
+
+        synchronized long next(Connection connection) throws SQLException {
+            if (position == available) {
+                refill(connection);
+            }
+            return values[position++];
+        }
+
+        private void refill(Connection connection) throws SQLException {
+            int count = fetch(connection, sequenceName, values);
+            if (count == 0) {
+                throw new SQLException("La séquence " + sequenceName + " n'a retourné aucune valeur");
+            }
+            position = 0;
+            available = count;
+        }
+    }
+
+    /**
+     * Remplit le tableau avec des NEXTVAL de la séquence, en une requête
+     * @return Le nombre de valeurs obtenues, triées en tête du tableau
+     */
+    private static int fetch(Connection connection, String sequenceName, long[] values) throws SQLException {
+        int count = 0;
+        try (PreparedStatement stmt = connection.prepareStatement(blockQuery(connection, sequenceName))) {
+            stmt.setInt(1, values.length);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next() && count < values.length) {
+                    values[count++] = rs.getLong(1);
+                }
+            }
+        }
+        // NEXTVAL n'est pas garanti ordonné à l'intérieur d'une même requête
+        Arrays.sort(values, 0, count);
+        return count;
+    }
+
+    private static String blockQuery(Connection connection, String sequenceName) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        if (product != null && product.startsWith("H2")) {
+            return "SELECT NEXT VALUE FOR " + sequenceName + " FROM SYSTEM_RANGE(1, ?)";
+        }
+        return "SELECT " + sequenceName + ".NEXTVAL FROM DUAL CONNECT BY LEVEL <= ?";
+    }
+}
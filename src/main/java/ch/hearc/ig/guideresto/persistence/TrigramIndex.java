@@ -0,0 +1,376 @@
+package ch.hearc.ig.guideresto.persistence;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Index en mémoire de trigrammes sur un libellé (nom de restaurant, nom de ville), indexé par ID.
+ * Permet une recherche par sous-chaîne insensible à la casse et aux accents ("neuchatel" trouve "Neuchâtel")
+ * sans parcourir la table : les IDs candidats sont l'intersection des listes de trigrammes du terme,
+ * puis le libellé normalisé de chaque candidat est vérifié.
+ *
+ * Les résultats sont classés : libellé identique, puis commençant par le terme, puis contenant un mot
+ * commençant par le terme, puis le contenant ailleurs ; à égalité, le libellé le plus court puis
+ * l'ordre alphabétique l'emportent.
+ *
+ * Un terme de moins de trois caractères n'a pas de trigramme : il est cherché comme début de mot, grâce aux
+ * débuts de mots d'un et deux caractères indexés avec les trigrammes. Un terme vide correspond à tout.
+ *
+ * L'index est construit une fois ({@link #ensureBuilt(Supplier)}) puis maintenu par les DAO lors des écritures.
+ * Une construction charge les libellés et prépare le nouvel index sans bloquer les recherches ; les écritures
+ * faites pendant ce temps sont rejouées sur le nouvel index avant qu'il remplace l'ancien.
+ */
+public class TrigramIndex {
+
+    private static final int GRAM_SIZE = 3;
+    // Préfixe des clés de débuts de mots, qui ne peut pas apparaître dans un libellé normalisé
+    private static final String WORD_START = "^";
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[\\s\\-'’.,/]+");
+
+    private static final Comparator<Match> RANKING = Comparator.comparingInt(Match::rank)
+            .thenComparingInt(match -> match.text().length())
+            .thenComparing(Match::text)
+            .thenComparing(Match::id);
+
+    /**
+     * Résultat d'une recherche
+     * @param id L'ID trouvé
+     * @param sortKey Sa position dans le classement, à rendre avec l'ID pour reprendre la recherche après lui
+     *                ({@link #search(String, String, Integer, int)})
+     */
+    public record Hit(Integer id, String sortKey) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object buildLock = new Object();
+    private Map<String, Set<Integer>> postings = new HashMap<>();
+    private Map<Integer, String> normalizedById = new HashMap<>();
+    // Écritures reçues pendant une construction, rejouées sur le nouvel index (null hors construction)
+    private List<Write> pendingWrites;
+    private volatile boolean built;
+
+    /**
+     * Normalise un libellé pour la recherche : décomposition Unicode, suppression des accents,
+     * minuscules et espaces/tirets/apostrophes ramenés à un seul espace
+     * @param text Le libellé
+     * @return Le libellé normalisé ("" pour null)
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String withoutAccents = DIACRITICS.matcher(decomposed).replaceAll("")
+                .replace("œ", "oe").replace("Œ", "OE")
+                .replace("æ", "ae").replace("Æ", "AE");
+        return WORD_SEPARATORS.matcher(withoutAccents.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * @return true si l'index a été construit
+     */
+    public boolean isBuilt() {
+        return built;
+    }
+
+    /**
+     * Construit l'index s'il ne l'est pas encore
+     * @param loader Charge tous les libellés, indexés par ID
+     */
+    public void ensureBuilt(Supplier<Map<Integer, String>> loader) {
+        if (built) {
+            return;
+        }
+        synchronized (buildLock) {
+            if (!built) {
+                load(loader);
+            }
+        }
+    }
+
+    /**
+     * Reconstruit entièrement l'index (après des écritures qui ne passent pas par les DAO, par exemple un import)
+     * @param loader Charge tous les libellés, indexés par ID
+     */
+    public void rebuild(Supplier<Map<Integer, String>> loader) {
+        synchronized (buildLock) {
+            load(loader);
+        }
+    }
+
+    /**
+     * Ajoute ou met à jour le libellé d'un ID. Sans effet tant que l'index n'est ni construit ni en construction.
+     * @param id L'ID
+     * @param text Le nouveau libellé
+     */
+    public void put(Integer id, String text) {
+        if (id != null) {
+            write(new Write(id, normalize(text)));
+        }
+    }
+
+    /**
+     * Retire un ID de l'index
+     * @param id L'ID
+     */
+    public void remove(Integer id) {
+        if (id != null) {
+            write(new Write(id, null));
+        }
+    }
+
+    /**
+     * Recherche les IDs dont le libellé contient le terme (insensible à la casse et aux accents)
+     * @param term Le terme recherché
+     * @return Les IDs correspondants, du plus pertinent au moins pertinent
+     */
+    public List<Integer> search(String term) {
+        List<Match> matches = matches(normalize(term), null);
+        matches.sort(RANKING);
+        List<Integer> ids = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            ids.add(match.id());
+        }
+        return ids;
+    }
+
+    /**
+     * Recherche une tranche des IDs dont le libellé contient le terme, strictement après une position
+     * du classement : la tranche suivante reprend après le dernier résultat, même si celui-ci a été supprimé
+     * entre-temps, et ne trie que les résultats qu'elle retourne.
+     * @param term Le terme recherché
+     * @param afterKey La clé de classement du dernier résultat de la tranche précédente ({@link Hit#sortKey()}),
+     *                 ou null pour la première tranche
+     * @param afterId L'ID du dernier résultat de la tranche précédente, ou null pour la première tranche
+     * @param limit Le nombre maximal de résultats
+     * @return Les résultats, du plus pertinent au moins pertinent
+     * @throws IllegalArgumentException si la position n'est pas une position de ce classement
+     */
+    public List<Hit> search(String term, String afterKey, Integer afterId, int limit) {
+        Match after = afterId == null && afterKey == null ? null : parseSortKey(afterKey, afterId);
+        // Les limit meilleurs résultats, le moins bon en tête
+        PriorityQueue<Match> best = new PriorityQueue<>(RANKING.reversed());
+        for (Match match : matches(normalize(term), after)) {
+            if (best.size() < limit) {
+                best.add(match);
+            } else if (limit > 0 && RANKING.compare(match, best.peek()) < 0) {
+                best.poll();
+                best.add(match);
+            }
+        }
+        List<Match> ordered = new ArrayList<>(best);
+        ordered.sort(RANKING);
+        List<Hit> hits = new ArrayList<>(ordered.size());
+        for (Match match : ordered) {
+            hits.add(new Hit(match.id(), match.rank() + ":" + match.text()));
+        }
+        return hits;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return normalizedById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private record Match(Integer id, String text, int rank) {
+    }
+
+    /**
+     * Écriture sur l'index : nouveau libellé normalisé, ou null pour un retrait
+     */
+    private record Write(Integer id, String normalized) {
+    }
+
+    private static Match parseSortKey(String sortKey, Integer id) {
+        int separator = sortKey == null ? -1 : sortKey.indexOf(':');
+        if (id == null || separator != 1 || sortKey.charAt(0) < '0' || sortKey.charAt(0) > '3') {
+            throw new IllegalArgumentException("Position de recherche invalide : " + sortKey + " / " + id);
+        }
+        return new Match(id, sortKey.substring(separator + 1), sortKey.charAt(0) - '0');
+    }
+
+    /**
+     * Libellés contenant le terme (débutant par lui pour un terme court), classés après {@code after} s'il est donné
+     */
+    private List<Match> matches(String normalizedTerm, Match after) {
+        lock.readLock().lock();
+        try {
+            List<Match> matches = new ArrayList<>();
+            for (Integer id : candidates(normalizedTerm)) {
+                String text = normalizedById.get(id);
+                int position = text.indexOf(normalizedTerm);
+                if (position >= 0) {
+                    Match match = new Match(id, text, rank(text, normalizedTerm, position));
+                    if (after == null || RANKING.compare(match, after) > 0) {
+                        matches.add(match);
+                    }
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs candidats : intersection des listes des trigrammes du terme ; pour un terme court, les libellés
+     * ayant un mot qui commence par lui ; pour un terme vide, tous les IDs
+     */
+    private Set<Integer> candidates(String normalizedTerm) {
+        if (normalizedTerm.isEmpty()) {
+            return normalizedById.keySet();
+        }
+        if (normalizedTerm.length() < GRAM_SIZE) {
+            return postings.getOrDefault(WORD_START + normalizedTerm, Set.of());
+        }
+        Set<Integer> result = null;
+        for (String gram : grams(normalizedTerm)) {
+            Set<Integer> posting = postings.get(gram);
+            if (posting == null) {
+                return Set.of();
+            }
+            if (result == null) {
+                result = new HashSet<>(posting);
+            } else {
+                result.retainAll(posting);
+            }
+            if (result.isEmpty()) {
+                return result;
+            }
+        }
+        return result;
+    }
+
+    private static int rank(String text, String term, int position) {
+        if (text.equals(term)) {
+            return 0;
+        }
+        if (position == 0) {
+            return 1;
+        }
+        if (text.contains(" " + term)) {
+            return 2;
+        }
+        return 3;
+    }
+
+    /**
+     * Charge les libellés et prépare le nouvel index hors du verrou, puis le met en place en rejouant
+     * les écritures reçues entre-temps. Appelé sous buildLock.
+     */
+    private void load(Supplier<Map<Integer, String>> loader) {
+        lock.writeLock().lock();
+        try {
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<String, Set<Integer>> newPostings = new HashMap<>();
+        Map<Integer, String> newNormalizedById = new HashMap<>();
+        try {
+            for (Map.Entry<Integer, String> entry : loader.get().entrySet()) {
+                addInternal(newPostings, newNormalizedById, entry.getKey(), normalize(entry.getValue()));
+            }
+        } catch (RuntimeException ex) {
+            lock.writeLock().lock();
+            try {
+                pendingWrites = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw ex;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Write write : pendingWrites) {
+                apply(newPostings, newNormalizedById, write);
+            }
+            pendingWrites = null;
+            postings = newPostings;
+            normalizedById = newNormalizedById;
+            built = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void write(Write write) {
+        lock.writeLock().lock();
+        try {
+            if (pendingWrites != null) {
+                pendingWrites.add(write);
+            }
+            if (built) {
+                apply(postings, normalizedById, write);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void apply(Map<String, Set<Integer>> postings, Map<Integer, String> normalizedById, Write write) {
+        removeInternal(postings, normalizedById, write.id());
+        if (write.normalized() != null) {
+            addInternal(postings, normalizedById, write.id(), write.normalized());
+        }
+    }
+
+    private static void addInternal(Map<String, Set<Integer>> postings, Map<Integer, String> normalizedById,
+                                    Integer id, String normalized) {
+        normalizedById.put(id, normalized);
+        for (String gram : grams(normalized)) {
+            postings.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+        }
+    }
+
+    private static void removeInternal(Map<String, Set<Integer>> postings, Map<Integer, String> normalizedById,
+                                       Integer id) {
+        String previous = normalizedById.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String gram : grams(previous)) {
+            Set<Integer> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Trigrammes du libellé, et débuts de ses mots d'un et deux caractères (préfixés par {@value #WORD_START})
+     */
+    private static Set<String> grams(String normalized) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM_SIZE));
+        }
+        for (String word : normalized.split(" ")) {
+            for (int length = 1; length < GRAM_SIZE && length <= word.length(); length++) {
+                grams.add(WORD_START + word.substring(0, length));
+            }
+        }
+        return grams;
+    }
+}
@@ -1,65 +1,489 @@
 package ch.hearc.ig.guideresto.persistence.dao;
 
+import ch.hearc.ig.guideresto.monitoring.DaoOperationEvent;
+import ch.hearc.ig.guideresto.monitoring.Monitoring;
 import ch.hearc.ig.guideresto.persistence.jpa.JpaUtils;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * Classe abstraite qui implémente les méthodes communes à tous les DAO
+ * Classe abstraite qui implémente les méthodes communes à tous les DAO.
+ * Chaque méthode publique est mesurée ({@link #timed(String, Integer, Supplier)}) sous le nom
+ * {@code <classe du DAO>.<méthode>}, par exemple "RestaurantDao.findById", et enregistrée dans JFR.
  * @param <T> Le type d'entité manipulée
  */
 public abstract class AbstractDao<T> implements IDao<T> {
 
+    /**
+     * Nombre de lignes lues par aller-retour lors d'un parcours en Stream,
+     * modifiable avec la propriété système guideresto.stream.fetchSize
+     */
+    private static final int STREAM_FETCH_SIZE = Integer.getInteger("guideresto.stream.fetchSize", 100);
+
+    /**
+     * Nombre de lignes parcourues entre deux vidages du contexte de persistance,
+     * modifiable avec la propriété système guideresto.stream.clearInterval
+     */
+    private static final int STREAM_CLEAR_INTERVAL = Integer.getInteger("guideresto.stream.clearInterval", STREAM_FETCH_SIZE);
+
+    // Nombre maximal d'éléments d'une clause IN sous Oracle
+    private static final int MAX_IN_LIST_SIZE = 1000;
+
     protected final Class<T> entityClass;
 
+    private final String metricPrefix = getClass().getSimpleName() + ".";
+
     protected AbstractDao(Class<T> entityClass) {
         this.entityClass = entityClass;
     }
 
+    /**
+     * Exécute et mesure une opération de ce DAO
+     * @param operation Le nom de la méthode, préfixé par le nom du DAO dans les mesures
+     * @param call L'opération
+     * @return Le résultat de l'opération
+     */
+    protected <R> R timed(String operation, Supplier<R> call) {
+        return timed(operation, null, call);
+    }
+
+    /**
+     * Exécute et mesure une opération de ce DAO portant sur une entité précise
+     * @param operation Le nom de la méthode, préfixé par le nom du DAO dans les mesures
+     * @param id L'ID de l'entité, repris dans l'événement JFR ({@link DaoOperationEvent})
+     * @param call L'opération
+     * @return Le résultat de l'opération
+     */
+    protected <R> R timed(String operation, Integer id, Supplier<R> call) {
+        return Monitoring.time(metricPrefix + operation, new DaoOperationEvent(entityClass, id), call);
+    }
+
+    /**
+     * Exécute et mesure une opération sans résultat de ce DAO
+     * @param operation Le nom de la méthode
+     * @param call L'opération
+     */
+    protected void timed(String operation, Runnable call) {
+        timed(operation, null, call);
+    }
+
+    /**
+     * Exécute et mesure une opération sans résultat de ce DAO portant sur une entité précise
+     * @param operation Le nom de la méthode
+     * @param id L'ID de l'entité, ou null
+     * @param call L'opération
+     */
+    protected void timed(String operation, Integer id, Runnable call) {
+        Monitoring.time(metricPrefix + operation, new DaoOperationEvent(entityClass, id), call);
+    }
+
+    /**
+     * Retourne l'EntityManager de l'unité de travail du thread courant
+     * @return L'EntityManager à utiliser pour les requêtes
+     */
     protected EntityManager getEntityManager() {
         return JpaUtils.getEntityManager();
     }
 
     @Override
     public T findById(Integer id) {
-        return getEntityManager().find(entityClass, id);
+        return timed("findById", id, () -> getEntityManager().find(entityClass, id));
     }
 
     @Override
     public List<T> findAll() {
-        String jpql = "SELECT e FROM " + entityClass.getSimpleName() + " e";
-        TypedQuery<T> query = getEntityManager().createQuery(jpql, entityClass);
-        return query.getResultList();
+        return timed("findAll", () -> {
+            String jpql = "SELECT e FROM " + entityClass.getSimpleName() + " e";
+            TypedQuery<T> query = getEntityManager().createQuery(jpql, entityClass);
+            return query.getResultList();
+        });
+    }
+
+    @Override
+    public Stream<T> streamAll() {
+        return timed("streamAll", () -> {
+            String jpql = "SELECT e FROM " + entityClass.getSimpleName() + " e";
+            return stream(getEntityManager().createQuery(jpql, entityClass));
+        });
+    }
+
+    /**
+     * Tranche triée par ID. Les DAO dont {@link #findAll()} suit un autre ordre redéfinissent cette méthode.
+     */
+    @Override
+    public Slice<T> findSlice(KeysetCursor after, int size) {
+        return timed("findSlice", () -> {
+            String entityName = entityClass.getSimpleName();
+            TypedQuery<T> query;
+            if (after == null) {
+                query = getEntityManager().createQuery(
+                        "SELECT e FROM " + entityName + " e ORDER BY e.id", entityClass);
+            } else {
+                query = getEntityManager().createQuery(
+                        "SELECT e FROM " + entityName + " e WHERE e.id > :id ORDER BY e.id", entityClass)
+                        .setParameter("id", after.id());
+            }
+            return toSlice(query, size, entity -> new KeysetCursor(null, idOf(entity)));
+        });
+    }
+
+    @Override
+    public Page<T> findPage(KeysetCursor after, int size) {
+        return timed("findPage", () -> {
+            Slice<T> slice = findSlice(after, size);
+            return new Page<>(slice.content(), slice.nextCursor(), count());
+        });
+    }
+
+    @Override
+    public long count() {
+        return timed("count", () -> {
+            String jpql = "SELECT COUNT(e) FROM " + entityClass.getSimpleName() + " e";
+            return getEntityManager().createQuery(jpql, Long.class).getSingleResult();
+        });
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        if (id == null) {
+            return false;
+        }
+        return timed("existsById", id, () -> {
+            String jpql = "SELECT 1 FROM " + entityClass.getSimpleName() + " e WHERE e.id = :id";
+            return !getEntityManager().createQuery(jpql, Integer.class)
+                    .setParameter("id", id)
+                    .setMaxResults(1)
+                    .getResultList()
+                    .isEmpty();
+        });
     }
 
     @Override
     public T save(T entity) {
-        final T[] result = (T[]) new Object[1];
+        return timed("save", idOf(entity), () -> {
+            T saved = JpaUtils.callInTransaction(entityManager -> entityManager.merge(entity));
+            JpaUtils.afterCommit(() -> {
+                afterWrite();
+                afterSave(saved);
+            });
+            return saved;
+        });
+    }
 
-        JpaUtils.inTransaction(entityManager -> {
-            result[0] = entityManager.merge(entity);
+    /**
+     * Insère une nouvelle entité (persist), sans fusionner le graphe d'objets qu'elle référence
+     * @param entity L'entité à insérer
+     * @return L'entité insérée, désormais gérée et dotée de son ID
+     */
+    public T insert(T entity) {
+        return timed("insert", () -> {
+            JpaUtils.inTransaction(entityManager -> {
+                beforeInsert(List.of(entity));
+                entityManager.persist(entity);
+            });
+            JpaUtils.afterCommit(() -> {
+                afterWrite();
+                afterSave(entity);
+            });
+            return entity;
         });
+    }
 
-        return result[0];
+    /**
+     * Insère plusieurs nouvelles entités dans une seule transaction.
+     * Les INSERT sont envoyés par lots JDBC (hibernate.jdbc.batch_size) et les entités de chaque lot envoyé
+     * sont détachées, pour que la mémoire ne croisse pas avec le nombre d'entités :
+     * <ul>
+     *     <li>Sans transaction active, le contexte de persistance est vidé après chaque lot.</li>
+     *     <li>Dans la transaction de l'appelant, seules les entités insérées sont détachées : les entités
+     *     que l'appelant a chargées restent gérées, avec leurs modifications.</li>
+     * </ul>
+     * @param entities Les entités à insérer
+     */
+    public void insertAll(Collection<? extends T> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        timed("insertAll", () -> {
+            int batchSize = JpaUtils.getJdbcBatchSize();
+            boolean ownTransaction = !getEntityManager().getTransaction().isActive();
+            JpaUtils.inTransaction(entityManager -> {
+                beforeInsert(entities);
+                List<T> batch = new ArrayList<>(batchSize);
+                for (T entity : entities) {
+                    entityManager.persist(entity);
+                    batch.add(entity);
+                    if (batch.size() == batchSize) {
+                        entityManager.flush();
+                        if (ownTransaction) {
+                            entityManager.clear();
+                        } else {
+                            batch.forEach(entityManager::detach);
+                        }
+                        batch.clear();
+                    }
+                }
+            });
+            JpaUtils.afterCommit(() -> {
+                afterWrite();
+                for (T entity : entities) {
+                    afterSave(entity);
+                }
+            });
+        });
+    }
+
+    /**
+     * Exécute une requête en mode curseur (ScrollableResults en avant seulement) : les lignes sont lues
+     * par lots de guideresto.stream.fetchSize et les entités sont chargées en lecture seule.
+     * Le parcours se déroule dans une transaction pour que le curseur reste ouvert pendant le chargement
+     * des associations paresseuses :
+     * <ul>
+     *     <li>Sans transaction active, le Stream ouvre la sienne. Il la valide dès la dernière ligne lue
+     *     ou à sa fermeture, et l'annule si le parcours échoue. Toutes les guideresto.stream.clearInterval
+     *     lignes, le contexte de persistance est vidé avant de lire la ligne suivante, pour que la mémoire
+     *     reste constante quelle que soit la taille de la table : les entités déjà parcourues (et leurs
+     *     associations non chargées) ne doivent donc plus être utilisées.</li>
+     *     <li>Dans la transaction de l'appelant, le Stream y participe sans la valider et ne vide jamais
+     *     le contexte de persistance, qui contient les modifications de l'appelant.</li>
+     * </ul>
+     * Un Stream abandonné sans être fermé laisse sa transaction ouverte jusqu'à la fermeture de l'unité de
+     * travail, qui l'annule : il doit être fermé (try-with-resources) ou parcouru jusqu'au bout.
+     * @param query La requête à parcourir
+     * @return Un Stream à fermer après usage (il libère le curseur)
+     */
+    protected <E> Stream<E> stream(TypedQuery<E> query) {
+        EntityManager entityManager = getEntityManager();
+        // Sans transaction, la connexion (et donc le curseur) serait libérée après le premier chargement paresseux
+        EntityTransaction transaction = entityManager.getTransaction();
+        boolean ownTransaction = !transaction.isActive();
+        if (ownTransaction) {
+            transaction.begin();
+        }
+        Stream<E> results;
+        try {
+            results = query
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .getResultStream();
+        } catch (RuntimeException ex) {
+            if (ownTransaction && transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw ex;
+        }
+        Iterator<E> iterator = results.iterator();
+        // Terminé une seule fois : une transaction ouverte ensuite par l'appelant ne doit pas être validée ici
+        AtomicBoolean finished = new AtomicBoolean();
+        Runnable finish = () -> {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                results.close();
+            } finally {
+                if (ownTransaction && transaction.isActive()) {
+                    transaction.commit();
+                }
+            }
+        };
+
+        Spliterator<E> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private long count;
+            private boolean done;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super E> action) {
+                if (done) {
+                    return false;
+                }
+                try {
+                    if (ownTransaction && count > 0 && count % STREAM_CLEAR_INTERVAL == 0) {
+                        entityManager.flush();
+                        entityManager.clear();
+                    }
+                    if (!iterator.hasNext()) {
+                        done = true;
+                        finish.run();
+                        return false;
+                    }
+                    count++;
+                    action.accept(iterator.next());
+                    return true;
+                } catch (RuntimeException ex) {
+                    done = true;
+                    if (finished.compareAndSet(false, true)) {
+                        results.close();
+                        if (ownTransaction && transaction.isActive()) {
+                            transaction.rollback();
+                        }
+                    }
+                    throw ex;
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(finish);
+    }
+
+    /**
+     * Exécute une requête de pagination par clé : une ligne de plus que la taille demandée est lue
+     * pour savoir s'il existe une tranche suivante.
+     * @param query La requête (entités ou projection), déjà triée et positionnée après le curseur
+     * @param size Le nombre maximal de lignes de la tranche
+     * @param cursorOf Construit le curseur à partir de la dernière ligne de la tranche
+     * @return La tranche
+     */
+    protected <E> Slice<E> toSlice(TypedQuery<E> query, int size, Function<E, KeysetCursor> cursorOf) {
+        if (size < 1) {
+            throw new IllegalArgumentException("La taille d'une tranche doit être positive : " + size);
+        }
+        List<E> rows = query.setMaxResults(size + 1).getResultList();
+        if (rows.size() <= size) {
+            return new Slice<>(rows, null);
+        }
+        List<E> content = rows.subList(0, size);
+        return new Slice<>(content, cursorOf.apply(content.get(size - 1)));
+    }
+
+    /**
+     * Charge des lignes par ID et les retourne dans l'ordre des IDs donnés (par exemple un classement
+     * de pertinence). Les IDs sont envoyés par paquets de 1000, la limite d'Oracle pour une clause IN ;
+     * les IDs qui n'existent plus sont ignorés.
+     * @param ids Les IDs, dans l'ordre voulu
+     * @param queryName La requête nommée, avec un paramètre :ids
+     * @param resultClass Le type des lignes (entité ou projection)
+     * @param idExtractor Lit l'ID d'une ligne
+     * @return Les lignes trouvées, dans l'ordre des IDs
+     */
+    protected <E> List<E> findByIdsInOrder(List<Integer> ids, String queryName, Class<E> resultClass,
+                                           Function<E, Integer> idExtractor) {
+        Map<Integer, E> byId = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MAX_IN_LIST_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + MAX_IN_LIST_SIZE, ids.size()));
+            for (E row : getEntityManager().createNamedQuery(queryName, resultClass)
+                    .setParameter("ids", chunk)
+                    .getResultList()) {
+                byId.put(idExtractor.apply(row), row);
+            }
+        }
+        List<E> ordered = new ArrayList<>(byId.size());
+        for (Integer id : ids) {
+            E row = byId.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Appelée dans la transaction d'insertion, avant le persist des entités (ne fait rien par défaut).
+     * Les écritures faites ici sont validées ou annulées avec les entités.
+     * @param entities Les entités à insérer
+     */
+    protected void beforeInsert(Collection<? extends T> entities) {
+    }
+
+    /**
+     * Appelée dans la transaction de suppression, avant la suppression d'une entité (ne fait rien par défaut)
+     * @param entity L'entité à supprimer, gérée par l'EntityManager de la transaction
+     */
+    protected void beforeDelete(T entity) {
+    }
+
+    /**
+     * Appelée après chaque écriture (insertion, mise à jour, suppression) effectuée par ce DAO, une fois
+     * la transaction validée ({@link JpaUtils#afterCommit(Runnable)}) : jamais pour une écriture annulée.
+     * Retire la classe d'entité du cache de second niveau ; les sous-classes peuvent la redéfinir
+     * pour invalider leurs propres structures en mémoire.
+     */
+    protected void afterWrite() {
+        JpaUtils.evictFromCache(entityClass);
+    }
+
+    /**
+     * Appelée après l'insertion ou la mise à jour d'une entité par ce DAO, une fois la transaction validée
+     * (ne fait rien par défaut)
+     * @param entity L'entité enregistrée
+     */
+    protected void afterSave(T entity) {
+    }
+
+    /**
+     * Appelée après la suppression d'une entité par ce DAO, une fois la transaction validée (ne fait rien par défaut)
+     * @param id L'ID de l'entité supprimée
+     */
+    protected void afterDelete(Integer id) {
+    }
+
+    /**
+     * Retourne l'ID d'une entité, lu par les métadonnées JPA
+     * @param entity L'entité
+     * @return Son ID
+     */
+    protected Integer idOf(T entity) {
+        return (Integer) getEntityManager().getEntityManagerFactory()
+                .getPersistenceUnitUtil()
+                .getIdentifier(entity);
+    }
+
+    /**
+     * Retourne une référence vers une entité sans la charger (aucune requête n'est exécutée)
+     * @param id L'ID de l'entité
+     * @return Un proxy non initialisé de l'entité
+     */
+    public T getReference(Integer id) {
+        return getEntityManager().getReference(entityClass, id);
     }
 
     @Override
     public void delete(T entity) {
-        JpaUtils.inTransaction(entityManager -> {
-            T managedEntity = entityManager.merge(entity);
-            entityManager.remove(managedEntity);
+        Integer id = idOf(entity);
+        timed("delete", id, () -> {
+            JpaUtils.inTransaction(entityManager -> {
+                T managedEntity = entityManager.merge(entity);
+                beforeDelete(managedEntity);
+                entityManager.remove(managedEntity);
+            });
+            JpaUtils.afterCommit(() -> {
+                afterWrite();
+                afterDelete(id);
+            });
         });
     }
 
     @Override
     public void deleteById(Integer id) {
-        JpaUtils.inTransaction(entityManager -> {
-            T entity = entityManager.find(entityClass, id);
-            if (entity != null) {
-                entityManager.remove(entity);
-            }
+        timed("deleteById", id, () -> {
+            JpaUtils.inTransaction(entityManager -> {
+                T entity = entityManager.find(entityClass, id);
+                if (entity != null) {
+                    beforeDelete(entity);
+                    entityManager.remove(entity);
+                }
+            });
+            JpaUtils.afterCommit(() -> {
+                afterWrite();
+                afterDelete(id);
+            });
         });
     }
 }
\ No newline at end of file
@@ -1,15 +1,21 @@
 package ch.hearc.ig.guideresto.persistence.dao;
 
 import ch.hearc.ig.guideresto.business.City;
+import ch.hearc.ig.guideresto.persistence.TrigramIndex;
 import jakarta.persistence.TypedQuery;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data Access Object pour l'entité City
  */
 public class CityDao extends AbstractDao<City> {
 
+    // Index des noms partagé par toutes les instances du DAO
+    private static final TrigramIndex NAME_INDEX = new TrigramIndex();
+
     public CityDao() {
         super(City.class);
     }
@@ -20,8 +26,31 @@ public class CityDao extends AbstractDao<City> {
      */
     @Override
     public List<City> findAll() {
-        TypedQuery<City> query = getEntityManager().createNamedQuery("City.findAll", City.class);
-        return query.getResultList();
+        return timed("findAll", () -> {
+            TypedQuery<City> query = getEntityManager().createNamedQuery("City.findAll", City.class);
+            return query.getResultList();
+        });
+    }
+
+    /**
+     * Récupère une tranche de villes, triées par nom
+     * @param after Le curseur de la tranche précédente, ou null pour la première tranche
+     * @param size Le nombre maximal de villes
+     * @return La tranche de villes
+     */
+    @Override
+    public Slice<City> findSlice(KeysetCursor after, int size) {
+        return timed("findSlice", () -> {
+            TypedQuery<City> query;
+            if (after == null) {
+                query = getEntityManager().createNamedQuery("City.findAll", City.class);
+            } else {
+                query = getEntityManager().createNamedQuery("City.findAllAfter", City.class)
+                        .setParameter("cityName", after.key())
+                        .setParameter("id", after.id());
+            }
+            return toSlice(query, size, city -> new KeysetCursor(city.getCityName(), city.getId()));
+        });
     }
 
     /**
@@ -30,24 +59,61 @@ public class CityDao extends AbstractDao<City> {
      * @return La ville trouvée, ou null si non trouvée
      */
     public City findByZipCode(String zipCode) {
-        TypedQuery<City> query = getEntityManager()
-                .createNamedQuery("City.findByZipCode", City.class)
-                .setParameter("zipCode", zipCode);
+        return timed("findByZipCode", () -> {
+            TypedQuery<City> query = getEntityManager()
+                    .createNamedQuery("City.findByZipCode", City.class)
+                    .setParameter("zipCode", zipCode);
 
-        List<City> results = query.getResultList();
-        return results.isEmpty() ? null : results.get(0);
+            List<City> results = query.getResultList();
+            return results.isEmpty() ? null : results.get(0);
+        });
     }
 
     /**
-     * Recherche des villes par nom (recherche partielle, insensible à la casse)
+     * Recherche des villes par nom (recherche partielle, insensible à la casse et aux accents).
+     * Les IDs sont trouvés dans l'index de trigrammes en mémoire ; seules les villes correspondantes
+     * sont ensuite chargées.
      * @param cityName Le nom de ville à rechercher (peut être partiel)
-     * @return Liste des villes correspondantes
+     * @return Liste des villes correspondantes, de la plus pertinente à la moins pertinente
      */
     public List<City> findByCityName(String cityName) {
-        TypedQuery<City> query = getEntityManager()
-                .createNamedQuery("City.findByCityName", City.class)
-                .setParameter("cityName", "%" + cityName + "%");
+        return timed("findByCityName", () -> {
+            NAME_INDEX.ensureBuilt(this::loadNames);
+            return findByIdsInOrder(NAME_INDEX.search(cityName), "City.findByIds", City.class, City::getId);
+        });
+    }
+
+    /**
+     * Construit l'index de trigrammes des noms de villes s'il ne l'est pas encore (au démarrage)
+     */
+    public void buildNameIndex() {
+        timed("buildNameIndex", () -> NAME_INDEX.ensureBuilt(this::loadNames));
+    }
+
+    /**
+     * Reconstruit l'index des noms, après des écritures qui ne sont pas passées par ce DAO
+     */
+    public void rebuildNameIndex() {
+        timed("rebuildNameIndex", () -> NAME_INDEX.rebuild(this::loadNames));
+    }
+
+    @Override
+    protected void afterSave(City city) {
+        NAME_INDEX.put(city.getId(), city.getCityName());
+    }
+
+    @Override
+    protected void afterDelete(Integer id) {
+        NAME_INDEX.remove(id);
+    }
 
-        return query.getResultList();
+    private Map<Integer, String> loadNames() {
+        Map<Integer, String> names = new HashMap<>();
+        for (Object[] row : getEntityManager()
+                .createNamedQuery("City.findIdsAndNames", Object[].class)
+                .getResultList()) {
+            names.put((Integer) row[0], (String) row[1]);
+        }
+        return names;
     }
-}
\ No newline at end of file
+}
@@ -20,9 +20,32 @@ public class EvaluationCriteriaDao extends AbstractDao<EvaluationCriteria> {
      */
     @Override
     public List<EvaluationCriteria> findAll() {
-        TypedQuery<EvaluationCriteria> query = getEntityManager()
-                .createNamedQuery("EvaluationCriteria.findAll", EvaluationCriteria.class);
-        return query.getResultList();
+        return timed("findAll", () -> {
+            TypedQuery<EvaluationCriteria> query = getEntityManager()
+                    .createNamedQuery("EvaluationCriteria.findAll", EvaluationCriteria.class);
+            return query.getResultList();
+        });
+    }
+
+    /**
+     * Récupère une tranche de critères d'évaluation, triés par nom
+     * @param after Le curseur de la tranche précédente, ou null pour la première tranche
+     * @param size Le nombre maximal de critères
+     * @return La tranche de critères
+     */
+    @Override
+    public Slice<EvaluationCriteria> findSlice(KeysetCursor after, int size) {
+        return timed("findSlice", () -> {
+            TypedQuery<EvaluationCriteria> query;
+            if (after == null) {
+                query = getEntityManager().createNamedQuery("EvaluationCriteria.findAll", EvaluationCriteria.class);
+            } else {
+                query = getEntityManager().createNamedQuery("EvaluationCriteria.findAllAfter", EvaluationCriteria.class)
+                        .setParameter("name", after.key())
+                        .setParameter("id", after.id());
+            }
+            return toSlice(query, size, criteria -> new KeysetCursor(criteria.getName(), criteria.getId()));
+        });
     }
 
     /**
@@ -31,28 +54,32 @@ public class EvaluationCriteriaDao extends AbstractDao<EvaluationCriteria> {
      * @return Liste des critères correspondants
      */
     public List<EvaluationCriteria> findByName(String name) {
-        TypedQuery<EvaluationCriteria> query = getEntityManager()
-                .createNamedQuery("EvaluationCriteria.findByName", EvaluationCriteria.class)
-                .setParameter("name", "%" + name + "%");
+        return timed("findByName", () -> {
+            TypedQuery<EvaluationCriteria> query = getEntityManager()
+                    .createNamedQuery("EvaluationCriteria.findByName", EvaluationCriteria.class)
+                    .setParameter("name", "%" + name + "%");
 
-        return query.getResultList();
+            return query.getResultList();
+        });
     }
 
     /**
-     * Recherche un critère par son nom exact
+     * Recherche un critère par son nom exact (insensible à la casse).
+     * Le nom est résolu par le {@link EvaluationCriteriaRegistry}, puis le critère est lu
+     * dans le cache de premier ou de second niveau.
      * @param name Le nom exact à rechercher
      * @return Le critère trouvé, ou null si non trouvé
      */
     public EvaluationCriteria findByExactName(String name) {
-        List<EvaluationCriteria> criterias = findByName(name);
-
-        // Filtrer pour avoir le match exact
-        for (EvaluationCriteria criteria : criterias) {
-            if (criteria.getName().equalsIgnoreCase(name)) {
-                return criteria;
-            }
-        }
+        return timed("findByExactName", () -> {
+            Integer id = EvaluationCriteriaRegistry.getInstance().findId(name);
+            return id == null ? null : findById(id);
+        });
+    }
 
-        return null;
+    @Override
+    protected void afterWrite() {
+        super.afterWrite();
+        EvaluationCriteriaRegistry.getInstance().invalidate();
     }
-}
\ No newline at end of file
+}
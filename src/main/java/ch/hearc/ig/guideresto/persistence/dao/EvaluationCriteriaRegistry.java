@@ -0,0 +1,140 @@
+package ch.hearc.ig.guideresto.persistence.dao;
+
+import ch.hearc.ig.guideresto.business.EvaluationCriteria;
+import ch.hearc.ig.guideresto.persistence.jpa.JpaUtils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Registre en mémoire des critères d'évaluation (ID et nom).
+ * Le registre est chargé une seule fois, avec une seule requête, puis conservé sous forme d'instantané
+ * immuable partagé entre les threads. Toute écriture sur les critères via {@link EvaluationCriteriaDao}
+ * l'invalide : il est rechargé à la prochaine utilisation.
+ *
+ * La recherche par nom est insensible à la casse. Les critères sont résolus en références gérées
+ * ({@code getReference}) de l'EntityManager du thread courant, sans requête vers la base de données.
+ */
+public final class EvaluationCriteriaRegistry {
+
+    private static final EvaluationCriteriaRegistry INSTANCE = new EvaluationCriteriaRegistry();
+
+    /**
+     * Instantané immuable des critères
+     * @param idsByName ID des critères, indexés par nom en minuscules
+     * @param namesById Nom des critères, indexés par ID (dans l'ordre alphabétique)
+     */
+    private record Snapshot(Map<String, Integer> idsByName, Map<Integer, String> namesById) {
+    }
+
+    private volatile Snapshot snapshot;
+
+    private EvaluationCriteriaRegistry() {
+    }
+
+    public static EvaluationCriteriaRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Retourne l'ID d'un critère à partir de son nom
+     * @param name Le nom du critère (insensible à la casse)
+     * @return L'ID du critère, ou null s'il n'existe pas
+     */
+    public Integer findId(String name) {
+        if (name == null) {
+            return null;
+        }
+        return snapshot().idsByName().get(normalize(name));
+    }
+
+    /**
+     * Retourne le nom d'un critère à partir de son ID
+     * @param id L'ID du critère
+     * @return Le nom du critère, ou null s'il n'existe pas
+     */
+    public String findName(Integer id) {
+        return id == null ? null : snapshot().namesById().get(id);
+    }
+
+    /**
+     * @param id L'ID du critère
+     * @return true si un critère avec cet ID existe
+     */
+    public boolean contains(Integer id) {
+        return id != null && snapshot().namesById().containsKey(id);
+    }
+
+    /**
+     * Résout un critère par son nom en une référence gérée, sans requête
+     * @param name Le nom du critère (insensible à la casse)
+     * @return Une référence vers le critère, ou null s'il n'existe pas
+     */
+    public EvaluationCriteria getReference(String name) {
+        return toReference(findId(name));
+    }
+
+    /**
+     * Résout un critère par son ID en une référence gérée, sans requête
+     * @param id L'ID du critère
+     * @return Une référence vers le critère, ou null s'il n'existe pas
+     */
+    public EvaluationCriteria getReference(Integer id) {
+        return contains(id) ? toReference(id) : null;
+    }
+
+    /**
+     * @return Les noms des critères indexés par ID, dans l'ordre alphabétique (non modifiable)
+     */
+    public Map<Integer, String> getNamesById() {
+        return snapshot().namesById();
+    }
+
+    /**
+     * Invalide le registre : il sera rechargé depuis la base de données à la prochaine utilisation
+     */
+    public synchronized void invalidate() {
+        snapshot = null;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = load();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static Snapshot load() {
+        List<Object[]> rows = JpaUtils.getEntityManager()
+                .createNamedQuery("EvaluationCriteria.findIdsAndNames", Object[].class)
+                .getResultList();
+
+        Map<String, Integer> idsByName = new LinkedHashMap<>();
+        Map<Integer, String> namesById = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            Integer id = (Integer) row[0];
+            String name = (String) row[1];
+            idsByName.put(normalize(name), id);
+            namesById.put(id, name);
+        }
+        return new Snapshot(Collections.unmodifiableMap(idsByName), Collections.unmodifiableMap(namesById));
+    }
+
+    private static EvaluationCriteria toReference(Integer id) {
+        return id == null ? null : JpaUtils.getEntityManager().getReference(EvaluationCriteria.class, id);
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
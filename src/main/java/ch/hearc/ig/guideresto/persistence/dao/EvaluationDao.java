@@ -0,0 +1,214 @@
+package ch.hearc.ig.guideresto.persistence.dao;
+
+import ch.hearc.ig.guideresto.business.CompleteEvaluation;
+import ch.hearc.ig.guideresto.business.Evaluation;
+import ch.hearc.ig.guideresto.business.Grade;
+import ch.hearc.ig.guideresto.business.IpAddresses;
+import ch.hearc.ig.guideresto.business.LikeCounts;
+import ch.hearc.ig.guideresto.persistence.jpa.JpaUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Data Access Object pour les évaluations (likes et évaluations complètes)
+ * Les statistiques sont calculées en base de données (COUNT, GROUP BY) sans charger les évaluations ;
+ * les moyennes des notes sont tenues dans RESTAURANT_STATS ({@link RestaurantStatsDao}).
+ */
+public class EvaluationDao extends AbstractDao<Evaluation> {
+
+    private final RestaurantStatsDao statsDao = new RestaurantStatsDao();
+
+    public EvaluationDao() {
+        super(Evaluation.class);
+    }
+
+    /**
+     * Une évaluation complète nouvelle est insérée ({@link #insert(Evaluation)}), et ses notes ajoutées aux
+     * statistiques ; une évaluation complète existante est fusionnée et les statistiques de son restaurant
+     * recalculées à partir des notes, dans la même transaction ({@link RestaurantStatsDao#replaceGrades})
+     */
+    @Override
+    public Evaluation save(Evaluation entity) {
+        if (!(entity instanceof CompleteEvaluation evaluation)) {
+            return super.save(entity);
+        }
+        if (evaluation.getId() == null) {
+            return insert(entity);
+        }
+        return timed("save", evaluation.getId(), () -> {
+            Evaluation saved = JpaUtils.callInTransaction(entityManager -> statsDao.replaceGrades(
+                    evaluation.getId(), evaluation.getRestaurant().getId(), () -> entityManager.merge(entity)));
+            JpaUtils.afterCommit(() -> {
+                afterWrite();
+                afterSave(saved);
+            });
+            return saved;
+        });
+    }
+
+    /**
+     * Les notes des évaluations complètes insérées sont ajoutées aux statistiques des restaurants
+     * dans la même transaction ({@link RestaurantStatsDao})
+     */
+    @Override
+    protected void beforeInsert(Collection<? extends Evaluation> entities) {
+        List<CompleteEvaluation> completeEvaluations = completeEvaluationsOf(entities);
+        if (!completeEvaluations.isEmpty()) {
+            statsDao.addGrades(completeEvaluations);
+        }
+    }
+
+    /**
+     * Les notes d'une évaluation complète supprimée sont retirées des statistiques de son restaurant
+     * dans la même transaction
+     */
+    @Override
+    protected void beforeDelete(Evaluation entity) {
+        if (entity instanceof CompleteEvaluation completeEvaluation) {
+            statsDao.removeGrades(List.of(completeEvaluation));
+        }
+    }
+
+    private static List<CompleteEvaluation> completeEvaluationsOf(Collection<? extends Evaluation> entities) {
+        List<CompleteEvaluation> completeEvaluations = new ArrayList<>();
+        for (Evaluation entity : entities) {
+            if (entity instanceof CompleteEvaluation completeEvaluation) {
+                completeEvaluations.add(completeEvaluation);
+            }
+        }
+        return completeEvaluations;
+    }
+
+    /**
+     * Parcourt toutes les évaluations complètes avec un curseur côté serveur (exports, recalculs)
+     * @return Un Stream à fermer après usage
+     * @see AbstractDao#stream(jakarta.persistence.TypedQuery)
+     */
+    public Stream<CompleteEvaluation> streamCompleteEvaluations() {
+        return timed("streamCompleteEvaluations", () -> stream(getEntityManager()
+                .createNamedQuery("CompleteEvaluation.findAll", CompleteEvaluation.class)));
+    }
+
+    /**
+     * Parcourt les évaluations complètes d'un restaurant avec un curseur côté serveur
+     * @param restaurantId L'ID du restaurant
+     * @return Un Stream à fermer après usage
+     */
+    public Stream<CompleteEvaluation> streamCompleteEvaluations(Integer restaurantId) {
+        return timed("streamCompleteEvaluationsByRestaurant", () -> stream(getEntityManager()
+                .createNamedQuery("CompleteEvaluation.findByRestaurant", CompleteEvaluation.class)
+                .setParameter("restaurantId", restaurantId)));
+    }
+
+    /**
+     * Récupère les évaluations complètes d'un restaurant avec leurs notes et critères, en une seule requête
+     * @param restaurantId L'ID du restaurant
+     * @return Les évaluations complètes, triées par ID
+     */
+    public List<CompleteEvaluation> findCompleteEvaluationsWithGrades(Integer restaurantId) {
+        return timed("findCompleteEvaluationsWithGrades", () -> getEntityManager()
+                .createNamedQuery("CompleteEvaluation.findByRestaurantWithGrades", CompleteEvaluation.class)
+                .setParameter("restaurantId", restaurantId)
+                .getResultList());
+    }
+
+    /**
+     * Parcourt toutes les notes avec un curseur côté serveur
+     * @return Un Stream à fermer après usage
+     */
+    public Stream<Grade> streamGrades() {
+        return timed("streamGrades", () -> stream(getEntityManager().createNamedQuery("Grade.findAll", Grade.class)));
+    }
+
+    /**
+     * Compte les likes ou les dislikes d'un restaurant
+     * @param restaurantId L'ID du restaurant
+     * @param like true pour compter les likes, false pour les dislikes
+     * @return Le nombre d'évaluations basiques correspondantes
+     */
+    public long countBasicEvaluations(Integer restaurantId, boolean like) {
+        return timed("countBasicEvaluations", () -> getEntityManager()
+                .createNamedQuery("BasicEvaluation.countByRestaurantAndAppreciation", Long.class)
+                .setParameter("restaurantId", restaurantId)
+                .setParameter("like", like)
+                .getSingleResult());
+    }
+
+    /**
+     * Compte en une seule requête (GROUP BY) les likes et dislikes de tous les restaurants
+     * @return Les compteurs des restaurants qui ont au moins une évaluation basique
+     */
+    public List<LikeCounts> countBasicEvaluationsByRestaurant() {
+        return timed("countBasicEvaluationsByRestaurant", () -> getEntityManager()
+                .createNamedQuery("BasicEvaluation.countByRestaurant", LikeCounts.class)
+                .setParameter("like", Boolean.TRUE)
+                .setParameter("dislike", Boolean.FALSE)
+                .getResultList());
+    }
+
+    /**
+     * Compte les évaluations complètes d'un restaurant
+     * @param restaurantId L'ID du restaurant
+     * @return Le nombre d'évaluations complètes
+     */
+    public long countCompleteEvaluations(Integer restaurantId) {
+        return timed("countCompleteEvaluations", () -> getEntityManager()
+                .createNamedQuery("CompleteEvaluation.countByRestaurant", Long.class)
+                .setParameter("restaurantId", restaurantId)
+                .getSingleResult());
+    }
+
+    /**
+     * Compte toutes les évaluations (likes, dislikes et évaluations complètes) d'un restaurant
+     * @param restaurantId L'ID du restaurant
+     * @return Le nombre total d'évaluations
+     */
+    public long countByRestaurant(Integer restaurantId) {
+        return timed("countByRestaurant", () -> getEntityManager()
+                .createNamedQuery("Evaluation.countByRestaurant", Long.class)
+                .setParameter("restaurantId", restaurantId)
+                .getSingleResult());
+    }
+
+    /**
+     * Vérifie si un restaurant a au moins une évaluation, sans les compter
+     * @param restaurantId L'ID du restaurant
+     * @return true si le restaurant a au moins une évaluation
+     */
+    public boolean existsByRestaurant(Integer restaurantId) {
+        return timed("existsByRestaurant", () -> !getEntityManager()
+                .createNamedQuery("Evaluation.existsByRestaurant", Integer.class)
+                .setParameter("restaurantId", restaurantId)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty());
+    }
+
+    /**
+     * Met sous forme canonique ({@link IpAddresses}) les adresses IP des likes enregistrés avant elle,
+     * au format "hôte/adresse" d'{@link java.net.InetAddress#toString()}. Les adresses sont peu nombreuses
+     * (c'était celle du serveur) : une requête UPDATE par adresse distincte, dans une seule transaction.
+     * @return Le nombre de likes corrigés
+     */
+    public int canonicalizeIpAddresses() {
+        return timed("canonicalizeIpAddresses", () -> JpaUtils.callInTransaction(entityManager -> {
+            int updated = 0;
+            for (String legacy : entityManager
+                    .createNamedQuery("BasicEvaluation.findLegacyIpAddresses", String.class)
+                    .getResultList()) {
+                String canonical = IpAddresses.canonical(legacy);
+                if (canonical.equals(legacy)) {
+                    continue;
+                }
+                updated += entityManager.createNamedQuery("BasicEvaluation.updateIpAddress")
+                        .setParameter("canonical", canonical)
+                        .setParameter("legacy", legacy)
+                        .executeUpdate();
+            }
+            return updated;
+        }));
+    }
+}
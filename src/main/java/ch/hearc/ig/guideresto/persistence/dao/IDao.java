@@ -1,6 +1,7 @@
 package ch.hearc.ig.guideresto.persistence.dao;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Interface générique pour les Data Access Objects
@@ -21,6 +22,43 @@ public interface IDao<T> {
      */
     List<T> findAll();
 
+    /**
+     * Parcourt toutes les instances de l'entité avec un curseur côté serveur, sans les charger toutes en mémoire.
+     * Le contexte de persistance est vidé à intervalles réguliers pendant le parcours : les entités déjà
+     * parcourues sont détachées. Le Stream doit être fermé (try-with-resources).
+     * @return Un Stream de toutes les entités
+     */
+    Stream<T> streamAll();
+
+    /**
+     * Récupère une tranche d'entités par pagination par clé, triées selon la clé du DAO (l'ID par défaut)
+     * @param after Le curseur retourné par la tranche précédente, ou null pour la première tranche
+     * @param size Le nombre maximal d'entités de la tranche
+     * @return La tranche et le curseur de la suivante
+     */
+    Slice<T> findSlice(KeysetCursor after, int size);
+
+    /**
+     * Récupère une page d'entités par pagination par clé, avec le nombre total d'entités
+     * @param after Le curseur retourné par la page précédente, ou null pour la première page
+     * @param size Le nombre maximal d'entités de la page
+     * @return La page, le curseur de la suivante et le nombre total d'entités
+     */
+    Page<T> findPage(KeysetCursor after, int size);
+
+    /**
+     * Compte les entités en base de données (SELECT COUNT), sans les charger
+     * @return Le nombre d'entités
+     */
+    long count();
+
+    /**
+     * Vérifie si une entité existe, sans la charger (SELECT 1 ... FETCH FIRST 1 ROWS ONLY)
+     * @param id L'identifiant de l'entité
+     * @return true si l'entité existe, false sinon
+     */
+    boolean existsById(Integer id);
+
     /**
      * Persiste une nouvelle entité ou met à jour une entité existante
      * @param entity L'entité à sauvegarder
@@ -0,0 +1,12 @@
+package ch.hearc.ig.guideresto.persistence.dao;
+
+/**
+ * Curseur de pagination par clé (keyset) : la clé de tri et l'ID de la dernière ligne d'une tranche.
+ * La tranche suivante reprend strictement après ce couple, sans OFFSET : une page profonde coûte
+ * autant que la première.
+ *
+ * @param key La valeur de la clé de tri de la dernière ligne (null lorsque le tri se fait sur l'ID seul)
+ * @param id L'ID de la dernière ligne, qui départage les clés de tri égales
+ */
+public record KeysetCursor(String key, Integer id) {
+}
@@ -0,0 +1,25 @@
+package ch.hearc.ig.guideresto.persistence.dao;
+
+import java.util.List;
+
+/**
+ * Tranche de résultats accompagnée du nombre total d'éléments (une requête COUNT supplémentaire)
+ *
+ * @param content Les éléments de la page, dans l'ordre de tri
+ * @param nextCursor Le curseur à passer pour obtenir la page suivante, ou null s'il n'y en a pas
+ * @param totalElements Le nombre total d'éléments, toutes pages confondues
+ * @param <T> Le type des éléments
+ */
+public record Page<T>(List<T> content, KeysetCursor nextCursor, long totalElements) {
+
+    public Page {
+        content = List.copyOf(content);
+    }
+
+    /**
+     * @return true s'il existe une page suivante
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -1,15 +1,32 @@
 package ch.hearc.ig.guideresto.persistence.dao;
 
+import ch.hearc.ig.guideresto.business.CompleteEvaluation;
 import ch.hearc.ig.guideresto.business.Restaurant;
+import ch.hearc.ig.guideresto.business.RestaurantListItem;
+import ch.hearc.ig.guideresto.persistence.TrigramIndex;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.SpecHints;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object pour l'entité Restaurant
  */
 public class RestaurantDao extends AbstractDao<Restaurant> {
 
+    // Index des noms partagé par toutes les instances du DAO
+    private static final TrigramIndex NAME_INDEX = new TrigramIndex();
+
+    private final RestaurantStatsDao statsDao = new RestaurantStatsDao();
+
     public RestaurantDao() {
         super(Restaurant.class);
     }
@@ -20,22 +37,103 @@ public class RestaurantDao extends AbstractDao<Restaurant> {
      */
     @Override
     public List<Restaurant> findAll() {
-        TypedQuery<Restaurant> query = getEntityManager()
-                .createNamedQuery("Restaurant.findAll", Restaurant.class);
-        return query.getResultList();
+        return timed("findAll", () -> {
+            TypedQuery<Restaurant> query = getEntityManager()
+                    .createNamedQuery("Restaurant.findAll", Restaurant.class);
+            return query.getResultList();
+        });
+    }
+
+    /**
+     * Parcourt tous les restaurants, triés par nom, avec un curseur côté serveur
+     * @return Un Stream à fermer après usage
+     * @see AbstractDao#stream(TypedQuery)
+     */
+    @Override
+    public Stream<Restaurant> streamAll() {
+        return timed("streamAll", () -> stream(getEntityManager()
+                .createNamedQuery("Restaurant.findAll", Restaurant.class)));
     }
 
     /**
-     * Recherche des restaurants par nom (recherche partielle, insensible à la casse)
+     * Charge un restaurant avec tout ce qu'affiche sa vue détaillée, en deux requêtes quel que soit
+     * le nombre d'évaluations :
+     * 1. le restaurant, son type, sa ville et ses évaluations (graphe Restaurant.details ; la collection
+     *    polymorphe est lue en une requête sur LIKES et COMMENTAIRES)
+     * 2. les notes et critères des évaluations complètes, rattachés aux instances déjà chargées
+     * @param id L'ID du restaurant
+     * @return Le restaurant, ou null s'il n'existe pas
+     */
+    public Restaurant findByIdWithDetails(Integer id) {
+        return timed("findByIdWithDetails", id, () -> {
+            EntityManager entityManager = getEntityManager();
+            List<Restaurant> restaurants = entityManager
+                    .createNamedQuery("Restaurant.findByIdWithDetails", Restaurant.class)
+                    .setParameter("id", id)
+                    .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, entityManager.getEntityGraph("Restaurant.details"))
+                    .getResultList();
+            if (restaurants.isEmpty()) {
+                return null;
+            }
+            entityManager.createNamedQuery("CompleteEvaluation.findByRestaurantWithGrades", CompleteEvaluation.class)
+                    .setParameter("restaurantId", id)
+                    .getResultList();
+            return restaurants.get(0);
+        });
+    }
+
+    /**
+     * Récupère une tranche de restaurants, triés par nom
+     * @param after Le curseur de la tranche précédente, ou null pour la première tranche
+     * @param size Le nombre maximal de restaurants
+     * @return La tranche de restaurants
+     */
+    @Override
+    public Slice<Restaurant> findSlice(KeysetCursor after, int size) {
+        return timed("findSlice", () -> {
+            TypedQuery<Restaurant> query = after == null
+                    ? getEntityManager().createNamedQuery("Restaurant.findAll", Restaurant.class)
+                    : afterCursor("Restaurant.findAllAfter", after);
+            return toSlice(query, size, RestaurantDao::cursorOf);
+        });
+    }
+
+    /**
+     * Recherche des restaurants par nom (recherche partielle, insensible à la casse et aux accents).
+     * Les IDs sont trouvés dans l'index de trigrammes en mémoire ; seuls les restaurants correspondants
+     * sont ensuite chargés.
      * @param name Le nom à rechercher (peut être partiel)
-     * @return Liste des restaurants correspondants
+     * @return Liste des restaurants correspondants, du plus pertinent au moins pertinent
      */
     public List<Restaurant> findByName(String name) {
-        TypedQuery<Restaurant> query = getEntityManager()
+        return timed("findByName", () -> findByIdsInOrder(searchIds(name), "Restaurant.findByIds", Restaurant.class,
+                Restaurant::getId));
+    }
+
+    /**
+     * Parcourt les restaurants dont le nom contient la chaîne donnée, avec un curseur côté serveur
+     * @param name Le nom à rechercher (peut être partiel)
+     * @return Un Stream à fermer après usage
+     */
+    public Stream<Restaurant> streamByName(String name) {
+        return timed("streamByName", () -> stream(getEntityManager()
                 .createNamedQuery("Restaurant.findByName", Restaurant.class)
-                .setParameter("name", "%" + name + "%");
+                .setParameter("pattern", "%" + name + "%")));
+    }
 
-        return query.getResultList();
+    /**
+     * Recherche une tranche de restaurants par nom (recherche partielle, insensible à la casse et aux accents)
+     * @param name Le nom à rechercher (peut être partiel)
+     * @param after Le curseur de la tranche précédente, ou null pour la première tranche
+     * @param size Le nombre maximal de restaurants
+     * @return La tranche de restaurants correspondants, du plus pertinent au moins pertinent
+     */
+    public Slice<Restaurant> findSliceByName(String name, KeysetCursor after, int size) {
+        return timed("findSliceByName", () -> {
+            Slice<Integer> ids = searchSlice(name, after, size);
+            return new Slice<>(findByIdsInOrder(ids.content(), "Restaurant.findByIds", Restaurant.class,
+                    Restaurant::getId), ids.nextCursor());
+        });
     }
 
     /**
@@ -44,11 +142,59 @@ public class RestaurantDao extends AbstractDao<Restaurant> {
      * @return Liste des restaurants dans cette ville
      */
     public List<Restaurant> findByCity(Integer cityId) {
-        TypedQuery<Restaurant> query = getEntityManager()
+        return timed("findByCity", () -> {
+            TypedQuery<Restaurant> query = getEntityManager()
+                    .createNamedQuery("Restaurant.findByCity", Restaurant.class)
+                    .setParameter("cityId", cityId);
+
+            return query.getResultList();
+        });
+    }
+
+    /**
+     * Parcourt les restaurants d'une ville avec un curseur côté serveur
+     * @param cityId L'ID de la ville
+     * @return Un Stream à fermer après usage
+     */
+    public Stream<Restaurant> streamByCity(Integer cityId) {
+        return timed("streamByCity", () -> stream(getEntityManager()
                 .createNamedQuery("Restaurant.findByCity", Restaurant.class)
-                .setParameter("cityId", cityId);
+                .setParameter("cityId", cityId)));
+    }
+
+    /**
+     * Recherche une tranche de restaurants par ville
+     * @param cityId L'ID de la ville
+     * @param after Le curseur de la tranche précédente, ou null pour la première tranche
+     * @param size Le nombre maximal de restaurants
+     * @return La tranche des restaurants de cette ville, triés par nom
+     */
+    public Slice<Restaurant> findSliceByCity(Integer cityId, KeysetCursor after, int size) {
+        return timed("findSliceByCity", () -> {
+            TypedQuery<Restaurant> query = after == null
+                    ? getEntityManager().createNamedQuery("Restaurant.findByCity", Restaurant.class)
+                    : afterCursor("Restaurant.findByCityAfter", after);
+            query.setParameter("cityId", cityId);
+            return toSlice(query, size, RestaurantDao::cursorOf);
+        });
+    }
 
-        return query.getResultList();
+    /**
+     * Parmi une liste d'IDs, retourne ceux qui correspondent à un restaurant existant
+     * @param ids Les IDs à vérifier
+     * @return Les IDs existants
+     */
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        return timed("findExistingIds", () -> {
+            if (ids.isEmpty()) {
+                return Set.of();
+            }
+            List<Integer> existing = getEntityManager()
+                    .createNamedQuery("Restaurant.findExistingIds", Integer.class)
+                    .setParameter("ids", ids)
+                    .getResultList();
+            return new HashSet<>(existing);
+        });
     }
 
     /**
@@ -57,10 +203,196 @@ public class RestaurantDao extends AbstractDao<Restaurant> {
      * @return Liste des restaurants de ce type
      */
     public List<Restaurant> findByType(Integer typeId) {
-        TypedQuery<Restaurant> query = getEntityManager()
+        return timed("findByType", () -> {
+            TypedQuery<Restaurant> query = getEntityManager()
+                    .createNamedQuery("Restaurant.findByType", Restaurant.class)
+                    .setParameter("typeId", typeId);
+
+            return query.getResultList();
+        });
+    }
+
+    /**
+     * Parcourt les restaurants d'un type gastronomique avec un curseur côté serveur
+     * @param typeId L'ID du type gastronomique
+     * @return Un Stream à fermer après usage
+     */
+    public Stream<Restaurant> streamByType(Integer typeId) {
+        return timed("streamByType", () -> stream(getEntityManager()
                 .createNamedQuery("Restaurant.findByType", Restaurant.class)
-                .setParameter("typeId", typeId);
+                .setParameter("typeId", typeId)));
+    }
 
-        return query.getResultList();
+    /**
+     * Recherche une tranche de restaurants par type gastronomique
+     * @param typeId L'ID du type gastronomique
+     * @param after Le curseur de la tranche précédente, ou null pour la première tranche
+     * @param size Le nombre maximal de restaurants
+     * @return La tranche des restaurants de ce type, triés par nom
+     */
+    public Slice<Restaurant> findSliceByType(Integer typeId, KeysetCursor after, int size) {
+        return timed("findSliceByType", () -> {
+            TypedQuery<Restaurant> query = after == null
+                    ? getEntityManager().createNamedQuery("Restaurant.findByType", Restaurant.class)
+                    : afterCursor("Restaurant.findByTypeAfter", after);
+            query.setParameter("typeId", typeId);
+            return toSlice(query, size, RestaurantDao::cursorOf);
+        });
+    }
+
+    private TypedQuery<Restaurant> afterCursor(String queryName, KeysetCursor after) {
+        return getEntityManager().createNamedQuery(queryName, Restaurant.class)
+                .setParameter("name", after.key())
+                .setParameter("id", after.id());
+    }
+
+    private static KeysetCursor cursorOf(Restaurant restaurant) {
+        return new KeysetCursor(restaurant.getName(), restaurant.getId());
+    }
+
+    // ==================== PROJECTIONS POUR LES LISTES ====================
+
+    /**
+     * Récupère une tranche de lignes de liste (projection sans entité gérée), triées par nom
+     * @param after Le curseur de la tranche précédente, ou null pour la première tranche
+     * @param size Le nombre maximal de lignes
+     * @return La tranche de lignes
+     */
+    public Slice<RestaurantListItem> findListItems(KeysetCursor after, int size) {
+        return timed("findListItems", () -> toSlice(listQuery("Restaurant.listAll", after), size,
+                RestaurantDao::cursorOf));
+    }
+
+    /**
+     * Recherche une tranche de lignes de liste par nom de restaurant, avec l'index de trigrammes
+     * (recherche partielle, insensible à la casse et aux accents)
+     * @param name Le nom à rechercher (peut être partiel)
+     * @param after Le curseur de la tranche précédente, ou null pour la première tranche
+     * @param size Le nombre maximal de lignes
+     * @return La tranche de lignes, de la plus pertinente à la moins pertinente
+     */
+    public Slice<RestaurantListItem> findListItemsByName(String name, KeysetCursor after, int size) {
+        return timed("findListItemsByName", () -> {
+            Slice<Integer> ids = searchSlice(name, after, size);
+            return new Slice<>(findByIdsInOrder(ids.content(), "Restaurant.listByIds", RestaurantListItem.class,
+                    RestaurantListItem::id), ids.nextCursor());
+        });
+    }
+
+    /**
+     * Recherche une tranche de lignes de liste pour les restaurants d'une ville
+     * @param cityId L'ID de la ville
+     * @param after Le curseur de la tranche précédente, ou null pour la première tranche
+     * @param size Le nombre maximal de lignes
+     * @return La tranche de lignes, triées par nom
+     */
+    public Slice<RestaurantListItem> findListItemsByCity(Integer cityId, KeysetCursor after, int size) {
+        return timed("findListItemsByCity", () -> {
+            TypedQuery<RestaurantListItem> query = listQuery("Restaurant.listByCity", after)
+                    .setParameter("cityId", cityId);
+            return toSlice(query, size, RestaurantDao::cursorOf);
+        });
+    }
+
+    /**
+     * Recherche une tranche de lignes de liste pour les restaurants d'un type gastronomique
+     * @param typeId L'ID du type gastronomique
+     * @param after Le curseur de la tranche précédente, ou null pour la première tranche
+     * @param size Le nombre maximal de lignes
+     * @return La tranche de lignes, triées par nom
+     */
+    public Slice<RestaurantListItem> findListItemsByType(Integer typeId, KeysetCursor after, int size) {
+        return timed("findListItemsByType", () -> {
+            TypedQuery<RestaurantListItem> query = listQuery("Restaurant.listByType", after)
+                    .setParameter("typeId", typeId);
+            return toSlice(query, size, RestaurantDao::cursorOf);
+        });
+    }
+
+    /**
+     * Prépare une requête de projection : la variante "After" positionnée après le curseur,
+     * ou la requête de base pour la première tranche
+     */
+    private TypedQuery<RestaurantListItem> listQuery(String queryName, KeysetCursor after) {
+        if (after == null) {
+            return getEntityManager().createNamedQuery(queryName, RestaurantListItem.class);
+        }
+        return getEntityManager().createNamedQuery(queryName + "After", RestaurantListItem.class)
+                .setParameter("name", after.key())
+                .setParameter("id", after.id());
+    }
+
+    private static KeysetCursor cursorOf(RestaurantListItem item) {
+        return new KeysetCursor(item.name(), item.id());
+    }
+
+    // ==================== INDEX DES NOMS ====================
+
+    /**
+     * Construit l'index de trigrammes des noms de restaurants s'il ne l'est pas encore (au démarrage)
+     */
+    public void buildNameIndex() {
+        timed("buildNameIndex", () -> NAME_INDEX.ensureBuilt(this::loadNames));
+    }
+
+    /**
+     * Reconstruit l'index des noms, après des écritures qui ne sont pas passées par ce DAO
+     */
+    public void rebuildNameIndex() {
+        timed("rebuildNameIndex", () -> NAME_INDEX.rebuild(this::loadNames));
+    }
+
+    /**
+     * Les statistiques de notes du restaurant sont supprimées dans la transaction qui le supprime
+     */
+    @Override
+    protected void beforeDelete(Restaurant restaurant) {
+        statsDao.deleteByRestaurant(restaurant.getId());
+    }
+
+    @Override
+    protected void afterSave(Restaurant restaurant) {
+        NAME_INDEX.put(restaurant.getId(), restaurant.getName());
+    }
+
+    @Override
+    protected void afterDelete(Integer id) {
+        NAME_INDEX.remove(id);
+    }
+
+    private List<Integer> searchIds(String name) {
+        buildNameIndex();
+        return NAME_INDEX.search(name);
+    }
+
+    private Map<Integer, String> loadNames() {
+        Map<Integer, String> names = new HashMap<>();
+        for (Object[] row : getEntityManager()
+                .createNamedQuery("Restaurant.findIdsAndNames", Object[].class)
+                .getResultList()) {
+            names.put((Integer) row[0], (String) row[1]);
+        }
+        return names;
+    }
+
+    /**
+     * Recherche une tranche d'IDs dans l'index des noms. Le curseur porte la clé de classement et l'ID
+     * du dernier résultat : la tranche suivante reprend strictement après eux, sans rechercher la position
+     * du curseur dans la liste des résultats, et reste juste si ce restaurant a été supprimé entre-temps.
+     * @throws IllegalArgumentException si le curseur ne provient pas d'une recherche par nom
+     */
+    private Slice<Integer> searchSlice(String name, KeysetCursor after, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("La taille d'une tranche doit être positive : " + size);
+        }
+        buildNameIndex();
+        List<TrigramIndex.Hit> hits = after == null ? NAME_INDEX.search(name, null, null, size + 1)
+                : NAME_INDEX.search(name, after.key(), after.id(), size + 1);
+        List<Integer> content = new ArrayList<>(Math.min(size, hits.size()));
+        for (TrigramIndex.Hit hit : hits.subList(0, Math.min(size, hits.size()))) {
+            content.add(hit.id());
+        }
+        TrigramIndex.Hit last = hits.size() > size ? hits.get(size - 1) : null;
+        return new Slice<>(content, last == null ? null : new KeysetCursor(last.sortKey(), last.id()));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,343 @@
+package ch.hearc.ig.guideresto.persistence.dao;
+
+import ch.hearc.ig.guideresto.business.CompleteEvaluation;
+import ch.hearc.ig.guideresto.business.Grade;
+import ch.hearc.ig.guideresto.business.RestaurantStats;
+import ch.hearc.ig.guideresto.monitoring.DaoOperationEvent;
+import ch.hearc.ig.guideresto.monitoring.Monitoring;
+import ch.hearc.ig.guideresto.persistence.jpa.JpaUtils;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.query.NativeQuery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Data Access Object pour les statistiques de notes par restaurant et par critère (RESTAURANT_STATS).
+ *
+ * Les statistiques sont maintenues dans la transaction qui écrit les notes : l'insertion, la modification et
+ * la suppression d'évaluations complètes ({@link EvaluationDao}) et la suppression de restaurants ({@link RestaurantDao}).
+ * Ces transactions verrouillent d'abord la ligne RESTAURANTS des restaurants concernés (SELECT ... FOR UPDATE,
+ * par ID croissant) : deux écritures sur un même restaurant et la reconstruction ({@link #rebuild()}) se succèdent
+ * au lieu de se croiser, et la création d'une ligne de statistiques ne peut pas être faite deux fois.
+ *
+ * Les notes écrites sans passer par ces DAO (import en masse, SQL direct) ne sont prises en compte
+ * qu'après une reconstruction.
+ *
+ * Cette classe ne dérive pas d'{@link AbstractDao} : la clé de la table est composée (restaurant, critère).
+ */
+public class RestaurantStatsDao {
+
+    private static final Logger logger = LogManager.getLogger(RestaurantStatsDao.class);
+
+    /**
+     * Largeur des tranches d'IDs de restaurants reconstruites chacune dans sa transaction,
+     * modifiable avec la propriété système guideresto.stats.rebuildChunkSize
+     */
+    private static final int REBUILD_CHUNK_SIZE = Integer.getInteger("guideresto.stats.rebuildChunkSize", 500);
+
+    /**
+     * Nombre de tranches reconstruites en parallèle, modifiable avec la propriété système
+     * guideresto.stats.rebuildThreads (chaque tranche occupe une connexion)
+     */
+    private static final int REBUILD_THREADS = Integer.getInteger("guideresto.stats.rebuildThreads",
+            Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    // Nombre maximal d'éléments d'une clause IN sous Oracle
+    private static final int MAX_IN_LIST_SIZE = 1000;
+
+    private static final String LOCK_RESTAURANTS =
+            "SELECT NUMERO FROM RESTAURANTS WHERE NUMERO IN (:ids) ORDER BY NUMERO FOR UPDATE";
+    private static final String LOCK_RESTAURANT_RANGE =
+            "SELECT NUMERO FROM RESTAURANTS WHERE NUMERO BETWEEN :fromId AND :toId ORDER BY NUMERO FOR UPDATE";
+    private static final String DELETE_RANGE =
+            "DELETE FROM RESTAURANT_STATS WHERE FK_REST BETWEEN :fromId AND :toId";
+    private static final String INSERT_RANGE = "INSERT INTO RESTAURANT_STATS "
+            + "(FK_REST, FK_CRIT, NB_NOTES, SOMME_NOTES, SOMME_CARRES) "
+            + "SELECT c.FK_REST, n.FK_CRIT, COUNT(*), SUM(n.NOTE), SUM(n.NOTE * n.NOTE) "
+            + "FROM NOTES n JOIN COMMENTAIRES c ON c.NUMERO = n.FK_COMM "
+            + "WHERE c.FK_REST BETWEEN :fromId AND :toId "
+            + "GROUP BY c.FK_REST, n.FK_CRIT";
+    private static final String SELECT_EVALUATION_RESTAURANT =
+            "SELECT FK_REST FROM COMMENTAIRES WHERE NUMERO = :evaluationId";
+
+    /**
+     * Lit les statistiques d'un restaurant pour un critère (une lecture par clé primaire)
+     * @param restaurantId L'ID du restaurant
+     * @param criteriaId L'ID du critère
+     * @return Les statistiques, ou null si le restaurant n'a aucune note pour ce critère
+     */
+    public RestaurantStats find(Integer restaurantId, Integer criteriaId) {
+        return timed("find", restaurantId, () -> getEntityManager()
+                .find(RestaurantStats.class, new RestaurantStats.Key(restaurantId, criteriaId)));
+    }
+
+    /**
+     * Lit les statistiques d'un restaurant pour tous ses critères notés (parcours du début de la clé primaire)
+     * @param restaurantId L'ID du restaurant
+     * @return Les statistiques par critère
+     */
+    public List<RestaurantStats> findByRestaurant(Integer restaurantId) {
+        return timed("findByRestaurant", restaurantId, () -> getEntityManager()
+                .createNamedQuery("RestaurantStats.findByRestaurant", RestaurantStats.class)
+                .setParameter("restaurantId", restaurantId)
+                .getResultList());
+    }
+
+    /**
+     * Ajoute les notes d'évaluations complètes aux statistiques, dans la transaction en cours
+     * @param evaluations Les évaluations insérées
+     */
+    void addGrades(Collection<? extends CompleteEvaluation> evaluations) {
+        timed("addGrades", () -> apply(evaluations, 1));
+    }
+
+    /**
+     * Retire les notes d'évaluations complètes des statistiques, dans la transaction en cours
+     * @param evaluations Les évaluations supprimées, gérées par l'EntityManager de la transaction
+     */
+    void removeGrades(Collection<? extends CompleteEvaluation> evaluations) {
+        timed("removeGrades", () -> apply(evaluations, -1));
+    }
+
+    /**
+     * Modifie une évaluation complète existante puis recalcule à partir des notes les statistiques de son
+     * restaurant, et de son ancien restaurant si elle en change, dans la transaction en cours. Le recalcul
+     * suit les notes effectivement enregistrées (notes modifiées, ajoutées ou retirées), même si l'appelant
+     * les a déjà envoyées en base ; seul l'ancien restaurant est lu avant l'écriture.
+     * @param evaluationId L'ID de l'évaluation modifiée
+     * @param restaurantId L'ID de son restaurant après la modification
+     * @param update L'écriture de l'évaluation (merge), exécutée une fois les restaurants verrouillés
+     * @return Le résultat de l'écriture
+     */
+    <R> R replaceGrades(Integer evaluationId, Integer restaurantId, Supplier<R> update) {
+        return timed("replaceGrades", restaurantId, () -> {
+            EntityManager entityManager = getEntityManager();
+            TreeSet<Integer> restaurantIds = new TreeSet<>();
+            restaurantIds.add(restaurantId);
+            // Lu sans vider le contexte de persistance, pour trouver le restaurant avant la modification
+            for (Object stored : entityManager.createNativeQuery(SELECT_EVALUATION_RESTAURANT)
+                    .setParameter("evaluationId", evaluationId)
+                    .setFlushMode(FlushModeType.COMMIT)
+                    .getResultList()) {
+                restaurantIds.add(((Number) stored).intValue());
+            }
+            lockRestaurants(restaurantIds);
+
+            R result = update.get();
+            entityManager.flush();
+            for (Integer id : restaurantIds) {
+                statsUpdate(entityManager, DELETE_RANGE, id, id);
+                statsUpdate(entityManager, INSERT_RANGE, id, id);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Supprime les statistiques d'un restaurant, dans la transaction qui le supprime
+     * @param restaurantId L'ID du restaurant
+     */
+    void deleteByRestaurant(Integer restaurantId) {
+        timed("deleteByRestaurant", restaurantId, () -> {
+            lockRestaurants(List.of(restaurantId));
+            getEntityManager().createNamedQuery("RestaurantStats.deleteByRestaurant")
+                    .setParameter("restaurantId", restaurantId)
+                    .executeUpdate();
+        });
+    }
+
+    /**
+     * Recalcule toute la table à partir des notes. Les restaurants sont traités par tranches d'IDs
+     * (guideresto.stats.rebuildChunkSize), chacune dans sa propre transaction et plusieurs en parallèle
+     * (guideresto.stats.rebuildThreads) : une tranche verrouille ses restaurants, efface leurs statistiques
+     * et les recalcule en une instruction INSERT ... SELECT ... GROUP BY. Les écritures de notes concurrentes
+     * attendent la fin de la tranche de leur restaurant ; l'application peut rester en service.
+     * @return Le nombre de lignes de statistiques écrites
+     */
+    public long rebuild() {
+        return timed("rebuild", () -> {
+            long start = System.nanoTime();
+            Object[] bounds = JpaUtils.inUnitOfWork(() -> (Object[]) getEntityManager()
+                    .createNativeQuery("SELECT MIN(NUMERO), MAX(NUMERO) FROM RESTAURANTS")
+                    .getSingleResult());
+            if (bounds[0] == null) {
+                return 0L;
+            }
+            int minId = ((Number) bounds[0]).intValue();
+            int maxId = ((Number) bounds[1]).intValue();
+
+            List<Future<Integer>> chunks = new ArrayList<>();
+            // Un thread virtuel par tranche ; le sémaphore borne le nombre de connexions occupées
+            Semaphore permits = new Semaphore(Math.max(1, REBUILD_THREADS));
+            ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+            try {
+                for (long from = minId; from <= maxId; from += REBUILD_CHUNK_SIZE) {
+                    int fromId = (int) from;
+                    int toId = (int) Math.min(from + REBUILD_CHUNK_SIZE - 1, maxId);
+                    chunks.add(executor.submit(() -> {
+                        permits.acquire();
+                        try {
+                            return JpaUtils.inUnitOfWork(() -> rebuildRange(fromId, toId));
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                }
+                long rows = 0;
+                for (Future<Integer> chunk : chunks) {
+                    rows += chunk.get();
+                }
+                logger.info("Statistiques des restaurants reconstruites : {} lignes, {} tranches, en {} ms",
+                        rows, chunks.size(), (System.nanoTime() - start) / 1_000_000);
+                return rows;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Reconstruction des statistiques interrompue", ex);
+            } catch (ExecutionException ex) {
+                throw ex.getCause() instanceof RuntimeException cause ? cause
+                        : new IllegalStateException("Reconstruction des statistiques impossible", ex.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        });
+    }
+
+    private int rebuildRange(int fromId, int toId) {
+        return JpaUtils.callInTransaction(entityManager -> {
+            entityManager.createNativeQuery(LOCK_RESTAURANT_RANGE)
+                    .setParameter("fromId", fromId)
+                    .setParameter("toId", toId)
+                    .getResultList();
+            statsUpdate(entityManager, DELETE_RANGE, fromId, toId);
+            return statsUpdate(entityManager, INSERT_RANGE, fromId, toId);
+        });
+    }
+
+    private static int statsUpdate(EntityManager entityManager, String sql, int fromId, int toId) {
+        // Seules les statistiques sont modifiées : le reste du cache de second niveau est conservé
+        return entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(RestaurantStats.class)
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .executeUpdate();
+    }
+
+    private void apply(Collection<? extends CompleteEvaluation> evaluations, int sign) {
+        TreeSet<Integer> restaurantIds = new TreeSet<>();
+        for (CompleteEvaluation evaluation : evaluations) {
+            restaurantIds.add(evaluation.getRestaurant().getId());
+        }
+        if (restaurantIds.isEmpty()) {
+            return;
+        }
+        // Verrouiller avant de lire les notes et les statistiques
+        lockRestaurants(restaurantIds);
+
+        // Nombre, somme et somme des carrés par restaurant et par critère
+        Map<RestaurantStats.Key, long[]> deltas = new LinkedHashMap<>();
+        for (CompleteEvaluation evaluation : evaluations) {
+            Integer restaurantId = evaluation.getRestaurant().getId();
+            for (Grade grade : evaluation.getGrades()) {
+                long value = grade.getGrade();
+                long[] delta = deltas.computeIfAbsent(
+                        new RestaurantStats.Key(restaurantId, grade.getCriteria().getId()), key -> new long[3]);
+                delta[0] += sign;
+                delta[1] += sign * value;
+                delta[2] += sign * value * value;
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        EntityManager entityManager = getEntityManager();
+        Map<RestaurantStats.Key, RestaurantStats> current = findByRestaurants(entityManager, restaurantIds);
+        deltas.forEach((key, delta) -> {
+            RestaurantStats stats = current.get(key);
+            if (stats == null) {
+                if (sign < 0) {
+                    logger.warn("Statistiques absentes pour {} : reconstruction nécessaire", keyOf(key));
+                    return;
+                }
+                stats = new RestaurantStats(key.getRestaurantId(), key.getCriteriaId());
+                entityManager.persist(stats);
+            }
+            stats.add(delta[0], delta[1], delta[2]);
+            if (stats.getGradeCount() <= 0) {
+                if (stats.getGradeCount() < 0) {
+                    logger.warn("Statistiques incohérentes pour {} : reconstruction nécessaire", keyOf(key));
+                }
+                entityManager.remove(stats);
+            }
+        });
+    }
+
+    private Map<RestaurantStats.Key, RestaurantStats> findByRestaurants(EntityManager entityManager,
+                                                                        Collection<Integer> restaurantIds) {
+        List<Integer> ids = new ArrayList<>(restaurantIds);
+        Map<RestaurantStats.Key, RestaurantStats> byKey = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MAX_IN_LIST_SIZE) {
+            for (RestaurantStats stats : entityManager
+                    .createNamedQuery("RestaurantStats.findByRestaurants", RestaurantStats.class)
+                    .setParameter("restaurantIds", ids.subList(from, Math.min(from + MAX_IN_LIST_SIZE, ids.size())))
+                    .getResultList()) {
+                byKey.put(new RestaurantStats.Key(stats.getRestaurantId(), stats.getCriteriaId()), stats);
+            }
+        }
+        return byKey;
+    }
+
+    /**
+     * Verrouille les lignes RESTAURANTS, par ID croissant pour que deux transactions ne s'attendent pas mutuellement
+     */
+    private void lockRestaurants(Collection<Integer> restaurantIds) {
+        List<Integer> ids = new ArrayList<>(new TreeSet<>(restaurantIds));
+        for (int from = 0; from < ids.size(); from += MAX_IN_LIST_SIZE) {
+            getEntityManager().createNativeQuery(LOCK_RESTAURANTS)
+                    .setParameter("ids", ids.subList(from, Math.min(from + MAX_IN_LIST_SIZE, ids.size())))
+                    .getResultList();
+        }
+    }
+
+    private static String keyOf(RestaurantStats.Key key) {
+        return "restaurant " + key.getRestaurantId() + ", critère " + key.getCriteriaId();
+    }
+
+    private EntityManager getEntityManager() {
+        return JpaUtils.getEntityManager();
+    }
+
+    private static <R> R timed(String operation, Supplier<R> call) {
+        return timed(operation, null, call);
+    }
+
+    private static <R> R timed(String operation, Integer restaurantId, Supplier<R> call) {
+        return Monitoring.time("RestaurantStatsDao." + operation,
+                new DaoOperationEvent(RestaurantStats.class, restaurantId), call);
+    }
+
+    private static void timed(String operation, Runnable call) {
+        timed(operation, null, call);
+    }
+
+    private static void timed(String operation, Integer restaurantId, Runnable call) {
+        Monitoring.time("RestaurantStatsDao." + operation,
+                new DaoOperationEvent(RestaurantStats.class, restaurantId), call);
+    }
+}
@@ -20,9 +20,32 @@ public class RestaurantTypeDao extends AbstractDao<RestaurantType> {
      */
     @Override
     public List<RestaurantType> findAll() {
-        TypedQuery<RestaurantType> query = getEntityManager()
-                .createNamedQuery("RestaurantType.findAll", RestaurantType.class);
-        return query.getResultList();
+        return timed("findAll", () -> {
+            TypedQuery<RestaurantType> query = getEntityManager()
+                    .createNamedQuery("RestaurantType.findAll", RestaurantType.class);
+            return query.getResultList();
+        });
+    }
+
+    /**
+     * Récupère une tranche de types de restaurant, triés par libellé
+     * @param after Le curseur de la tranche précédente, ou null pour la première tranche
+     * @param size Le nombre maximal de types
+     * @return La tranche de types
+     */
+    @Override
+    public Slice<RestaurantType> findSlice(KeysetCursor after, int size) {
+        return timed("findSlice", () -> {
+            TypedQuery<RestaurantType> query;
+            if (after == null) {
+                query = getEntityManager().createNamedQuery("RestaurantType.findAll", RestaurantType.class);
+            } else {
+                query = getEntityManager().createNamedQuery("RestaurantType.findAllAfter", RestaurantType.class)
+                        .setParameter("label", after.key())
+                        .setParameter("id", after.id());
+            }
+            return toSlice(query, size, type -> new KeysetCursor(type.getLabel(), type.getId()));
+        });
     }
 
     /**
@@ -31,11 +54,13 @@ public class RestaurantTypeDao extends AbstractDao<RestaurantType> {
      * @return Liste des types correspondants
      */
     public List<RestaurantType> findByLabel(String label) {
-        TypedQuery<RestaurantType> query = getEntityManager()
-                .createNamedQuery("RestaurantType.findByLabel", RestaurantType.class)
-                .setParameter("label", "%" + label + "%");
+        return timed("findByLabel", () -> {
+            TypedQuery<RestaurantType> query = getEntityManager()
+                    .createNamedQuery("RestaurantType.findByLabel", RestaurantType.class)
+                    .setParameter("label", "%" + label + "%");
 
-        return query.getResultList();
+            return query.getResultList();
+        });
     }
 
     /**
@@ -44,15 +69,17 @@ public class RestaurantTypeDao extends AbstractDao<RestaurantType> {
      * @return Le type trouvé, ou null si non trouvé
      */
     public RestaurantType findByExactLabel(String label) {
-        List<RestaurantType> types = findByLabel(label);
+        return timed("findByExactLabel", () -> {
+            List<RestaurantType> types = findByLabel(label);
 
-        // Filtre pour avoir le match exact
-        for (RestaurantType type : types) {
-            if (type.getLabel().equalsIgnoreCase(label)) {
-                return type;
+            // Filtre pour avoir le match exact
+            for (RestaurantType type : types) {
+                if (type.getLabel().equalsIgnoreCase(label)) {
+                    return type;
+                }
             }
-        }
 
-        return null;
+            return null;
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package ch.hearc.ig.guideresto.persistence.dao;
+
+import java.util.List;
+
+/**
+ * Tranche de résultats obtenue par pagination par clé
+ *
+ * @param content Les éléments de la tranche, dans l'ordre de tri
+ * @param nextCursor Le curseur à passer pour obtenir la tranche suivante, ou null s'il n'y en a pas
+ * @param <T> Le type des éléments
+ */
+public record Slice<T>(List<T> content, KeysetCursor nextCursor) {
+
+    public Slice {
+        content = List.copyOf(content);
+    }
+
+    /**
+     * @return true s'il existe une tranche suivante
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean isEmpty() {
+        return content.isEmpty();
+    }
+}
@@ -0,0 +1,114 @@
+package ch.hearc.ig.guideresto.persistence.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecteur de fichiers CSV en UTF-8, séparés par des points-virgules, dont la première ligne contient
+ * les noms des colonnes. Les valeurs peuvent être entourées de guillemets (un guillemet dans une valeur
+ * est doublé) ; une valeur entre guillemets peut contenir des points-virgules et des retours à la ligne.
+ */
+public class CsvRecordReader implements RecordReader {
+
+    private static final char SEPARATOR = ';';
+    private static final char QUOTE = '"';
+
+    private final BufferedReader reader;
+    private final List<String> header;
+    private long position;
+
+    public CsvRecordReader(Path file) throws IOException {
+        this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        List<String> columns = readFields();
+        if (columns == null) {
+            throw new IOException("Fichier CSV vide : " + file);
+        }
+        if (!columns.isEmpty() && columns.get(0).startsWith("﻿")) {
+            columns.set(0, columns.get(0).substring(1));
+        }
+        this.header = columns.stream().map(String::trim).toList();
+    }
+
+    @Override
+    public ImportRecord next() throws IOException {
+        List<String> fields;
+        do {
+            fields = readFields();
+            if (fields == null) {
+                return null;
+            }
+        } while (fields.size() == 1 && fields.get(0).isBlank());
+
+        position++;
+        if (fields.size() > header.size()) {
+            throw new IOException("Ligne " + position + " : " + fields.size() + " colonnes pour "
+                    + header.size() + " attendues");
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            values.put(header.get(i), fields.get(i));
+        }
+        return new ImportRecord(position, values);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Lit les champs d'une ligne logique
+     * @return Les champs, ou null à la fin du fichier
+     */
+    private List<String> readFields() throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                line = reader.readLine();
+                if (line == null) {
+                    throw new IOException("Guillemet non fermé en fin de fichier");
+                }
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c == QUOTE && i < line.length() && line.charAt(i) == QUOTE) {
+                    field.append(QUOTE);
+                    i++;
+                } else if (c == QUOTE) {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == QUOTE) {
+                quoted = true;
+            } else if (c == SEPARATOR) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,689 @@
+package ch.hearc.ig.guideresto.persistence.importer;
+
+import ch.hearc.ig.guideresto.business.IpAddresses;
+import ch.hearc.ig.guideresto.persistence.SequenceBlockAllocator;
+import ch.hearc.ig.guideresto.persistence.dao.CityDao;
+import ch.hearc.ig.guideresto.persistence.dao.RestaurantDao;
+import ch.hearc.ig.guideresto.persistence.dao.RestaurantStatsDao;
+import ch.hearc.ig.guideresto.persistence.jpa.JpaUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.jdbc.ReturningWork;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Import en masse de villes, types gastronomiques, restaurants, likes et commentaires (avec leurs notes)
+ * depuis des fichiers CSV ou JSON (voir {@link ImportEntity} pour les noms de fichiers et les colonnes).
+ *
+ * Les références (ville, type, restaurant, critère) sont désignées par leurs clés naturelles et résolues
+ * avec des tables en mémoire chargées une seule fois depuis la base, puis complétées au fil de l'import.
+ * Les lignes sont écrites par lots JDBC sur la connexion d'une {@link StatelessSession} (sans contexte de
+ * persistance), avec des NUMERO réservés par blocs dans les séquences, et validées tous les
+ * {@code guideresto.import.commitInterval} enregistrements (5000 par défaut). Un point de reprise
+ * ({@link ImportCheckpoint}) est écrit dans la transaction de chaque lot : relancer un import interrompu
+ * reprend au premier enregistrement non validé, sans jamais réimporter un lot validé.
+ *
+ * Les villes, types et restaurants déjà présents sont ignorés. Les enregistrements invalides ou dont une
+ * référence est inconnue sont ignorés et comptés dans le bilan. Si la base refuse un lot (valeur trop longue,
+ * contrainte), il est annulé puis réécrit ligne par ligne, chacune sous un point de sauvegarde : seules
+ * les lignes refusées sont ignorées.
+ */
+public class DataImporter {
+
+    private static final Logger logger = LogManager.getLogger(DataImporter.class);
+
+    private static final int DEFAULT_COMMIT_INTERVAL = Integer.getInteger("guideresto.import.commitInterval", 5000);
+    private static final int MAX_LOGGED_REJECTS = 20;
+
+    private static final String INSERT_CITY = "INSERT INTO VILLES (NUMERO, CODE_POSTAL, NOM_VILLE) VALUES (?, ?, ?)";
+    private static final String INSERT_TYPE =
+            "INSERT INTO TYPES_GASTRONOMIQUES (NUMERO, LIBELLE, DESCRIPTION) VALUES (?, ?, ?)";
+    private static final String INSERT_RESTAURANT = "INSERT INTO RESTAURANTS "
+            + "(NUMERO, NOM, ADRESSE, DESCRIPTION, SITE_WEB, FK_TYPE, FK_VILL) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_LIKE =
+            "INSERT INTO LIKES (NUMERO, APPRECIATION, DATE_EVAL, ADRESSE_IP, FK_REST) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_REVIEW = "INSERT INTO COMMENTAIRES "
+            + "(NUMERO, DATE_EVAL, COMMENTAIRE, NOM_UTILISATEUR, FK_REST) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_GRADE = "INSERT INTO NOTES (NUMERO, NOTE, FK_COMM, FK_CRIT) VALUES (?, ?, ?, ?)";
+
+    // Ligne à insérer, avec le numéro de l'enregistrement dont elle provient
+    private interface ImportRow {
+        long position();
+    }
+
+    private record CityRow(long position, String zipCode, String cityName) implements ImportRow {
+    }
+
+    private record TypeRow(long position, String label, String description) implements ImportRow {
+    }
+
+    private record RestaurantRow(long position, String key, String name, String street, String description,
+                                 String website, Integer typeId, Integer cityId) implements ImportRow {
+    }
+
+    private record LikeRow(long position, Integer restaurantId, boolean like, LocalDate date, String ipAddress)
+            implements ImportRow {
+    }
+
+    private record ReviewRow(long position, Integer restaurantId, LocalDate date, String username, String comment,
+                             Map<Integer, Integer> gradesByCriteriaId) implements ImportRow {
+    }
+
+    /**
+     * Écriture ligne par ligne d'un lot refusé : les lignes refusées par la base sont comptées dans le bilan
+     */
+    private record RowIsolation(Path file, ImportReport.Phase phase) {
+
+        void reject(ImportRow row, SQLException ex) {
+            DataImporter.reject(file, row.position(), ex.getMessage(), phase);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Binder<T> {
+        void bind(PreparedStatement stmt, long id, T row) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface SqlAction {
+        void run() throws SQLException;
+    }
+
+    /**
+     * Écriture d'un lot déjà validé et résolu, rejouable dans une nouvelle transaction
+     */
+    @FunctionalInterface
+    private interface ChunkWriter {
+        /**
+         * @param isolation null pour écrire par lots JDBC, sinon l'écriture ligne par ligne
+         * @return Le nombre de lignes insérées
+         */
+        int write(Connection connection, RowIsolation isolation) throws SQLException;
+    }
+
+    private final SessionFactory sessionFactory;
+    private final int commitInterval;
+    private final int batchSize;
+
+    // Clés naturelles (en minuscules) → NUMERO
+    private final Map<String, Integer> cityIds = new HashMap<>();
+    private final Map<String, Integer> typeIds = new HashMap<>();
+    private final Map<String, Integer> criteriaIds = new HashMap<>();
+    private final Map<String, Integer> restaurantIds = new HashMap<>();
+    // IDs attribués par le lot en cours, ajoutés aux tables ci-dessus une fois le lot validé
+    private final List<Runnable> onCommit = new ArrayList<>();
+
+    public DataImporter() {
+        this(DEFAULT_COMMIT_INTERVAL);
+    }
+
+    /**
+     * @param commitInterval Nombre d'enregistrements validés par transaction
+     */
+    public DataImporter(int commitInterval) {
+        if (commitInterval < 1) {
+            throw new IllegalArgumentException("Intervalle de validation invalide : " + commitInterval);
+        }
+        this.sessionFactory = JpaUtils.getEntityManagerFactory().unwrap(SessionFactory.class);
+        this.commitInterval = commitInterval;
+        this.batchSize = JpaUtils.getJdbcBatchSize();
+    }
+
+    /**
+     * Importe les fichiers d'un répertoire, dans l'ordre de {@link ImportEntity}, en reprenant au dernier
+     * point de reprise s'il y en a un. Une fois l'import terminé, le point de reprise est supprimé, les caches
+     * de second niveau sont vidés, les index de recherche par nom sont reconstruits et, si des commentaires
+     * ont été importés, les statistiques de notes des restaurants aussi ({@link RestaurantStatsDao#rebuild()}).
+     * @param directory Le répertoire contenant les fichiers (villes.csv, restaurants.json, ...)
+     * @return Le bilan de l'import
+     * @throws ImportException si un fichier est illisible ou si une écriture échoue
+     */
+    public ImportReport importDirectory(Path directory) {
+        ImportCheckpoint checkpoint = new ImportCheckpoint(directory);
+        ImportReport report = new ImportReport();
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.doWork(this::loadLookups);
+            for (ImportEntity entity : ImportEntity.values()) {
+                Path file = findFile(directory, entity);
+                if (file != null) {
+                    importFile(session, entity, file, checkpoint, report.phase(entity));
+                }
+            }
+            try {
+                inTransaction(session, connection -> {
+                    checkpoint.delete(connection);
+                    return 0;
+                });
+            } catch (RuntimeException ex) {
+                logger.warn("Suppression du point de reprise impossible : {}", ex.getMessage());
+            }
+        } catch (IOException ex) {
+            throw new ImportException("Erreur de lecture lors de l'import de " + directory, ex);
+        }
+
+        refreshCaches();
+        ImportReport.Phase reviews = report.phase(ImportEntity.REVIEWS);
+        if (reviews.getInserted() + reviews.getResumed() > 0) {
+            // Les notes sont écrites par lots JDBC, hors des DAO qui tiennent les statistiques à jour
+            new RestaurantStatsDao().rebuild();
+        }
+        logger.info(report);
+        return report;
+    }
+
+    /**
+     * Supprime le point de reprise d'un répertoire : le prochain import recommence au début des fichiers
+     * @param directory Le répertoire des fichiers importés
+     */
+    public void discardCheckpoint(Path directory) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            inTransaction(session, connection -> {
+                new ImportCheckpoint(directory).delete(connection);
+                return 0;
+            });
+        }
+    }
+
+    private void importFile(StatelessSession session, ImportEntity entity, Path file, ImportCheckpoint checkpoint,
+                            ImportReport.Phase phase) throws IOException {
+        long size = Files.size(file);
+        long committed = session.doReturningWork(connection -> checkpoint.getCommitted(connection, file, size));
+        phase.resumed(committed);
+        if (committed > 0) {
+            logger.info("Import {} : reprise après {} enregistrements", file.getFileName(), committed);
+        }
+
+        long start = System.nanoTime();
+        try (RecordReader reader = RecordReader.open(file)) {
+            for (long i = 0; i < committed; i++) {
+                if (reader.next() == null) {
+                    break;
+                }
+            }
+
+            List<ImportRecord> chunk = new ArrayList<>(commitInterval);
+            ImportRecord record;
+            while ((record = reader.next()) != null) {
+                phase.read();
+                chunk.add(record);
+                if (chunk.size() == commitInterval) {
+                    committed += writeChunk(session, entity, file, size, committed, chunk, checkpoint, phase);
+                    phase.elapsed(System.nanoTime() - start);
+                    start = System.nanoTime();
+                    logger.info("Import {} : {} enregistrements validés ({} enr./s)",
+                            file.getFileName(), committed, Math.round(phase.getThroughput()));
+                }
+            }
+            if (!chunk.isEmpty()) {
+                committed += writeChunk(session, entity, file, size, committed, chunk, checkpoint, phase);
+            }
+        } finally {
+            phase.elapsed(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Écrit un lot d'enregistrements et le point de reprise qui le suit dans une transaction.
+     * Si la base refuse le lot, il est réécrit ligne par ligne dans une nouvelle transaction.
+     * @param committed Le nombre d'enregistrements du fichier validés avant ce lot
+     * @return Le nombre d'enregistrements du lot (validés ou ignorés)
+     */
+    private int writeChunk(StatelessSession session, ImportEntity entity, Path file, long size, long committed,
+                           List<ImportRecord> chunk, ImportCheckpoint checkpoint, ImportReport.Phase phase) {
+        ChunkWriter writer = switch (entity) {
+            case CITIES -> prepareCities(file, chunk, phase);
+            case TYPES -> prepareTypes(file, chunk, phase);
+            case RESTAURANTS -> prepareRestaurants(file, chunk, phase);
+            case LIKES -> prepareLikes(file, chunk, phase);
+            case REVIEWS -> prepareReviews(file, chunk, phase);
+        };
+        long records = committed + chunk.size();
+        int inserted;
+        try {
+            inserted = writeChunk(session, writer, null, file, size, records, checkpoint);
+        } catch (RuntimeException ex) {
+            logger.warn("Import {} : lot refusé après l'enregistrement {} ({}), nouvel essai ligne par ligne",
+                    file.getFileName(), chunk.get(0).position(), ex.getMessage());
+            try {
+                inserted = writeChunk(session, writer, new RowIsolation(file, phase), file, size, records, checkpoint);
+            } catch (RuntimeException retry) {
+                retry.addSuppressed(ex);
+                throw new ImportException("Échec de l'import de " + file.getFileName() + " après l'enregistrement "
+                        + chunk.get(0).position() + " (les lots précédents sont validés)", retry);
+            }
+        }
+        phase.inserted(inserted);
+        int count = chunk.size();
+        chunk.clear();
+        return count;
+    }
+
+    private int writeChunk(StatelessSession session, ChunkWriter writer, RowIsolation isolation, Path file,
+                           long size, long records, ImportCheckpoint checkpoint) {
+        try {
+            int inserted = inTransaction(session, connection -> {
+                int count = writer.write(connection, isolation);
+                checkpoint.save(connection, file, size, records);
+                return count;
+            });
+            onCommit.forEach(Runnable::run);
+            return inserted;
+        } finally {
+            onCommit.clear();
+        }
+    }
+
+    private static int inTransaction(StatelessSession session, ReturningWork<Integer> work) {
+        Transaction transaction = session.beginTransaction();
+        try {
+            int result = session.doReturningWork(work);
+            transaction.commit();
+            return result;
+        } catch (RuntimeException ex) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw ex;
+        }
+    }
+
+    private ChunkWriter prepareCities(Path file, List<ImportRecord> chunk, ImportReport.Phase phase) {
+        Map<String, CityRow> rows = new LinkedHashMap<>();
+        for (ImportRecord record : chunk) {
+            try {
+                CityRow row = new CityRow(record.position(), record.require("zipCode"), record.require("cityName"));
+                String key = key(row.zipCode(), row.cityName());
+                if (cityIds.containsKey(key) || rows.putIfAbsent(key, row) != null) {
+                    phase.skipped();
+                }
+            } catch (IllegalArgumentException ex) {
+                reject(file, record.position(), ex.getMessage(), phase);
+            }
+        }
+        return (connection, isolation) -> {
+            long[] ids = SequenceBlockAllocator.reserve(connection, "SEQ_VILLES", rows.size());
+            Map<String, Integer> newIds = new HashMap<>();
+            int inserted = insertBatch(connection, INSERT_CITY, new ArrayList<>(rows.values()), ids, (stmt, id, row) -> {
+                stmt.setLong(1, id);
+                stmt.setString(2, row.zipCode());
+                stmt.setString(3, row.cityName());
+            }, (row, id) -> newIds.put(key(row.zipCode(), row.cityName()), Math.toIntExact(id)), isolation);
+            onCommit.add(() -> cityIds.putAll(newIds));
+            return inserted;
+        };
+    }
+
+    private ChunkWriter prepareTypes(Path file, List<ImportRecord> chunk, ImportReport.Phase phase) {
+        Map<String, TypeRow> rows = new LinkedHashMap<>();
+        for (ImportRecord record : chunk) {
+            try {
+                String label = record.require("label");
+                String description = record.get("description");
+                String key = key(label);
+                TypeRow row = new TypeRow(record.position(), label, description == null ? label : description);
+                if (typeIds.containsKey(key) || rows.putIfAbsent(key, row) != null) {
+                    phase.skipped();
+                }
+            } catch (IllegalArgumentException ex) {
+                reject(file, record.position(), ex.getMessage(), phase);
+            }
+        }
+        return (connection, isolation) -> {
+            long[] ids = SequenceBlockAllocator.reserve(connection, "SEQ_TYPES_GASTRONOMIQUES", rows.size());
+            Map<String, Integer> newIds = new HashMap<>();
+            int inserted = insertBatch(connection, INSERT_TYPE, new ArrayList<>(rows.values()), ids, (stmt, id, row) -> {
+                stmt.setLong(1, id);
+                stmt.setString(2, row.label());
+                stmt.setString(3, row.description());
+            }, (row, id) -> newIds.put(key(row.label()), Math.toIntExact(id)), isolation);
+            onCommit.add(() -> typeIds.putAll(newIds));
+            return inserted;
+        };
+    }
+
+    private ChunkWriter prepareRestaurants(Path file, List<ImportRecord> chunk, ImportReport.Phase phase) {
+        Map<String, RestaurantRow> rows = new LinkedHashMap<>();
+        for (ImportRecord record : chunk) {
+            try {
+                String name = record.require("name");
+                String zipCode = record.require("zipCode");
+                String cityName = record.require("cityName");
+                Integer cityId = cityIds.get(key(zipCode, cityName));
+                Integer typeId = typeIds.get(key(record.require("type")));
+                if (cityId == null || typeId == null) {
+                    reject(file, record.position(), cityId == null ? "ville inconnue" : "type inconnu", phase);
+                    continue;
+                }
+                String key = key(name, zipCode, cityName);
+                RestaurantRow row = new RestaurantRow(record.position(), key, name, record.require("street"),
+                        record.get("description"), record.get("website"), typeId, cityId);
+                if (restaurantIds.containsKey(key) || rows.putIfAbsent(key, row) != null) {
+                    phase.skipped();
+                }
+            } catch (IllegalArgumentException ex) {
+                reject(file, record.position(), ex.getMessage(), phase);
+            }
+        }
+        return (connection, isolation) -> {
+            long[] ids = SequenceBlockAllocator.reserve(connection, "SEQ_RESTAURANTS", rows.size());
+            Map<String, Integer> newIds = new HashMap<>();
+            int inserted = insertBatch(connection, INSERT_RESTAURANT, new ArrayList<>(rows.values()), ids,
+                    (stmt, id, row) -> {
+                        stmt.setLong(1, id);
+                        stmt.setString(2, row.name());
+                        stmt.setString(3, row.street());
+                        stmt.setString(4, row.description());
+                        stmt.setString(5, row.website());
+                        stmt.setInt(6, row.typeId());
+                        stmt.setInt(7, row.cityId());
+                    }, (row, id) -> newIds.put(row.key(), Math.toIntExact(id)), isolation);
+            onCommit.add(() -> restaurantIds.putAll(newIds));
+            return inserted;
+        };
+    }
+
+    private ChunkWriter prepareLikes(Path file, List<ImportRecord> chunk, ImportReport.Phase phase) {
+        LocalDate today = LocalDate.now();
+        List<LikeRow> rows = new ArrayList<>(chunk.size());
+        for (ImportRecord record : chunk) {
+            try {
+                Integer restaurantId = resolveRestaurant(record);
+                if (restaurantId == null) {
+                    reject(file, record.position(), "restaurant inconnu", phase);
+                    continue;
+                }
+                String ipAddress = record.get("ip");
+                rows.add(new LikeRow(record.position(), restaurantId, record.requireBoolean("like"),
+                        record.getDate("date", today),
+                        ipAddress == null ? IpAddresses.UNAVAILABLE : IpAddresses.canonical(ipAddress)));
+            } catch (IllegalArgumentException ex) {
+                reject(file, record.position(), ex.getMessage(), phase);
+            }
+        }
+        return (connection, isolation) -> {
+            long[] ids = SequenceBlockAllocator.reserve(connection, "SEQ_EVAL", rows.size());
+            return insertBatch(connection, INSERT_LIKE, rows, ids, (stmt, id, row) -> {
+                stmt.setLong(1, id);
+                stmt.setString(2, row.like() ? "T" : "F");
+                stmt.setDate(3, Date.valueOf(row.date()));
+                stmt.setString(4, row.ipAddress());
+                stmt.setInt(5, row.restaurantId());
+            }, (row, id) -> {
+            }, isolation);
+        };
+    }
+
+    private ChunkWriter prepareReviews(Path file, List<ImportRecord> chunk, ImportReport.Phase phase) {
+        LocalDate today = LocalDate.now();
+        List<ReviewRow> rows = new ArrayList<>(chunk.size());
+        int gradeCount = 0;
+        for (ImportRecord record : chunk) {
+            try {
+                Integer restaurantId = resolveRestaurant(record);
+                if (restaurantId == null) {
+                    reject(file, record.position(), "restaurant inconnu", phase);
+                    continue;
+                }
+                Map<Integer, Integer> grades = resolveGrades(record.getGrades("grades"));
+                rows.add(new ReviewRow(record.position(), restaurantId, record.getDate("date", today),
+                        record.require("username"), record.require("comment"), grades));
+                gradeCount += grades.size();
+            } catch (IllegalArgumentException ex) {
+                reject(file, record.position(), ex.getMessage(), phase);
+            }
+        }
+        int totalGrades = gradeCount;
+        return (connection, isolation) -> isolation == null
+                ? insertReviews(connection, rows, totalGrades)
+                : insertReviewsOneByOne(connection, rows, totalGrades, isolation);
+    }
+
+    private int insertReviews(Connection connection, List<ReviewRow> rows, int gradeCount) throws SQLException {
+        long[] reviewIds = SequenceBlockAllocator.reserve(connection, "SEQ_EVAL", rows.size());
+        insertBatch(connection, INSERT_REVIEW, rows, reviewIds, DataImporter::bindReview, (row, id) -> {
+        }, null);
+
+        long[] gradeIds = SequenceBlockAllocator.reserve(connection, "SEQ_NOTES", gradeCount);
+        try (PreparedStatement stmt = connection.prepareStatement(INSERT_GRADE)) {
+            int next = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                for (Map.Entry<Integer, Integer> grade : rows.get(i).gradesByCriteriaId().entrySet()) {
+                    bindGrade(stmt, gradeIds[next++], reviewIds[i], grade);
+                    stmt.addBatch();
+                    if (next % batchSize == 0) {
+                        stmt.executeBatch();
+                    }
+                }
+            }
+            stmt.executeBatch();
+        }
+        return rows.size();
+    }
+
+    /**
+     * Chaque commentaire est écrit avec ses notes sous un même point de sauvegarde : un commentaire
+     * refusé n'en laisse aucune
+     */
+    private int insertReviewsOneByOne(Connection connection, List<ReviewRow> rows, int gradeCount,
+                                      RowIsolation isolation) throws SQLException {
+        long[] reviewIds = SequenceBlockAllocator.reserve(connection, "SEQ_EVAL", rows.size());
+        long[] gradeIds = SequenceBlockAllocator.reserve(connection, "SEQ_NOTES", gradeCount);
+        int inserted = 0;
+        try (PreparedStatement reviewStmt = connection.prepareStatement(INSERT_REVIEW);
+             PreparedStatement gradeStmt = connection.prepareStatement(INSERT_GRADE)) {
+            int next = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                ReviewRow row = rows.get(i);
+                long reviewId = reviewIds[i];
+                int firstGrade = next;
+                next += row.gradesByCriteriaId().size();
+                if (isolated(connection, row, isolation, () -> {
+                    bindReview(reviewStmt, reviewId, row);
+                    reviewStmt.executeUpdate();
+                    int gradeIndex = firstGrade;
+                    for (Map.Entry<Integer, Integer> grade : row.gradesByCriteriaId().entrySet()) {
+                        bindGrade(gradeStmt, gradeIds[gradeIndex++], reviewId, grade);
+                        gradeStmt.executeUpdate();
+                    }
+                })) {
+                    inserted++;
+                }
+            }
+        }
+        return inserted;
+    }
+
+    private static void bindReview(PreparedStatement stmt, long id, ReviewRow row) throws SQLException {
+        stmt.setLong(1, id);
+        stmt.setDate(2, Date.valueOf(row.date()));
+        stmt.setString(3, row.comment());
+        stmt.setString(4, row.username());
+        stmt.setInt(5, row.restaurantId());
+    }
+
+    private static void bindGrade(PreparedStatement stmt, long id, long reviewId, Map.Entry<Integer, Integer> grade)
+            throws SQLException {
+        stmt.setLong(1, id);
+        stmt.setInt(2, grade.getValue());
+        stmt.setLong(3, reviewId);
+        stmt.setInt(4, grade.getKey());
+    }
+
+    /**
+     * Insère des lignes par lots JDBC ou, pour un lot refusé, une par une sous un point de sauvegarde
+     * @param inserted Appelé pour chaque ligne insérée, avec son NUMERO
+     * @param isolation null pour écrire par lots JDBC, sinon l'écriture ligne par ligne
+     * @return Le nombre de lignes insérées
+     */
+    private <T extends ImportRow> int insertBatch(Connection connection, String sql, List<T> rows, long[] ids,
+                                                  Binder<T> binder, ObjLongConsumer<T> inserted,
+                                                  RowIsolation isolation) throws SQLException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            if (isolation != null) {
+                int count = 0;
+                for (int i = 0; i < rows.size(); i++) {
+                    T row = rows.get(i);
+                    long id = ids[i];
+                    if (isolated(connection, row, isolation, () -> {
+                        binder.bind(stmt, id, row);
+                        stmt.executeUpdate();
+                    })) {
+                        inserted.accept(row, id);
+                        count++;
+                    }
+                }
+                return count;
+            }
+            for (int i = 0; i < rows.size(); i++) {
+                binder.bind(stmt, ids[i], rows.get(i));
+                stmt.addBatch();
+                if ((i + 1) % batchSize == 0) {
+                    stmt.executeBatch();
+                }
+            }
+            stmt.executeBatch();
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            inserted.accept(rows.get(i), ids[i]);
+        }
+        return rows.size();
+    }
+
+    /**
+     * Exécute les écritures d'une ligne sous un point de sauvegarde, annulé si la base les refuse
+     * @return true si la ligne a été écrite, false si elle a été refusée et comptée dans le bilan
+     */
+    private static boolean isolated(Connection connection, ImportRow row, RowIsolation isolation, SqlAction action)
+            throws SQLException {
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            action.run();
+            return true;
+        } catch (SQLException ex) {
+            connection.rollback(savepoint);
+            isolation.reject(row, ex);
+            return false;
+        }
+    }
+
+    private Integer resolveRestaurant(ImportRecord record) {
+        return restaurantIds.get(key(record.require("restaurant"), record.require("zipCode"),
+                record.require("cityName")));
+    }
+
+    /**
+     * Résout les critères des notes par leur nom et valide les notes (entre 1 et 5, comme dans EvaluationService)
+     */
+    private Map<Integer, Integer> resolveGrades(Map<String, Integer> gradesByName) {
+        Map<Integer, Integer> grades = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> grade : gradesByName.entrySet()) {
+            Integer criteriaId = criteriaIds.get(key(grade.getKey()));
+            if (criteriaId == null) {
+                throw new IllegalArgumentException("Critère inconnu : '" + grade.getKey() + "'");
+            }
+            if (grade.getValue() < 1 || grade.getValue() > 5) {
+                throw new IllegalArgumentException("La note " + grade.getValue() + " n'est pas valide");
+            }
+            grades.put(criteriaId, grade.getValue());
+        }
+        return grades;
+    }
+
+    private static void reject(Path file, long position, String reason, ImportReport.Phase phase) {
+        phase.skipped();
+        if (phase.getSkipped() <= MAX_LOGGED_REJECTS) {
+            logger.warn("Import {} : enregistrement {} ignoré ({})", file.getFileName(), position, reason);
+        } else if (phase.getSkipped() == MAX_LOGGED_REJECTS + 1) {
+            logger.warn("Import {} : autres enregistrements ignorés non détaillés", file.getFileName());
+        }
+    }
+
+    /**
+     * Charge les clés naturelles des références déjà présentes en base
+     */
+    private void loadLookups(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT NUMERO, CODE_POSTAL, NOM_VILLE FROM VILLES")) {
+                while (rs.next()) {
+                    cityIds.putIfAbsent(key(rs.getString(2), rs.getString(3)), rs.getInt(1));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT NUMERO, LIBELLE FROM TYPES_GASTRONOMIQUES")) {
+                while (rs.next()) {
+                    typeIds.putIfAbsent(key(rs.getString(2)), rs.getInt(1));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT NUMERO, NOM FROM CRITERES_EVALUATION")) {
+                while (rs.next()) {
+                    criteriaIds.putIfAbsent(key(rs.getString(2)), rs.getInt(1));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT r.NUMERO, r.NOM, v.CODE_POSTAL, v.NOM_VILLE "
+                    + "FROM RESTAURANTS r JOIN VILLES v ON v.NUMERO = r.FK_VILL ORDER BY r.NUMERO")) {
+                while (rs.next()) {
+                    restaurantIds.putIfAbsent(key(rs.getString(2), rs.getString(3), rs.getString(4)), rs.getInt(1));
+                }
+            }
+        }
+        logger.info("Import : {} villes, {} types, {} critères et {} restaurants déjà présents",
+                cityIds.size(), typeIds.size(), criteriaIds.size(), restaurantIds.size());
+    }
+
+    /**
+     * Les écritures JDBC contournent Hibernate : les caches de second niveau et les index de recherche
+     * ne les voient pas
+     */
+    private void refreshCaches() {
+        JpaUtils.evictAllCaches();
+        JpaUtils.inUnitOfWork(() -> {
+            new RestaurantDao().rebuildNameIndex();
+            new CityDao().rebuildNameIndex();
+        });
+    }
+
+    private static Path findFile(Path directory, ImportEntity entity) {
+        for (String extension : new String[]{".csv", ".json"}) {
+            Path file = directory.resolve(entity.getFileName() + extension);
+            if (Files.isRegularFile(file)) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    private static String key(String... parts) {
+        StringBuilder key = new StringBuilder();
+        for (String part : parts) {
+            if (!key.isEmpty()) {
+                key.append('|');
+            }
+            key.append(part.trim().toLowerCase(Locale.ROOT));
+        }
+        return key.toString();
+    }
+}
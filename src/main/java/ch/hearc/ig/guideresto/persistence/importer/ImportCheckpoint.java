@@ -0,0 +1,87 @@
+package ch.hearc.ig.guideresto.persistence.importer;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Point de reprise d'un import, enregistré dans la table IMPORT_CHECKPOINTS.
+ * Pour chaque fichier du répertoire importé, il retient le nombre d'enregistrements déjà validés en base de
+ * données ainsi que la taille du fichier : après un échec, l'import reprend au premier enregistrement non validé,
+ * sauf si le fichier a changé entre-temps. Le point de reprise est écrit dans la transaction du lot qu'il
+ * valide : un lot validé ne peut jamais être importé une seconde fois.
+ */
+public class ImportCheckpoint {
+
+    private static final String SELECT = "SELECT TAILLE, NB_ENREGISTREMENTS FROM IMPORT_CHECKPOINTS "
+            + "WHERE REPERTOIRE = ? AND FICHIER = ?";
+    private static final String UPDATE = "UPDATE IMPORT_CHECKPOINTS SET TAILLE = ?, NB_ENREGISTREMENTS = ? "
+            + "WHERE REPERTOIRE = ? AND FICHIER = ?";
+    private static final String INSERT = "INSERT INTO IMPORT_CHECKPOINTS "
+            + "(TAILLE, NB_ENREGISTREMENTS, REPERTOIRE, FICHIER) VALUES (?, ?, ?, ?)";
+    private static final String DELETE = "DELETE FROM IMPORT_CHECKPOINTS WHERE REPERTOIRE = ?";
+
+    private final String directory;
+
+    /**
+     * @param directory Le répertoire des fichiers importés
+     */
+    public ImportCheckpoint(Path directory) {
+        this.directory = directory.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * @param connection La connexion de l'import
+     * @param source Le fichier importé
+     * @param size La taille actuelle du fichier
+     * @return Le nombre d'enregistrements déjà validés, 0 si le fichier n'a pas été commencé ou a changé
+     */
+    public long getCommitted(Connection connection, Path source, long size) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(SELECT)) {
+            stmt.setString(1, directory);
+            stmt.setString(2, source.getFileName().toString());
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getLong(1) != size) {
+                    return 0;
+                }
+                return rs.getLong(2);
+            }
+        }
+    }
+
+    /**
+     * Enregistre le nombre d'enregistrements validés pour un fichier, dans la transaction en cours
+     * @param connection La connexion de la transaction du lot
+     * @param source Le fichier importé
+     * @param size La taille du fichier
+     * @param records Le nombre d'enregistrements validés depuis le début du fichier, lot en cours compris
+     */
+    public void save(Connection connection, Path source, long size, long records) throws SQLException {
+        if (write(connection, UPDATE, source, size, records) == 0) {
+            write(connection, INSERT, source, size, records);
+        }
+    }
+
+    /**
+     * Supprime le point de reprise du répertoire, une fois l'import terminé ou pour le recommencer
+     * @param connection La connexion de l'import
+     */
+    public void delete(Connection connection) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(DELETE)) {
+            stmt.setString(1, directory);
+            stmt.executeUpdate();
+        }
+    }
+
+    private int write(Connection connection, String sql, Path source, long size, long records) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, size);
+            stmt.setLong(2, records);
+            stmt.setString(3, directory);
+            stmt.setString(4, source.getFileName().toString());
+            return stmt.executeUpdate();
+        }
+    }
+}
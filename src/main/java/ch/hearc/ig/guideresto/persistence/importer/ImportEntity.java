@@ -0,0 +1,35 @@
+package ch.hearc.ig.guideresto.persistence.importer;
+
+/**
+ * Types de fichiers importés, dans l'ordre d'import (une entité ne référence que des entités importées avant elle).
+ * Chaque fichier se nomme d'après {@link #getFileName()}, avec l'extension .csv ou .json.
+ *
+ * <ul>
+ *     <li>villes : zipCode;cityName</li>
+ *     <li>types : label;description</li>
+ *     <li>restaurants : name;street;description;website;type;zipCode;cityName</li>
+ *     <li>likes : restaurant;zipCode;cityName;like;date;ip</li>
+ *     <li>commentaires : restaurant;zipCode;cityName;date;username;comment;grades (Service=4,Cuisine=5)</li>
+ * </ul>
+ */
+public enum ImportEntity {
+
+    CITIES("villes"),
+    TYPES("types"),
+    RESTAURANTS("restaurants"),
+    LIKES("likes"),
+    REVIEWS("commentaires");
+
+    private final String fileName;
+
+    ImportEntity(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * @return Le nom du fichier, sans extension
+     */
+    public String getFileName() {
+        return fileName;
+    }
+}
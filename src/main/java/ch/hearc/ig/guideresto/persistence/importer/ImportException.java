@@ -0,0 +1,16 @@
+package ch.hearc.ig.guideresto.persistence.importer;
+
+/**
+ * Erreur qui interrompt un import. Les lots déjà validés restent en base de données et le point de reprise
+ * permet de relancer l'import là où il s'est arrêté.
+ */
+public class ImportException extends RuntimeException {
+
+    public ImportException(String message) {
+        super(message);
+    }
+
+    public ImportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,100 @@
+package ch.hearc.ig.guideresto.persistence.importer;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Enregistrement lu dans un fichier d'import : les valeurs sont indexées par nom de colonne (CSV)
+ * ou de propriété (JSON)
+ * @param position Numéro de l'enregistrement dans le fichier (à partir de 1), pour les messages d'erreur
+ * @param values Les valeurs, vides ou absentes lorsqu'elles ne sont pas renseignées
+ */
+public record ImportRecord(long position, Map<String, String> values) {
+
+    /**
+     * @param name Le nom de la colonne
+     * @return La valeur sans les espaces en début et fin, ou null si elle est absente ou vide
+     */
+    public String get(String name) {
+        String value = values.get(name);
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * @param name Le nom de la colonne
+     * @return La valeur, obligatoire
+     * @throws IllegalArgumentException si la valeur est absente
+     */
+    public String require(String name) {
+        String value = get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Valeur manquante pour '" + name + "'");
+        }
+        return value;
+    }
+
+    /**
+     * Lit une appréciation : T/F (comme la colonne APPRECIATION), true/false, 1/0 ou like/dislike
+     * @param name Le nom de la colonne
+     * @return La valeur
+     * @throws IllegalArgumentException si la valeur est absente ou invalide
+     */
+    public boolean requireBoolean(String name) {
+        return switch (require(name).toLowerCase(Locale.ROOT)) {
+            case "t", "true", "1", "like", "o", "oui" -> true;
+            case "f", "false", "0", "dislike", "n", "non" -> false;
+            default -> throw new IllegalArgumentException("Valeur booléenne invalide pour '" + name + "'");
+        };
+    }
+
+    /**
+     * @param name Le nom de la colonne
+     * @param defaultValue La date utilisée si la valeur est absente
+     * @return La date (format ISO, AAAA-MM-JJ, éventuellement suivie d'une heure qui est ignorée)
+     * @throws IllegalArgumentException si la date est invalide
+     */
+    public LocalDate getDate(String name, LocalDate defaultValue) {
+        String value = get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return LocalDate.parse(value.length() > 10 ? value.substring(0, 10) : value);
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Date invalide pour '" + name + "' : " + value);
+        }
+    }
+
+    /**
+     * Lit une liste de notes au format {@code Service=4,Cuisine=5}
+     * @param name Le nom de la colonne
+     * @return Les notes indexées par nom de critère (vide si la valeur est absente)
+     * @throws IllegalArgumentException si une note est mal formée
+     */
+    public Map<String, Integer> getGrades(String name) {
+        Map<String, Integer> grades = new LinkedHashMap<>();
+        String value = get(name);
+        if (value == null) {
+            return grades;
+        }
+        for (String pair : value.split(",")) {
+            int separator = pair.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Note mal formée : '" + pair + "'");
+            }
+            try {
+                grades.put(pair.substring(0, separator).trim(), Integer.parseInt(pair.substring(separator + 1).trim()));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Note mal formée : '" + pair + "'");
+            }
+        }
+        return grades;
+    }
+}
@@ -0,0 +1,114 @@
+package ch.hearc.ig.guideresto.persistence.importer;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Bilan d'un import : pour chaque fichier, les enregistrements lus, insérés, ignorés (doublons, références
+ * inconnues, valeurs invalides) ou repris d'un import précédent, et le débit obtenu
+ */
+public class ImportReport {
+
+    /**
+     * Compteurs d'un fichier importé
+     */
+    public static final class Phase {
+
+        private final ImportEntity entity;
+        private long read;
+        private long inserted;
+        private long skipped;
+        private long resumed;
+        private long elapsedNanos;
+
+        private Phase(ImportEntity entity) {
+            this.entity = entity;
+        }
+
+        void read() {
+            read++;
+        }
+
+        void inserted(long count) {
+            inserted += count;
+        }
+
+        void skipped() {
+            skipped++;
+        }
+
+        void resumed(long count) {
+            resumed = count;
+        }
+
+        void elapsed(long nanos) {
+            elapsedNanos += nanos;
+        }
+
+        public ImportEntity getEntity() {
+            return entity;
+        }
+
+        public long getRead() {
+            return read;
+        }
+
+        public long getInserted() {
+            return inserted;
+        }
+
+        public long getSkipped() {
+            return skipped;
+        }
+
+        public long getResumed() {
+            return resumed;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        /**
+         * @return Le nombre d'enregistrements lus par seconde
+         */
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : read * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-13s lus %10d  insérés %10d  ignorés %8d  repris %10d  %8d ms  %10.0f enr./s",
+                    entity.getFileName(), read, inserted, skipped, resumed, getElapsedMillis(), getThroughput());
+        }
+    }
+
+    private final Map<ImportEntity, Phase> phases = new EnumMap<>(ImportEntity.class);
+
+    Phase phase(ImportEntity entity) {
+        return phases.computeIfAbsent(entity, Phase::new);
+    }
+
+    /**
+     * @return Les compteurs de chaque fichier importé, dans l'ordre d'import
+     */
+    public Map<ImportEntity, Phase> getPhases() {
+        return phases;
+    }
+
+    /**
+     * @return Le nombre total d'enregistrements insérés
+     */
+    public long getTotalInserted() {
+        return phases.values().stream().mapToLong(Phase::getInserted).sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder("Bilan de l'import");
+        for (Phase phase : phases.values()) {
+            report.append(System.lineSeparator()).append("  ").append(phase);
+        }
+        return report.toString();
+    }
+}
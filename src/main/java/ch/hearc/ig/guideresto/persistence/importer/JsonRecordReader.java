@@ -0,0 +1,78 @@
+package ch.hearc.ig.guideresto.persistence.importer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Lecteur de fichiers JSON contenant un tableau d'objets. Le tableau est parcouru en flux : un seul objet
+ * est en mémoire à la fois. Les propriétés portent les mêmes noms que les colonnes CSV ; les notes d'un
+ * commentaire peuvent être un objet ({@code "grades": {"Service": 4, "Cuisine": 5}}).
+ */
+public class JsonRecordReader implements RecordReader {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final JsonParser parser;
+    private long position;
+
+    public JsonRecordReader(Path file) throws IOException {
+        this.parser = MAPPER.getFactory().createParser(Files.newInputStream(file));
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            parser.close();
+            throw new IOException("Le fichier JSON doit contenir un tableau d'objets : " + file);
+        }
+    }
+
+    @Override
+    public ImportRecord next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null || token == JsonToken.END_ARRAY) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new IOException("Objet attendu à la position " + (position + 1));
+        }
+        position++;
+        JsonNode node = MAPPER.readTree(parser);
+
+        Map<String, String> values = new LinkedHashMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            values.put(field.getKey(), toText(field.getValue()));
+        }
+        return new ImportRecord(position, values);
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    private static String toText(JsonNode value) {
+        if (value.isNull()) {
+            return null;
+        }
+        if (value.isObject()) {
+            // Objet de notes : {"Service": 4} devient "Service=4"
+            StringBuilder grades = new StringBuilder();
+            for (Iterator<Map.Entry<String, JsonNode>> it = value.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> grade = it.next();
+                if (!grades.isEmpty()) {
+                    grades.append(',');
+                }
+                grades.append(grade.getKey()).append('=').append(grade.getValue().asText());
+            }
+            return grades.toString();
+        }
+        return value.asText();
+    }
+}
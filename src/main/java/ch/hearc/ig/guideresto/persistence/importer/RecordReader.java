@@ -0,0 +1,34 @@
+package ch.hearc.ig.guideresto.persistence.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Lecture séquentielle des enregistrements d'un fichier d'import, sans le charger entièrement en mémoire
+ */
+public interface RecordReader extends Closeable {
+
+    /**
+     * @return L'enregistrement suivant, ou null à la fin du fichier
+     * @throws IOException en cas d'erreur de lecture ou de format
+     */
+    ImportRecord next() throws IOException;
+
+    /**
+     * Ouvre le lecteur correspondant à l'extension du fichier (.csv ou .json)
+     * @param file Le fichier
+     * @return Le lecteur
+     * @throws IOException si le fichier ne peut pas être ouvert
+     */
+    static RecordReader open(Path file) throws IOException {
+        String fileName = file.getFileName().toString().toLowerCase();
+        if (fileName.endsWith(".csv")) {
+            return new CsvRecordReader(file);
+        }
+        if (fileName.endsWith(".json")) {
+            return new JsonRecordReader(file);
+        }
+        throw new IOException("Format de fichier non supporté : " + file);
+    }
+}
@@ -0,0 +1,136 @@
+package ch.hearc.ig.guideresto.persistence.importer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Génère des fichiers d'import CSV synthétiques (villes, types, restaurants, likes et commentaires notés),
+ * à charger avec le {@link DataImporter}. La graine est fixe : deux générations au même volume produisent
+ * exactement les mêmes données. Les évaluations sont pour 80 % des likes (dont un quart de dislikes) et pour
+ * 20 % des commentaires notés sur chacun des {@link #CRITERIA}, qui doivent exister en base.
+ */
+public class SyntheticDataGenerator {
+
+    /**
+     * Types gastronomiques générés
+     */
+    public static final List<String> TYPES = List.of("Cuisine suisse", "Restaurant gastronomique", "Pizzeria",
+            "Brasserie", "Sushi", "Crêperie", "Thaï", "Libanais", "Burger", "Végétarien");
+
+    /**
+     * Critères utilisés par les notes des commentaires générés
+     */
+    public static final List<String> CRITERIA = List.of("Service", "Cuisine", "Cadre");
+
+    private static final long SEED = 42;
+
+    private final int cities;
+    private final int restaurants;
+    private final int evaluations;
+
+    /**
+     * @param cities Nombre de villes
+     * @param restaurants Nombre de restaurants, répartis sur les villes et les types
+     * @param evaluations Nombre d'évaluations (likes et commentaires), réparties au hasard sur les restaurants
+     */
+    public SyntheticDataGenerator(int cities, int restaurants, int evaluations) {
+        if (cities < 1 || restaurants < 1 || evaluations < 0) {
+            throw new IllegalArgumentException("Volume invalide : " + cities + " villes, " + restaurants
+                    + " restaurants, " + evaluations + " évaluations");
+        }
+        this.cities = cities;
+        this.restaurants = restaurants;
+        this.evaluations = evaluations;
+    }
+
+    /**
+     * @param index Index de la ville (0 à cities - 1)
+     * @return Le NPA généré pour cette ville
+     */
+    public static String zipCode(int index) {
+        return Integer.toString(1000 + index);
+    }
+
+    /**
+     * @param index Index de la ville (0 à cities - 1)
+     * @return Le nom généré pour cette ville
+     */
+    public static String cityName(int index) {
+        return "Ville " + index;
+    }
+
+    /**
+     * @param index Index du restaurant (0 à restaurants - 1)
+     * @return Le nom généré pour ce restaurant
+     */
+    public static String restaurantName(int index) {
+        return "Restaurant " + index;
+    }
+
+    /**
+     * Écrit les fichiers villes.csv, types.csv, restaurants.csv, likes.csv et commentaires.csv
+     * @param directory Le répertoire de destination
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public void generate(Path directory) throws IOException {
+        Random random = new Random(SEED);
+
+        try (BufferedWriter out = writer(directory, ImportEntity.CITIES)) {
+            out.write("zipCode;cityName\n");
+            for (int i = 0; i < cities; i++) {
+                out.write(zipCode(i) + ";" + cityName(i) + "\n");
+            }
+        }
+        try (BufferedWriter out = writer(directory, ImportEntity.TYPES)) {
+            out.write("label;description\n");
+            for (String type : TYPES) {
+                out.write(type + ";Type " + type + "\n");
+            }
+        }
+        try (BufferedWriter out = writer(directory, ImportEntity.RESTAURANTS)) {
+            out.write("name;street;description;website;type;zipCode;cityName\n");
+            for (int i = 0; i < restaurants; i++) {
+                int city = i % cities;
+                out.write(restaurantName(i) + ";Rue " + i + ";Description du restaurant " + i + ";www.resto" + i
+                        + ".ch;" + TYPES.get(i % TYPES.size()) + ";" + zipCode(city) + ";" + cityName(city) + "\n");
+            }
+        }
+
+        int reviews = evaluations / 5;
+        try (BufferedWriter out = writer(directory, ImportEntity.LIKES)) {
+            out.write("restaurant;zipCode;cityName;like;date;ip\n");
+            for (int i = 0; i < evaluations - reviews; i++) {
+                out.write(restaurantReference(random.nextInt(restaurants)) + ";" + (random.nextInt(4) == 0 ? "F" : "T")
+                        + ";2024-01-01;10.0." + random.nextInt(256) + "." + random.nextInt(256) + "\n");
+            }
+        }
+        try (BufferedWriter out = writer(directory, ImportEntity.REVIEWS)) {
+            out.write("restaurant;zipCode;cityName;date;username;comment;grades\n");
+            for (int i = 0; i < reviews; i++) {
+                StringBuilder grades = new StringBuilder();
+                for (String criteria : CRITERIA) {
+                    if (!grades.isEmpty()) {
+                        grades.append(',');
+                    }
+                    grades.append(criteria).append('=').append(1 + random.nextInt(5));
+                }
+                out.write(restaurantReference(random.nextInt(restaurants)) + ";2024-01-01;user" + i
+                        + ";Commentaire " + i + ";" + grades + "\n");
+            }
+        }
+    }
+
+    private String restaurantReference(int index) {
+        int city = index % cities;
+        return restaurantName(index) + ";" + zipCode(city) + ";" + cityName(city);
+    }
+
+    private static BufferedWriter writer(Path directory, ImportEntity entity) throws IOException {
+        return Files.newBufferedWriter(directory.resolve(entity.getFileName() + ".csv"), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,373 @@
+package ch.hearc.ig.guideresto.persistence.jpa;
+
+import ch.hearc.ig.guideresto.persistence.dao.EvaluationDao;
+import ch.hearc.ig.guideresto.persistence.dao.RestaurantStatsDao;
+import ch.hearc.ig.guideresto.persistence.importer.DataImporter;
+import ch.hearc.ig.guideresto.persistence.importer.ImportReport;
+import ch.hearc.ig.guideresto.persistence.importer.SyntheticDataGenerator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Profil base embarquée : avec {@code -Dguideresto.db=h2}, l'application travaille sur une base H2 locale
+ * au lieu de la base Oracle de hibernate.properties (benchmarks, tests de charge, CI sans Oracle).
+ *
+ * Au premier démarrage, le schéma est créé à partir de GuideResto_CREATE_TABLES.sql : les DROP sont ignorés
+ * et les triggers TR_BIF_* (NUMERO := SEQ.NEXTVAL s'il est null) deviennent des valeurs par défaut de colonne
+ * équivalentes. La base est ensuite remplie selon {@code guideresto.db.seed} :
+ * <ul>
+ *     <li>sample (par défaut) : GuideResto_INSERT_DATA.sql (encodé en ISO-8859-1, sysdate devient CURRENT_DATE)</li>
+ *     <li>synthetic : données générées par {@link SyntheticDataGenerator} et chargées par le {@link DataImporter},
+ *     au volume de guideresto.db.cities (200), guideresto.db.restaurants (1000) et guideresto.db.evaluations (100 000)</li>
+ *     <li>none : schéma vide</li>
+ * </ul>
+ *
+ * H2 est utilisé dans son mode par défaut et non en mode Oracle : dans ce mode, H2 traite la clause
+ * {@code escape ''} qu'Hibernate ajoute à chaque LIKE comme un caractère d'échappement NULL, et aucun LIKE
+ * ne trouve plus rien. L'URL JDBC se règle avec guideresto.db.url (base mémoire par défaut) ; une base fichier
+ * déjà créée est réutilisée telle quelle, à ceci près qu'il lui est ajouté les tables RESTAURANT_STATS et
+ * IMPORT_CHECKPOINTS si elle date d'avant celles-ci (la table est alors remplie à partir des notes au démarrage), et les adresses IP de ses anciens
+ * likes sont mises sous forme canonique.
+ */
+public final class EmbeddedDatabase {
+
+    private static final Logger logger = LogManager.getLogger(EmbeddedDatabase.class);
+
+    private static final String PROFILE_PROPERTY = "guideresto.db";
+    private static final String DEFAULT_URL = "jdbc:h2:mem:guideresto;DB_CLOSE_DELAY=-1";
+    private static final String CREATE_SCRIPT = "/GuideResto_CREATE_TABLES.sql";
+    private static final String DATA_SCRIPT = "/GuideResto_INSERT_DATA.sql";
+
+    private static final Pattern TRIGGER_TABLE = Pattern.compile("\\bON\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TRIGGER_DEFAULT =
+            Pattern.compile(":NEW\\.(\\w+)\\s*:=\\s*(\\w+)\\.NEXTVAL", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SYSDATE = Pattern.compile("\\bsysdate\\b", Pattern.CASE_INSENSITIVE);
+
+    // Vrai entre la création du schéma par prepare() et la fin de son remplissage par seed()
+    private static boolean created;
+    private static boolean syntheticSeedPending;
+    private static boolean statsRebuildPending;
+    private static boolean ipMigrationPending;
+
+    private EmbeddedDatabase() {
+    }
+
+    /**
+     * @return true si le profil base embarquée est sélectionné (-Dguideresto.db=h2)
+     */
+    public static boolean isEnabled() {
+        return "h2".equalsIgnoreCase(System.getProperty(PROFILE_PROPERTY));
+    }
+
+    /**
+     * @return L'URL JDBC de la base embarquée
+     */
+    public static String getUrl() {
+        return System.getProperty("guideresto.db.url", DEFAULT_URL);
+    }
+
+    /**
+     * @return Les propriétés qui remplacent celles de hibernate.properties pour l'unité de persistance
+     */
+    static Map<String, Object> getProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("jakarta.persistence.jdbc.url", getUrl());
+        properties.put("jakarta.persistence.jdbc.user", "sa");
+        properties.put("jakarta.persistence.jdbc.password", "");
+        properties.put("jakarta.persistence.jdbc.driver", "org.h2.Driver");
+        properties.put("hibernate.hbm2ddl.auto", "none");
+        properties.put("hibernate.connection.provider_class", TimedConnectionProvider.class.getName());
+        return properties;
+    }
+
+    /**
+     * Crée le schéma et le remplit par script si la base ne contient pas encore les tables de GuideResto.
+     * À appeler avant la création de l'EntityManagerFactory.
+     */
+    static synchronized void prepare() {
+        try (Connection connection = DriverManager.getConnection(getUrl(), "sa", "")) {
+            if (hasSchema(connection)) {
+                addMissingStatsTable(connection);
+                addMissingTable(connection, "IMPORT_CHECKPOINTS");
+                ipMigrationPending = true;
+                return;
+            }
+            long start = System.nanoTime();
+            created = true;
+            execute(connection, readScript(CREATE_SCRIPT, StandardCharsets.UTF_8));
+
+            String seed = System.getProperty("guideresto.db.seed", "sample").toLowerCase(Locale.ROOT);
+            switch (seed) {
+                case "sample" -> execute(connection, readScript(DATA_SCRIPT, StandardCharsets.ISO_8859_1));
+                case "synthetic" -> {
+                    insertCriteria(connection);
+                    syntheticSeedPending = true;
+                }
+                case "none" -> {
+                }
+                default -> throw new IllegalStateException("Valeur inconnue pour guideresto.db.seed : " + seed);
+            }
+            logger.info("Base embarquée {} créée ({}) en {} ms", getUrl(), seed, (System.nanoTime() - start) / 1_000_000);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Création de la base embarquée " + getUrl() + " impossible", ex);
+        }
+    }
+
+    /**
+     * Charge les données synthétiques, qui passent par le DataImporter et donc par l'EntityManagerFactory,
+     * ou met à niveau une base existante : remplit la table RESTAURANT_STATS qui lui a été ajoutée et met
+     * sous forme canonique les adresses IP de ses anciens likes. Une étape n'est considérée comme faite
+     * qu'une fois terminée : en cas d'échec, voir {@link #abort()}.
+     * À appeler une fois l'EntityManagerFactory créée.
+     */
+    static synchronized void seed() {
+        if (statsRebuildPending) {
+            new RestaurantStatsDao().rebuild();
+            statsRebuildPending = false;
+        }
+        if (ipMigrationPending) {
+            int updated = new EvaluationDao().canonicalizeIpAddresses();
+            ipMigrationPending = false;
+            if (updated > 0) {
+                logger.info("Adresses IP de {} like(s) mises sous forme canonique", updated);
+            }
+        }
+        if (syntheticSeedPending) {
+            seedSynthetic();
+            syntheticSeedPending = false;
+        }
+        created = false;
+    }
+
+    /**
+     * Annule une préparation dont le remplissage a échoué. Une base créée par {@link #prepare()} est vidée,
+     * pour être recréée et remplie de nouveau au prochain démarrage plutôt que réutilisée à moitié remplie ;
+     * les mises à niveau d'une base existante restent à faire.
+     */
+    static synchronized void abort() {
+        if (!created) {
+            return;
+        }
+        created = false;
+        syntheticSeedPending = false;
+        statsRebuildPending = false;
+        ipMigrationPending = false;
+        try (Connection connection = DriverManager.getConnection(getUrl(), "sa", "");
+             Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+            logger.warn("Remplissage de la base embarquée {} interrompu, base vidée", getUrl());
+        } catch (SQLException ex) {
+            logger.error("Impossible de vider la base embarquée {} : {}", getUrl(), ex.getMessage());
+        }
+    }
+
+    private static void seedSynthetic() {
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(
+                Integer.getInteger("guideresto.db.cities", 200),
+                Integer.getInteger("guideresto.db.restaurants", 1000),
+                Integer.getInteger("guideresto.db.evaluations", 100_000));
+
+        Path directory = null;
+        try {
+            directory = Files.createTempDirectory("guideresto-seed");
+            generator.generate(directory);
+            ImportReport report = new DataImporter().importDirectory(directory);
+            logger.info("Base embarquée remplie : {} lignes", report.getTotalInserted());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Génération des données synthétiques impossible", ex);
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * Découpe un script Oracle en instructions H2 : instructions terminées par ';', blocs PL/SQL terminés
+     * par une ligne '/', DROP et COMMIT ignorés, triggers de numérotation traduits
+     * @param script Le contenu du script
+     * @return Les instructions à exécuter
+     */
+    static List<String> translate(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inBlock = false;
+        boolean inLiteral = false;
+
+        for (String line : script.split("\\R")) {
+            String trimmed = line.trim();
+            if (inBlock) {
+                if (trimmed.equals("/")) {
+                    statements.add(translateTrigger(current.toString()));
+                    current.setLength(0);
+                    inBlock = false;
+                } else {
+                    current.append(line).append('\n');
+                }
+                continue;
+            }
+            if (!inLiteral && current.isEmpty()) {
+                if (trimmed.isEmpty() || trimmed.startsWith("--") || trimmed.equals("/")) {
+                    continue;
+                }
+                if (trimmed.toUpperCase(Locale.ROOT).startsWith("CREATE OR REPLACE TRIGGER")) {
+                    inBlock = true;
+                    current.append(line).append('\n');
+                    continue;
+                }
+            }
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (c == '\'') {
+                    inLiteral = !inLiteral;
+                }
+                if (c == ';' && !inLiteral) {
+                    addStatement(statements, current.toString());
+                    current.setLength(0);
+                } else {
+                    current.append(c);
+                }
+            }
+            if (!current.isEmpty()) {
+                current.append('\n');
+            }
+        }
+        addStatement(statements, current.toString());
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, String statement) {
+        String sql = statement.trim();
+        String keyword = sql.split("\\s+", 2)[0].toUpperCase(Locale.ROOT);
+        if (sql.isEmpty() || keyword.equals("DROP") || keyword.equals("COMMIT")) {
+            return;
+        }
+        statements.add(replaceOutsideLiterals(sql, SYSDATE, "CURRENT_DATE"));
+    }
+
+    /**
+     * Traduit un trigger TR_BIF_* ({@code IF :NEW.NUMERO IS NULL THEN :NEW.NUMERO := SEQ.NEXTVAL})
+     * en valeur par défaut de la colonne
+     */
+    private static String translateTrigger(String trigger) {
+        Matcher table = TRIGGER_TABLE.matcher(trigger);
+        Matcher assignment = TRIGGER_DEFAULT.matcher(trigger);
+        if (!table.find() || !assignment.find()) {
+            throw new IllegalStateException("Trigger non supporté par la base embarquée :\n" + trigger);
+        }
+        return "ALTER TABLE " + table.group(1) + " ALTER COLUMN " + assignment.group(1)
+                + " SET DEFAULT NEXT VALUE FOR " + assignment.group(2);
+    }
+
+    private static String replaceOutsideLiterals(String sql, Pattern pattern, String replacement) {
+        String[] parts = sql.split("'", -1);
+        for (int i = 0; i < parts.length; i += 2) {
+            parts[i] = pattern.matcher(parts[i]).replaceAll(replacement);
+        }
+        return String.join("'", parts);
+    }
+
+    private static void execute(Connection connection, String script) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            for (String sql : translate(script)) {
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    private static void insertCriteria(Connection connection) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "INSERT INTO CRITERES_EVALUATION (NOM, DESCRIPTION) VALUES (?, ?)")) {
+            for (String criteria : SyntheticDataGenerator.CRITERIA) {
+                stmt.setString(1, criteria);
+                stmt.setString(2, "Qualité : " + criteria);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Ajoute la table RESTAURANT_STATS à une base fichier créée avant elle ; elle sera remplie
+     * à partir des notes par {@link #seed()}
+     */
+    private static void addMissingStatsTable(Connection connection) throws SQLException {
+        if (addMissingTable(connection, "RESTAURANT_STATS")) {
+            statsRebuildPending = true;
+        }
+    }
+
+    /**
+     * Ajoute à une base fichier une table de GuideResto_CREATE_TABLES.sql créée après elle, avec ses contraintes
+     * @return true si la table a été ajoutée
+     */
+    private static boolean addMissingTable(Connection connection, String table) throws SQLException {
+        if (hasTable(connection, table)) {
+            return false;
+        }
+        try (Statement stmt = connection.createStatement()) {
+            for (String sql : translate(readScript(CREATE_SCRIPT, StandardCharsets.UTF_8))) {
+                if (sql.contains(table)) {
+                    stmt.execute(sql);
+                }
+            }
+        }
+        logger.info("Table {} ajoutée à la base embarquée {}", table, getUrl());
+        return true;
+    }
+
+    private static boolean hasSchema(Connection connection) throws SQLException {
+        return hasTable(connection, "RESTAURANTS");
+    }
+
+    private static boolean hasTable(Connection connection, String table) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getTables(null, null, table, new String[]{"TABLE"})) {
+            return rs.next();
+        }
+    }
+
+    private static String readScript(String resource, Charset charset) {
+        try (InputStream in = EmbeddedDatabase.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Script introuvable dans le classpath : " + resource);
+            }
+            return new String(in.readAllBytes(), charset);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Lecture du script " + resource + " impossible", ex);
+        }
+    }
+
+    private static void deleteDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException ex) {
+            logger.warn("Suppression des données générées impossible : {}", ex.getMessage());
+        }
+    }
+}
@@ -1,40 +1,333 @@
 package ch.hearc.ig.guideresto.persistence.jpa;
 
+import ch.hearc.ig.guideresto.business.CacheRegions;
+import ch.hearc.ig.guideresto.monitoring.Monitoring;
+import ch.hearc.ig.guideresto.monitoring.TransactionEvent;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.EntityTransaction;
 import jakarta.persistence.Persistence;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+/**
+ * Point d'accès unique à JPA.
+ * L'EntityManagerFactory est partagée par toute l'application, alors que chaque thread
+ * (plateforme ou virtuel) travaille avec son propre EntityManager. Un EntityManager n'étant
+ * pas thread-safe, il ne doit jamais être partagé entre deux threads.
+ *
+ * Une unité de travail ({@link #inUnitOfWork(Supplier)}) ouvre un EntityManager neuf pour la durée
+ * d'une requête utilisateur et le ferme à la fin, ce qui vide le cache de premier niveau.
+ */
 public class JpaUtils {
 
-    private static EntityManagerFactory emf;
-    private static EntityManager em;
+    private static final String PERSISTENCE_UNIT = "guideRestoJPA";
+
+    /**
+     * Région du cache de second niveau pour les entités de référence (villes, types, critères)
+     */
+    public static final String REFERENCE_DATA_REGION = CacheRegions.REFERENCE_DATA;
+
+    /**
+     * Région du cache des requêtes nommées portant sur les entités de référence
+     */
+    public static final String REFERENCE_QUERIES_REGION = CacheRegions.REFERENCE_QUERIES;
+
+    /**
+     * Nom de la mesure de durée des transactions
+     */
+    public static final String TRANSACTION_METRIC = "JpaUtils.transaction";
+
+    private static final String BATCH_SIZE_PROPERTY = "hibernate.jdbc.batch_size";
+    private static final int DEFAULT_BATCH_SIZE = 50;
+
+    private static volatile EntityManagerFactory emf;
+
+    // Factory de la base embarquée en cours de remplissage : seuls le thread qui la remplit, et qui détient
+    // le verrou de JpaUtils, et les threads qu'il lance pour cela (reconstruction parallèle des statistiques)
+    // peuvent l'obtenir ; elle n'est publiée dans emf qu'une fois la base remplie
+    private static final InheritableThreadLocal<EntityManagerFactory> seedingFactory = new InheritableThreadLocal<>();
+
+    // EntityManager lié au thread courant (ou à l'unité de travail en cours sur ce thread)
+    private static final ThreadLocal<EntityManager> currentEntityManager = new ThreadLocal<>();
 
+    /**
+     * Retourne l'EntityManagerFactory de l'application, créée au premier appel.
+     * Avec -Dguideresto.db=h2, elle travaille sur la base embarquée ({@link EmbeddedDatabase}) : les autres
+     * threads n'obtiennent la factory qu'une fois la base remplie, et si le remplissage échoue, la factory
+     * est fermée et le prochain appel recommence.
+     * @return L'EntityManagerFactory partagée
+     */
+    public static EntityManagerFactory getEntityManagerFactory() {
+        EntityManagerFactory factory = emf;
+        if (factory == null) {
+            EntityManagerFactory seeding = seedingFactory.get();
+            if (seeding != null && seeding.isOpen()) {
+                // Appel du remplissage de la base embarquée, sur son thread ou sur l'un de ceux qu'il a lancés
+                return seeding;
+            }
+            synchronized (JpaUtils.class) {
+                factory = emf;
+                if (factory == null || !factory.isOpen()) {
+                    if (EmbeddedDatabase.isEnabled()) {
+                        factory = null;
+                        try {
+                            EmbeddedDatabase.prepare();
+                            factory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT, EmbeddedDatabase.getProperties());
+                            seedingFactory.set(factory);
+                            EmbeddedDatabase.seed();
+                        } catch (RuntimeException | Error ex) {
+                            abortSeeding(factory);
+                            throw ex;
+                        } finally {
+                            seedingFactory.remove();
+                        }
+                        emf = factory;
+                    } else {
+                        factory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
+                        emf = factory;
+                    }
+                }
+            }
+        }
+        return factory;
+    }
 
+    /**
+     * Retourne l'EntityManager lié au thread courant, en le créant si nécessaire.
+     * En dehors d'une unité de travail, l'EntityManager reste ouvert jusqu'à l'appel
+     * de {@link #closeEntityManager()}.
+     * @return L'EntityManager du thread courant
+     */
     public static EntityManager getEntityManager() {
+        EntityManager em = currentEntityManager.get();
         if (em == null || !em.isOpen()) {
-            if (emf == null) {
-                emf = Persistence.createEntityManagerFactory("guideRestoJPA");
-            }
-            em = emf.createEntityManager();
+            em = getEntityManagerFactory().createEntityManager();
+            currentEntityManager.set(em);
         }
         return em;
     }
 
+    /**
+     * Ferme l'EntityManager lié au thread courant et le détache du thread
+     */
+    public static void closeEntityManager() {
+        EntityManager em = currentEntityManager.get();
+        currentEntityManager.remove();
+        close(em);
+    }
+
+    /**
+     * Exécute un traitement dans une unité de travail : un EntityManager neuf est lié au thread
+     * courant pour la durée du traitement, puis vidé et fermé, quoi qu'il arrive.
+     * L'EntityManager éventuellement lié au thread avant l'appel est restauré ensuite.
+     * @param work Le traitement à exécuter
+     * @return Le résultat du traitement
+     */
+    public static <R> R inUnitOfWork(Supplier<R> work) {
+        EntityManager previous = currentEntityManager.get();
+        EntityManager em = getEntityManagerFactory().createEntityManager();
+        currentEntityManager.set(em);
+        try {
+            return work.get();
+        } finally {
+            close(em);
+            if (previous != null) {
+                currentEntityManager.set(previous);
+            } else {
+                currentEntityManager.remove();
+            }
+        }
+    }
+
+    /**
+     * Exécute un traitement sans résultat dans une unité de travail
+     * @param work Le traitement à exécuter
+     * @see #inUnitOfWork(Supplier)
+     */
+    public static void inUnitOfWork(Runnable work) {
+        inUnitOfWork(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Exécute un traitement dans une transaction sur l'EntityManager du thread courant.
+     * Si une transaction est déjà active, le traitement y participe sans la valider.
+     * @param consumer Le traitement à exécuter
+     */
     public static void inTransaction(Consumer<EntityManager> consumer) {
+        callInTransaction(em -> {
+            consumer.accept(em);
+            return null;
+        });
+    }
+
+    /**
+     * Exécute un traitement dans une transaction et retourne son résultat.
+     * La durée des transactions ouvertes ici (du begin au commit ou au rollback) est mesurée
+     * sous le nom {@value #TRANSACTION_METRIC} et enregistrée dans JFR ({@link TransactionEvent}).
+     * @param function Le traitement à exécuter
+     * @return Le résultat du traitement
+     * @see #inTransaction(Consumer)
+     */
+    public static <R> R callInTransaction(Function<EntityManager, R> function) {
         EntityManager em = JpaUtils.getEntityManager();
         EntityTransaction transaction = em.getTransaction();
+        if (transaction.isActive()) {
+            return function.apply(em);
+        }
+        return Monitoring.time(TRANSACTION_METRIC, new TransactionEvent(),
+                () -> runInNewTransaction(em, transaction, function));
+    }
+
+    private static <R> R runInNewTransaction(EntityManager em, EntityTransaction transaction,
+                                             Function<EntityManager, R> function) {
         try {
             transaction.begin();
-            consumer.accept(em);
+            R result = function.apply(em);
             em.flush();
             transaction.commit();
-        } catch (Exception ex) {
+            return result;
+        } catch (RuntimeException ex) {
             if (transaction.isActive()) {
                 transaction.rollback();
             }
             throw ex;
         }
     }
+
+    /**
+     * Exécute une action une fois les écritures de la transaction en cours validées : tout de suite s'il n'y a
+     * pas de transaction active sur l'EntityManager du thread courant (celle du DAO vient d'être validée),
+     * sinon après son commit. L'action n'est pas exécutée si la transaction est annulée.
+     * Sert à mettre à jour les structures en mémoire (caches, index) qui ne doivent jamais refléter
+     * des écritures annulées.
+     * @param action L'action à exécuter
+     */
+    public static void afterCommit(Runnable action) {
+        EntityManager em = currentEntityManager.get();
+        if (em == null || !em.isOpen() || !em.getTransaction().isActive()) {
+            action.run();
+            return;
+        }
+        em.unwrap(Session.class).getTransaction().registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Retourne la taille des lots JDBC configurée (hibernate.jdbc.batch_size)
+     * @return Le nombre d'instructions regroupées par lot, 50 par défaut
+     */
+    public static int getJdbcBatchSize() {
+        Object batchSize = getEntityManagerFactory().getProperties().get(BATCH_SIZE_PROPERTY);
+        if (batchSize == null) {
+            return DEFAULT_BATCH_SIZE;
+        }
+        try {
+            int value = Integer.parseInt(batchSize.toString().trim());
+            return value > 0 ? value : DEFAULT_BATCH_SIZE;
+        } catch (NumberFormatException ex) {
+            return DEFAULT_BATCH_SIZE;
+        }
+    }
+
+    /**
+     * Retire une classe d'entité du cache de second niveau, ainsi que les résultats de requêtes
+     * de référence qui pourraient la contenir
+     * @param entityClass La classe d'entité modifiée
+     */
+    public static void evictFromCache(Class<?> entityClass) {
+        if (!entityClass.isAnnotationPresent(Cacheable.class)) {
+            return;
+        }
+        EntityManagerFactory factory = getEntityManagerFactory();
+        factory.getCache().evict(entityClass);
+        factory.unwrap(SessionFactory.class).getCache().evictQueryRegion(REFERENCE_QUERIES_REGION);
+    }
+
+    /**
+     * Vide toutes les régions du cache de second niveau, y compris les résultats de requêtes,
+     * après des écritures qui ne sont pas passées par Hibernate (import JDBC, script SQL)
+     */
+    public static void evictAllCaches() {
+        getEntityManagerFactory().unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    /**
+     * Retourne les statistiques d'une région du cache de second niveau
+     * @param regionName Le nom de la région, par exemple {@link #REFERENCE_DATA_REGION}
+     * @return Les statistiques de la région (hits, misses, puts, éléments en mémoire)
+     */
+    public static CacheRegionStatistics getCacheStatistics(String regionName) {
+        return getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics()
+                .getCacheRegionStatistics(regionName);
+    }
+
+    /**
+     * Ferme l'EntityManager du thread courant puis l'EntityManagerFactory
+     */
+    public static void shutdown() {
+        closeEntityManager();
+        synchronized (JpaUtils.class) {
+            if (emf != null && emf.isOpen()) {
+                emf.close();
+            }
+            emf = null;
+        }
+    }
+
+    /**
+     * Ferme la factory d'une base embarquée dont la préparation ou le remplissage a échoué, ainsi que
+     * l'EntityManager que le remplissage a lié au thread courant, puis annule la préparation de la base
+     * @param factory La factory, ou null si l'échec précède sa création
+     */
+    private static void abortSeeding(EntityManagerFactory factory) {
+        try {
+            if (factory != null) {
+                EntityManager em = currentEntityManager.get();
+                if (em != null && (!em.isOpen() || em.getEntityManagerFactory() == factory)) {
+                    currentEntityManager.remove();
+                    close(em);
+                }
+                factory.close();
+            }
+        } finally {
+            EmbeddedDatabase.abort();
+        }
+    }
+
+    private static void close(EntityManager em) {
+        if (em == null || !em.isOpen()) {
+            return;
+        }
+        try {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.clear();
+        } finally {
+            em.close();
+        }
+    }
 }
@@ -0,0 +1,49 @@
+package ch.hearc.ig.guideresto.persistence.jpa;
+
+import ch.hearc.ig.guideresto.persistence.ConnectionPool;
+import ch.hearc.ig.guideresto.persistence.ConnectionUtils;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Fournit à Hibernate les connexions du pool partagé avec les Data Mappers JDBC.
+ * Activé par la propriété hibernate.connection.provider_class (voir hibernate.properties.template).
+ * Le pool n'est pas fermé avec l'EntityManagerFactory, puisqu'il reste utilisé par {@link ConnectionUtils}.
+ */
+public class PooledConnectionProvider implements ConnectionProvider {
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return ConnectionUtils.getPool().getConnection();
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isAssignableFrom(PooledConnectionProvider.class)
+                || unwrapType.isAssignableFrom(ConnectionPool.class);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (unwrapType.isAssignableFrom(PooledConnectionProvider.class)) {
+            return unwrapType.cast(this);
+        }
+        if (unwrapType.isAssignableFrom(ConnectionPool.class)) {
+            return unwrapType.cast(ConnectionUtils.getPool());
+        }
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+}
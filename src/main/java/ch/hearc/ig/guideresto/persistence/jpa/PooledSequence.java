@@ -0,0 +1,32 @@
+package ch.hearc.ig.guideresto.persistence.jpa;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Génère l'identifiant d'une entité à partir d'une séquence Oracle, en réservant les valeurs par blocs.
+ * Remplace {@code @GeneratedValue} + {@code @SequenceGenerator(allocationSize = 1)}, qui coûtent un
+ * aller-retour vers la base de données par entité insérée.
+ *
+ * @see PooledSequenceGenerator
+ */
+@IdGeneratorType(PooledSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PooledSequence {
+
+    /**
+     * @return Le nom de la séquence en base de données
+     */
+    String name();
+
+    /**
+     * @return Le nombre de valeurs réservées par aller-retour (remplaçable par la propriété système
+     * guideresto.sequence.&lt;NOM_SEQUENCE&gt;.blockSize)
+     */
+    int blockSize() default 20;
+}
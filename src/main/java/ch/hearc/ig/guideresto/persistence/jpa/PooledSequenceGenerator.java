@@ -0,0 +1,59 @@
+package ch.hearc.ig.guideresto.persistence.jpa;
+
+import ch.hearc.ig.guideresto.persistence.SequenceBlockAllocator;
+import org.hibernate.boot.model.naming.Identifier;
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.boot.model.relational.Namespace;
+import org.hibernate.boot.model.relational.Sequence;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.IdentifierGenerationException;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.lang.reflect.Member;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Générateur Hibernate associé à {@link PooledSequence} : délègue au {@link SequenceBlockAllocator},
+ * partagé avec les Data Mappers JDBC.
+ */
+public class PooledSequenceGenerator implements IdentifierGenerator {
+
+    private final String sequenceName;
+    private final int blockSize;
+
+    public PooledSequenceGenerator(PooledSequence config, Member member, GeneratorCreationContext context) {
+        this.sequenceName = config.name();
+        this.blockSize = SequenceBlockAllocator.resolveBlockSize(config.name(), config.blockSize());
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        Connection connection = session.getJdbcCoordinator().getLogicalConnection().getPhysicalConnection();
+        try {
+            return Math.toIntExact(SequenceBlockAllocator.nextValue(connection, sequenceName, blockSize));
+        } catch (SQLException ex) {
+            throw new IdentifierGenerationException("Impossible d'obtenir une valeur de la séquence " + sequenceName, ex);
+        }
+    }
+
+    /**
+     * Déclare la séquence pour que les outils de génération de schéma d'Hibernate la créent
+     * (INCREMENT BY 1, comme dans GuideResto_CREATE_TABLES.sql)
+     */
+    @Override
+    public void registerExportables(Database database) {
+        Namespace namespace = database.getDefaultNamespace();
+        Identifier name = Identifier.toIdentifier(sequenceName);
+        if (namespace.locateSequence(name) == null) {
+            namespace.createSequence(name, physicalName -> new Sequence(
+                    null,
+                    namespace.getPhysicalName().catalog(),
+                    namespace.getPhysicalName().schema(),
+                    physicalName,
+                    1,
+                    1));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ch.hearc.ig.guideresto.persistence.jpa;
+
+import ch.hearc.ig.guideresto.monitoring.SlowQueryLog;
+import org.hibernate.engine.jdbc.connections.internal.DriverManagerConnectionProviderImpl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Pool de connexions intégré d'Hibernate, dont les connexions sont instrumentées par le {@link SlowQueryLog}.
+ * Activé par la propriété hibernate.connection.provider_class (voir hibernate.properties.template) ;
+ * {@link PooledConnectionProvider} l'est déjà par le pool qu'il partage.
+ */
+public class TimedConnectionProvider extends DriverManagerConnectionProviderImpl {
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return SlowQueryLog.getInstance().wrap(super.getConnection());
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        // Le pool d'Hibernate reprend la connexion qu'il a prêtée, pas le proxy
+        super.closeConnection(SlowQueryLog.getInstance().unwrap(connection));
+    }
+}
@@ -1,17 +1,23 @@
 package ch.hearc.ig.guideresto.presentation;
 
 import ch.hearc.ig.guideresto.business.*;
+import ch.hearc.ig.guideresto.monitoring.Monitoring;
 import ch.hearc.ig.guideresto.service.RestaurantService;
 import ch.hearc.ig.guideresto.service.EvaluationService;
+import ch.hearc.ig.guideresto.service.LikeCounters;
+import ch.hearc.ig.guideresto.service.LikeWriteBehindQueue;
+import ch.hearc.ig.guideresto.service.RequestContext;
 import ch.hearc.ig.guideresto.persistence.dao.CityDao;
 import ch.hearc.ig.guideresto.persistence.dao.RestaurantTypeDao;
 import ch.hearc.ig.guideresto.persistence.dao.EvaluationCriteriaDao;
+import ch.hearc.ig.guideresto.persistence.dao.KeysetCursor;
+import ch.hearc.ig.guideresto.persistence.dao.Slice;
 import ch.hearc.ig.guideresto.persistence.jpa.JpaUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import jakarta.persistence.EntityManager;
 
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * Application principale GuideResto - VERSION MODIFIÉE AVEC SERVICES
@@ -32,6 +38,10 @@ public class Application {
     private static Scanner scanner;
     private static final Logger logger = LogManager.getLogger(Application.class);
 
+    // Nombre de restaurants affichés par page, et saisie qui affiche la page suivante
+    private static final int PAGE_SIZE = 20;
+    private static final String NEXT_PAGE = "+";
+
     // ============= Déclaration des services =============
     private static RestaurantService restaurantService;
     private static EvaluationService evaluationService;
@@ -45,8 +55,9 @@ public class Application {
         logger.info("=== DÉMARRAGE APPLICATION GUIDERESTO ===");
 
         try {
-            EntityManager em = JpaUtils.getEntityManager();
-            logger.info("EntityManager créé avec succès !");
+            JpaUtils.getEntityManagerFactory();
+            logger.info("EntityManagerFactory créée avec succès !");
+            Monitoring.start();
 
             // ============= Initialisation des services =============
             restaurantService = new RestaurantService();
@@ -54,6 +65,11 @@ public class Application {
             cityDao = new CityDao();
             typeDao = new RestaurantTypeDao();
             criteriaDao = new EvaluationCriteriaDao();
+            JpaUtils.inUnitOfWork(restaurantService::buildSearchIndexes);
+            // Compteurs de likes initialisés en une requête, avant le premier affichage
+            LikeCounters.getInstance();
+            // L'utilisateur de la console vote depuis cette machine : son adresse est résolue une fois pour toutes
+            logger.info("Adresse IP des votes : {}", RequestContext.getLocalAddress());
             logger.info("Services initialisés avec succès !");
 
         } catch (Exception e) {
@@ -68,8 +84,15 @@ public class Application {
         do {
             printMainMenu();
             choice = readInt();
-            proceedMainMenu(choice);
+            // Chaque action de l'utilisateur est une unité de travail avec son propre EntityManager
+            final int mainChoice = choice;
+            JpaUtils.inUnitOfWork(() -> proceedMainMenu(mainChoice));
         } while (choice != 0);
+
+        LikeWriteBehindQueue.shutdown();
+        LikeCounters.shutdown();
+        Monitoring.stop();
+        JpaUtils.shutdown();
     }
 
     /**
@@ -116,26 +139,41 @@ public class Application {
     }
 
     /**
-     * On affiche à l'utilisateur une liste de restaurants numérotés, et il doit en sélectionner un
+     * On affiche à l'utilisateur une liste de restaurants, page par page, et il doit en sélectionner un.
+     * Seules les colonnes affichées de la page courante sont lues ; le restaurant choisi est ensuite chargé.
+     * @param pageLoader Charge la page qui suit le curseur donné (null pour la première page)
      */
-    private static Restaurant pickRestaurant(Set<Restaurant> restaurants) {
-        if (restaurants.isEmpty()) {
+    private static Restaurant pickRestaurant(Function<KeysetCursor, Slice<RestaurantListItem>> pageLoader) {
+        Slice<RestaurantListItem> page = pageLoader.apply(null);
+        if (page.isEmpty()) {
             System.out.println("Aucun restaurant n'a été trouvé !");
             return null;
         }
 
-        String result;
-        for (Restaurant currentRest : restaurants) {
-            result = "";
-            result = "\"" + result + currentRest.getName() + "\" - " + currentRest.getAddress().getStreet() + " - ";
-            result = result + currentRest.getAddress().getCity().getZipCode() + " " + currentRest.getAddress().getCity().getCityName();
-            System.out.println(result);
-        }
+        while (true) {
+            String result;
+            for (RestaurantListItem currentRest : page.content()) {
+                result = "";
+                result = "\"" + result + currentRest.name() + "\" - " + currentRest.street() + " - ";
+                result = result + currentRest.zipCode() + " " + currentRest.cityName();
+                System.out.println(result);
+            }
 
-        System.out.println("Veuillez saisir le nom exact du restaurant dont vous voulez voir le détail, ou appuyez sur Enter pour revenir en arrière");
-        String choice = readString();
+            if (page.hasNext()) {
+                System.out.println("Veuillez saisir le nom exact du restaurant dont vous voulez voir le détail, \""
+                        + NEXT_PAGE + "\" pour afficher la suite, ou appuyez sur Enter pour revenir en arrière");
+            } else {
+                System.out.println("Veuillez saisir le nom exact du restaurant dont vous voulez voir le détail, ou appuyez sur Enter pour revenir en arrière");
+            }
+            String choice = readString();
 
-        return searchRestaurantByName(restaurants, choice);
+            if (page.hasNext() && choice.equals(NEXT_PAGE)) {
+                page = pageLoader.apply(page.nextCursor());
+                continue;
+            }
+            RestaurantListItem chosen = searchRestaurantByName(page.content(), choice);
+            return chosen == null ? null : restaurantService.getRestaurantWithDetails(chosen.id());
+        }
     }
 
     /**
@@ -144,10 +182,7 @@ public class Application {
     private static void showRestaurantsList() {
         System.out.println("Liste des restaurants : ");
 
-        // AVANT : Restaurant restaurant = pickRestaurant(FakeItems.getAllRestaurants());
-        // APRÈS :
-        List<Restaurant> allRestaurants = restaurantService.getAllRestaurants();
-        Restaurant restaurant = pickRestaurant(new LinkedHashSet<>(allRestaurants));
+        Restaurant restaurant = pickRestaurant(cursor -> restaurantService.getRestaurants(cursor, PAGE_SIZE));
 
         if (restaurant != null) {
             showRestaurant(restaurant);
@@ -163,8 +198,8 @@ public class Application {
 
         // AVANT : Filtrage manuel avec FakeItems
         // APRÈS : Le service fait le filtrage
-        List<Restaurant> filteredList = restaurantService.searchRestaurantsByName(research);
-        Restaurant restaurant = pickRestaurant(new LinkedHashSet<>(filteredList));
+        Restaurant restaurant = pickRestaurant(
+                cursor -> restaurantService.searchRestaurantsByName(research, cursor, PAGE_SIZE));
 
         if (restaurant != null) {
             showRestaurant(restaurant);
@@ -191,8 +226,8 @@ public class Application {
         logger.info("Ville sélectionnée : {} {}", city.getZipCode(), city.getCityName());
 
         // Le service récupère les restaurants de cette ville
-        List<Restaurant> filteredList = restaurantService.getRestaurantsByCity(city.getId());
-        Restaurant restaurant = pickRestaurant(new LinkedHashSet<>(filteredList));
+        Restaurant restaurant = pickRestaurant(
+                cursor -> restaurantService.getRestaurantsByCity(city.getId(), cursor, PAGE_SIZE));
 
         if (restaurant != null) {
             showRestaurant(restaurant);
@@ -256,8 +291,8 @@ public class Application {
         }
 
         // Le service récupère les restaurants de ce type
-        List<Restaurant> filteredList = restaurantService.getRestaurantsByType(chosenType.getId());
-        Restaurant restaurant = pickRestaurant(new LinkedHashSet<>(filteredList));
+        Restaurant restaurant = pickRestaurant(
+                cursor -> restaurantService.getRestaurantsByType(chosenType.getId(), cursor, PAGE_SIZE));
 
         if (restaurant != null) {
             showRestaurant(restaurant);
@@ -321,11 +356,10 @@ public class Application {
         sb.append(restaurant.getAddress().getStreet()).append(", ");
         sb.append(restaurant.getAddress().getCity().getZipCode()).append(" ").append(restaurant.getAddress().getCity().getCityName()).append("\n");
 
-        // ============= Utilise evaluationService pour les statistiques =============
-        int likes = evaluationService.countLikes(restaurant.getId());
-        int dislikes = evaluationService.countDislikes(restaurant.getId());
-        sb.append("Nombre de likes : ").append(likes).append("\n");
-        sb.append("Nombre de dislikes : ").append(dislikes).append("\n");
+        // ============= Utilise evaluationService pour les statistiques (une seule requête) =============
+        RestaurantRatingSummary summary = evaluationService.getRatingSummary(restaurant.getId());
+        sb.append("Nombre de likes : ").append(summary.likes()).append("\n");
+        sb.append("Nombre de dislikes : ").append(summary.dislikes()).append("\n");
 
         sb.append("\nEvaluations reçues : ").append("\n");
 
@@ -336,17 +370,12 @@ public class Application {
         }
 
         // ============= Afficher les moyennes =============
-        double avgOverall = evaluationService.getOverallAverageGrade(restaurant.getId());
-        if (avgOverall > 0) {
+        if (summary.gradeCount() > 0) {
             sb.append("\n=== MOYENNES DES NOTES ===\n");
-            double avgService = evaluationService.getAverageGradeForCriteria(restaurant.getId(), "Service");
-            double avgCuisine = evaluationService.getAverageGradeForCriteria(restaurant.getId(), "Cuisine");
-            double avgCadre = evaluationService.getAverageGradeForCriteria(restaurant.getId(), "Cadre");
-
-            sb.append("Service : ").append(String.format("%.1f", avgService)).append("/5\n");
-            sb.append("Cuisine : ").append(String.format("%.1f", avgCuisine)).append("/5\n");
-            sb.append("Cadre : ").append(String.format("%.1f", avgCadre)).append("/5\n");
-            sb.append("Moyenne générale : ").append(String.format("%.1f", avgOverall)).append("/5\n");
+            for (Map.Entry<String, Double> average : summary.averageByCriteria().entrySet()) {
+                sb.append(average.getKey()).append(" : ").append(String.format("%.1f", average.getValue())).append("/5\n");
+            }
+            sb.append("Moyenne générale : ").append(String.format("%.1f", summary.overallAverage())).append("/5\n");
         }
 
         System.out.println(sb);
@@ -359,20 +388,6 @@ public class Application {
         } while (choice != 0 && choice != 6);
     }
 
-    /**
-     * Compte le nombre de likes - GARDÉ pour compatibilité mais maintenant redondant
-     * (evaluationService.countLikes fait la même chose)
-     */
-    private static int countLikes(Set<Evaluation> evaluations, Boolean likeRestaurant) {
-        int count = 0;
-        for (Evaluation currentEval : evaluations) {
-            if (currentEval instanceof BasicEvaluation && ((BasicEvaluation) currentEval).getLikeRestaurant() == likeRestaurant) {
-                count++;
-            }
-        }
-        return count;
-    }
-
     /**
      * Retourne un String qui contient le détail complet d'une CompleteEvaluation
      */
@@ -461,7 +476,7 @@ public class Application {
         String comment = readString();
 
         // Créer la map des notes
-        Map<String, Integer> criteriaGrades = new HashMap<>();
+        Map<Integer, Integer> criteriaGrades = new HashMap<>();
 
         // MODIFIÉ : Utilise criteriaDao
         List<EvaluationCriteria> allCriteria = criteriaDao.findAll();
@@ -477,11 +492,11 @@ public class Application {
                 note = readInt();
             }
 
-            criteriaGrades.put(currentCriteria.getName(), note);
+            criteriaGrades.put(currentCriteria.getId(), note);
         }
 
         // ============= NOUVEAU : Création via le service (avec validation !) =============
-        CompleteEvaluation eval = evaluationService.addCompleteEvaluation(
+        CompleteEvaluation eval = evaluationService.addCompleteEvaluationByCriteriaIds(
                 restaurant.getId(),
                 username,
                 comment,
@@ -580,11 +595,11 @@ public class Application {
     }
 
     /**
-     * Recherche dans le Set le restaurant comportant le nom passé en paramètre.
+     * Recherche dans la liste le restaurant comportant le nom passé en paramètre.
      */
-    private static Restaurant searchRestaurantByName(Set<Restaurant> restaurants, String name) {
-        for (Restaurant current : restaurants) {
-            if (current.getName().equalsIgnoreCase(name)) {
+    private static RestaurantListItem searchRestaurantByName(Collection<RestaurantListItem> restaurants, String name) {
+        for (RestaurantListItem current : restaurants) {
+            if (current.name().equalsIgnoreCase(name)) {
                 return current;
             }
         }
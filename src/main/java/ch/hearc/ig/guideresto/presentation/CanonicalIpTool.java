@@ -0,0 +1,34 @@
+package ch.hearc.ig.guideresto.presentation;
+
+import ch.hearc.ig.guideresto.persistence.dao.EvaluationDao;
+import ch.hearc.ig.guideresto.persistence.jpa.JpaUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Mise sous forme canonique des adresses IP des likes depuis la ligne de commande : {@code CanonicalIpTool}
+ *
+ * À lancer une fois sur une base existante : les likes enregistrés avant {@link ch.hearc.ig.guideresto.business.IpAddresses}
+ * portent une adresse au format "hôte/adresse". L'outil peut être relancé sans effet sur les lignes déjà converties.
+ */
+public class CanonicalIpTool {
+
+    private static final Logger logger = LogManager.getLogger(CanonicalIpTool.class);
+
+    public static void main(String[] args) {
+        int exitCode = 0;
+        try {
+            int updated = new EvaluationDao().canonicalizeIpAddresses();
+            System.out.println("Adresses IP mises sous forme canonique : " + updated + " like(s)");
+        } catch (RuntimeException ex) {
+            logger.error("Conversion des adresses IP interrompue : {}", ex.getMessage(), ex);
+            System.err.println("Conversion des adresses IP interrompue : " + ex.getMessage());
+            exitCode = 1;
+        } finally {
+            JpaUtils.shutdown();
+        }
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+}
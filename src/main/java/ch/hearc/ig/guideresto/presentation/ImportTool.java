@@ -0,0 +1,54 @@
+package ch.hearc.ig.guideresto.presentation;
+
+import ch.hearc.ig.guideresto.persistence.importer.DataImporter;
+import ch.hearc.ig.guideresto.persistence.importer.ImportException;
+import ch.hearc.ig.guideresto.persistence.importer.ImportReport;
+import ch.hearc.ig.guideresto.persistence.jpa.JpaUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Import en masse depuis la ligne de commande :
+ * {@code ImportTool <répertoire> [--restart]}
+ *
+ * Le répertoire contient les fichiers villes, types, restaurants, likes et commentaires (.csv ou .json).
+ * Un import interrompu reprend automatiquement à son dernier point de reprise ; --restart l'ignore
+ * et recommence depuis le début des fichiers.
+ */
+public class ImportTool {
+
+    private static final Logger logger = LogManager.getLogger(ImportTool.class);
+
+    public static void main(String[] args) {
+        if (args.length == 0 || !Files.isDirectory(Path.of(args[0]))) {
+            System.err.println("Usage : ImportTool <répertoire> [--restart]");
+            System.exit(2);
+        }
+        Path directory = Path.of(args[0]);
+        boolean restart = args.length > 1 && args[1].equals("--restart");
+
+        int exitCode = 0;
+        try {
+            DataImporter importer = new DataImporter();
+            if (restart) {
+                importer.discardCheckpoint(directory);
+            }
+            ImportReport report = importer.importDirectory(directory);
+            System.out.println(report);
+        } catch (ImportException ex) {
+            logger.error("Import interrompu : {}", ex.getMessage(), ex);
+            System.err.println("Import interrompu : " + ex.getMessage()
+                    + System.lineSeparator() + "Relancer la même commande pour reprendre.");
+            exitCode = 1;
+        } finally {
+            JpaUtils.shutdown();
+        }
+        // Après la fermeture de JPA : System.exit dans le try empêcherait le finally de s'exécuter
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ch.hearc.ig.guideresto.presentation;
+
+import ch.hearc.ig.guideresto.persistence.dao.RestaurantStatsDao;
+import ch.hearc.ig.guideresto.persistence.jpa.JpaUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Reconstruction de la table RESTAURANT_STATS depuis la ligne de commande : {@code RebuildStatsTool}
+ *
+ * À lancer après la création de la table sur une base existante, ou après des écritures faites
+ * directement en SQL sur NOTES ou COMMENTAIRES. L'application peut rester en service pendant la reconstruction.
+ */
+public class RebuildStatsTool {
+
+    private static final Logger logger = LogManager.getLogger(RebuildStatsTool.class);
+
+    public static void main(String[] args) {
+        int exitCode = 0;
+        try {
+            long rows = new RestaurantStatsDao().rebuild();
+            System.out.println("Statistiques reconstruites : " + rows + " ligne(s)");
+        } catch (RuntimeException ex) {
+            logger.error("Reconstruction des statistiques interrompue : {}", ex.getMessage(), ex);
+            System.err.println("Reconstruction des statistiques interrompue : " + ex.getMessage());
+            exitCode = 1;
+        } finally {
+            JpaUtils.shutdown();
+        }
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ch.hearc.ig.guideresto.service;
+
+import ch.hearc.ig.guideresto.business.BasicEvaluation;
+import ch.hearc.ig.guideresto.business.CompleteEvaluation;
+import ch.hearc.ig.guideresto.business.RestaurantRatingSummary;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Façade asynchrone de {@link EvaluationService}.
+ * Chaque appel s'exécute sur un thread virtuel, dans sa propre unité de travail JPA (et donc sa propre
+ * transaction pour les écritures) : les évaluations retournées sont détachées.
+ */
+public class AsyncEvaluationService {
+
+    private final EvaluationService evaluationService;
+    private final AsyncExecutor executor;
+
+    /**
+     * Constructeur qui utilise l'exécuteur partagé (un thread virtuel par tâche)
+     */
+    public AsyncEvaluationService() {
+        this(new EvaluationService(), new AsyncExecutor());
+    }
+
+    /**
+     * @param executor L'exécuteur des tâches (chaque tâche reçoit tout de même son propre EntityManager)
+     */
+    public AsyncEvaluationService(ExecutorService executor) {
+        this(new EvaluationService(), new AsyncExecutor(executor));
+    }
+
+    private AsyncEvaluationService(EvaluationService evaluationService, AsyncExecutor executor) {
+        this.evaluationService = evaluationService;
+        this.executor = executor;
+    }
+
+    /**
+     * @see EvaluationService#addBasicEvaluation(Integer, Boolean)
+     */
+    public CompletableFuture<BasicEvaluation> addBasicEvaluation(Integer restaurantId, Boolean like) {
+        return executor.supply(() -> evaluationService.addBasicEvaluation(restaurantId, like));
+    }
+
+    /**
+     * @see EvaluationService#addCompleteEvaluationByCriteriaIds(Integer, String, String, Map)
+     */
+    public CompletableFuture<CompleteEvaluation> addCompleteEvaluation(Integer restaurantId, String username,
+                                                                       String comment,
+                                                                       Map<Integer, Integer> gradesByCriteriaId) {
+        return executor.supply(() -> evaluationService.addCompleteEvaluationByCriteriaIds(
+                restaurantId, username, comment, gradesByCriteriaId));
+    }
+
+    /**
+     * @see EvaluationService#addCompleteEvaluations(List)
+     */
+    public CompletableFuture<List<CompleteEvaluation>> addCompleteEvaluations(List<CompleteEvaluationRequest> requests) {
+        return executor.supply(() -> evaluationService.addCompleteEvaluations(requests));
+    }
+
+    /**
+     * @see EvaluationService#countLikes(Integer)
+     */
+    public CompletableFuture<Integer> countLikes(Integer restaurantId) {
+        return executor.supply(() -> evaluationService.countLikes(restaurantId));
+    }
+
+    /**
+     * @see EvaluationService#countDislikes(Integer)
+     */
+    public CompletableFuture<Integer> countDislikes(Integer restaurantId) {
+        return executor.supply(() -> evaluationService.countDislikes(restaurantId));
+    }
+
+    /**
+     * @see EvaluationService#getOverallAverageGrade(Integer)
+     */
+    public CompletableFuture<Double> getOverallAverageGrade(Integer restaurantId) {
+        return executor.supply(() -> evaluationService.getOverallAverageGrade(restaurantId));
+    }
+
+    /**
+     * @see EvaluationService#getAverageGradeForCriteria(Integer, String)
+     */
+    public CompletableFuture<Double> getAverageGradeForCriteria(Integer restaurantId, String criteriaName) {
+        return executor.supply(() -> evaluationService.getAverageGradeForCriteria(restaurantId, criteriaName));
+    }
+
+    /**
+     * @see EvaluationService#getRatingSummary(Integer)
+     */
+    public CompletableFuture<RestaurantRatingSummary> getRatingSummary(Integer restaurantId) {
+        return executor.supply(() -> evaluationService.getRatingSummary(restaurantId));
+    }
+
+    /**
+     * @see EvaluationService#getCompleteEvaluations(Integer)
+     */
+    public CompletableFuture<List<CompleteEvaluation>> getCompleteEvaluations(Integer restaurantId) {
+        return executor.supply(() -> evaluationService.getCompleteEvaluations(restaurantId));
+    }
+}
@@ -0,0 +1,44 @@
+package ch.hearc.ig.guideresto.service;
+
+import ch.hearc.ig.guideresto.persistence.jpa.JpaUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Exécution des services asynchrones : un thread virtuel par tâche, et chaque tâche dans sa propre
+ * unité de travail JPA (un EntityManager neuf, fermé à la fin de la tâche).
+ * Les entités retournées sont donc détachées : seules les associations déjà chargées sont utilisables.
+ * Le nombre de requêtes simultanées reste borné par la taille du pool de connexions.
+ */
+final class AsyncExecutor {
+
+    private static final ExecutorService SHARED = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final ExecutorService executor;
+
+    AsyncExecutor() {
+        this(SHARED);
+    }
+
+    AsyncExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Lance un traitement sur un thread virtuel, dans une unité de travail et pour le compte du client
+     * de la requête en cours ({@link RequestContext})
+     * @param work Le traitement
+     * @return Le résultat à venir
+     */
+    <T> CompletableFuture<T> supply(Supplier<T> work) {
+        String clientAddress = RequestContext.getBoundClientAddress();
+        if (clientAddress == null) {
+            return CompletableFuture.supplyAsync(() -> JpaUtils.inUnitOfWork(work), executor);
+        }
+        return CompletableFuture.supplyAsync(() -> RequestContext.withClientAddress(clientAddress,
+                () -> JpaUtils.inUnitOfWork(work)), executor);
+    }
+}
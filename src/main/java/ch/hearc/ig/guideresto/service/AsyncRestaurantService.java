@@ -0,0 +1,148 @@
+package ch.hearc.ig.guideresto.service;
+
+import ch.hearc.ig.guideresto.business.Restaurant;
+import ch.hearc.ig.guideresto.business.RestaurantListItem;
+import ch.hearc.ig.guideresto.business.RestaurantRatingSummary;
+import ch.hearc.ig.guideresto.persistence.dao.KeysetCursor;
+import ch.hearc.ig.guideresto.persistence.dao.Slice;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Façade asynchrone de {@link RestaurantService}.
+ * Chaque appel s'exécute sur un thread virtuel, dans sa propre unité de travail JPA : les restaurants
+ * retournés sont détachés et seules les associations chargées par la méthode appelée sont accessibles.
+ */
+public class AsyncRestaurantService {
+
+    private static final Logger logger = LogManager.getLogger(AsyncRestaurantService.class);
+
+    private final RestaurantService restaurantService;
+    private final EvaluationService evaluationService;
+    private final AsyncExecutor executor;
+
+    /**
+     * Constructeur qui utilise l'exécuteur partagé (un thread virtuel par tâche)
+     */
+    public AsyncRestaurantService() {
+        this(new RestaurantService(), new EvaluationService(), new AsyncExecutor());
+    }
+
+    /**
+     * @param executor L'exécuteur des tâches (chaque tâche reçoit tout de même son propre EntityManager)
+     */
+    public AsyncRestaurantService(ExecutorService executor) {
+        this(new RestaurantService(), new EvaluationService(), new AsyncExecutor(executor));
+    }
+
+    private AsyncRestaurantService(RestaurantService restaurantService, EvaluationService evaluationService,
+                                   AsyncExecutor executor) {
+        this.restaurantService = restaurantService;
+        this.evaluationService = evaluationService;
+        this.executor = executor;
+    }
+
+    /**
+     * @see RestaurantService#getRestaurants(KeysetCursor, int)
+     */
+    public CompletableFuture<Slice<RestaurantListItem>> getRestaurants(KeysetCursor after, int size) {
+        return executor.supply(() -> restaurantService.getRestaurants(after, size));
+    }
+
+    /**
+     * @see RestaurantService#searchRestaurantsByName(String, KeysetCursor, int)
+     */
+    public CompletableFuture<Slice<RestaurantListItem>> searchRestaurantsByName(String name, KeysetCursor after,
+                                                                                int size) {
+        return executor.supply(() -> restaurantService.searchRestaurantsByName(name, after, size));
+    }
+
+    /**
+     * @see RestaurantService#getRestaurantsByCity(Integer, KeysetCursor, int)
+     */
+    public CompletableFuture<Slice<RestaurantListItem>> getRestaurantsByCity(Integer cityId, KeysetCursor after,
+                                                                             int size) {
+        return executor.supply(() -> restaurantService.getRestaurantsByCity(cityId, after, size));
+    }
+
+    /**
+     * @see RestaurantService#getRestaurantsByType(Integer, KeysetCursor, int)
+     */
+    public CompletableFuture<Slice<RestaurantListItem>> getRestaurantsByType(Integer typeId, KeysetCursor after,
+                                                                             int size) {
+        return executor.supply(() -> restaurantService.getRestaurantsByType(typeId, after, size));
+    }
+
+    /**
+     * @see RestaurantService#getRestaurantWithDetails(Integer)
+     */
+    public CompletableFuture<Restaurant> getRestaurantWithDetails(Integer id) {
+        return executor.supply(() -> restaurantService.getRestaurantWithDetails(id));
+    }
+
+    /**
+     * @see RestaurantService#countRestaurants()
+     */
+    public CompletableFuture<Integer> countRestaurants() {
+        return executor.supply(restaurantService::countRestaurants);
+    }
+
+    /**
+     * @see RestaurantService#restaurantExists(Integer)
+     */
+    public CompletableFuture<Boolean> restaurantExists(Integer id) {
+        return executor.supply(() -> restaurantService.restaurantExists(id));
+    }
+
+    /**
+     * Charge la vue détaillée d'un restaurant : le restaurant avec ses évaluations et la synthèse de ses
+     * notes sont recherchés en parallèle, chacun sur sa connexion. La durée est celle de la recherche la
+     * plus lente ; si l'une échoue ou si le délai est dépassé, l'autre est annulée.
+     * @param id L'ID du restaurant
+     * @param timeout Délai maximal
+     * @return Les données de la vue détaillée, ou null si le restaurant n'existe pas
+     * @throws TimeoutException si le délai est dépassé
+     * @throws ExecutionException si une des recherches a échoué
+     * @throws InterruptedException si le thread appelant est interrompu
+     */
+    public RestaurantDetailPage loadDetailPage(Integer id, Duration timeout)
+            throws TimeoutException, ExecutionException, InterruptedException {
+        logger.debug("Service: Chargement parallèle du détail du restaurant avec ID {}", id);
+        try (LookupScope scope = new LookupScope(timeout)) {
+            Supplier<Restaurant> restaurant = scope.fork(() -> restaurantService.getRestaurantWithDetails(id));
+            Supplier<RestaurantRatingSummary> summary = scope.fork(() -> evaluationService.getRatingSummary(id));
+            scope.join();
+
+            if (restaurant.get() == null) {
+                return null;
+            }
+            return new RestaurantDetailPage(restaurant.get(), summary.get());
+        }
+    }
+
+    /**
+     * Version asynchrone de {@link #loadDetailPage(Integer, Duration)}, l'attente se faisant sur un thread virtuel
+     * @param id L'ID du restaurant
+     * @param timeout Délai maximal
+     * @return Les données à venir ; en cas d'échec ou de délai dépassé, le futur est complété exceptionnellement
+     */
+    public CompletableFuture<RestaurantDetailPage> loadDetailPageAsync(Integer id, Duration timeout) {
+        return executor.supply(() -> {
+            try {
+                return loadDetailPage(id, timeout);
+            } catch (TimeoutException | ExecutionException ex) {
+                throw new IllegalStateException("Chargement du détail du restaurant " + id + " impossible", ex);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Chargement du détail du restaurant " + id + " interrompu", ex);
+            }
+        });
+    }
+}
@@ -0,0 +1,16 @@
+package ch.hearc.ig.guideresto.service;
+
+import java.util.Map;
+
+/**
+ * Données d'une évaluation complète à créer, utilisées par l'import en masse
+ * ({@link EvaluationService#addCompleteEvaluations(java.util.List)})
+ *
+ * @param restaurantId L'ID du restaurant évalué
+ * @param username Le nom de l'utilisateur
+ * @param comment Le commentaire
+ * @param criteriaGrades Map des critères (nom du critère → note)
+ */
+public record CompleteEvaluationRequest(Integer restaurantId, String username, String comment,
+                                        Map<String, Integer> criteriaGrades) {
+}
@@ -1,15 +1,28 @@
 package ch.hearc.ig.guideresto.service;
 
 import ch.hearc.ig.guideresto.business.*;
-import ch.hearc.ig.guideresto.persistence.dao.EvaluationCriteriaDao;
+import ch.hearc.ig.guideresto.monitoring.Monitoring;
+import ch.hearc.ig.guideresto.monitoring.ServiceOperationEvent;
+import ch.hearc.ig.guideresto.persistence.dao.EvaluationCriteriaRegistry;
+import ch.hearc.ig.guideresto.persistence.dao.EvaluationDao;
 import ch.hearc.ig.guideresto.persistence.dao.RestaurantDao;
+import ch.hearc.ig.guideresto.persistence.dao.RestaurantStatsDao;
+import ch.hearc.ig.guideresto.persistence.jpa.JpaUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.Hibernate;
 
-import java.net.Inet4Address;
-import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Service pour gérer la logique métier des évaluations
@@ -21,14 +34,21 @@ public class EvaluationService {
 
     // Les DAO utilisés par ce service
     private final RestaurantDao restaurantDao;
-    private final EvaluationCriteriaDao criteriaDao;
+    private final EvaluationDao evaluationDao;
+    private final RestaurantStatsDao statsDao;
+    private final EvaluationCriteriaRegistry criteriaRegistry;
+    // File d'écriture différée des likes, null si le mode n'est pas activé
+    private final LikeWriteBehindQueue likeQueue;
 
     /**
      * Constructeur qui initialise les DAO nécessaires
      */
     public EvaluationService() {
         this.restaurantDao = new RestaurantDao();
-        this.criteriaDao = new EvaluationCriteriaDao();
+        this.evaluationDao = new EvaluationDao();
+        this.statsDao = new RestaurantStatsDao();
+        this.criteriaRegistry = EvaluationCriteriaRegistry.getInstance();
+        this.likeQueue = LikeWriteBehindQueue.getInstance();
     }
 
     // ==================== MÉTHODES POUR BASIC EVALUATION (LIKES) ====================
@@ -37,79 +57,99 @@ public class EvaluationService {
      * Ajoute un like ou dislike à un restaurant
      * LOGIQUE MÉTIER:
      * - Vérifie que le restaurant existe
-     * - Récupère automatiquement l'adresse IP de l'utilisateur
+     * - Enregistre l'adresse IP du client de la requête ({@link RequestContext}), ou à défaut celle de la machine
      * - Ajoute la date actuelle
      *
+     * En mode write-behind ({@link LikeWriteBehindQueue}), le like est déposé dans la file d'écriture différée.
+     * L'évaluation retournée n'est alors pas gérée par JPA ni ajoutée aux évaluations du restaurant (le thread
+     * d'écriture insère sa propre copie) ; elle ne reçoit son ID qu'en mode synchrone. Le like est compté dès
+     * son dépôt et décompté si son écriture échoue.
+     *
      * @param restaurantId L'ID du restaurant à évaluer
      * @param like true pour un like, false pour un dislike
      * @return L'évaluation créée, ou null en cas d'erreur
      */
     public BasicEvaluation addBasicEvaluation(Integer restaurantId, Boolean like) {
-        logger.info("Service: Ajout d'une évaluation basique ({}) pour le restaurant ID {}",
-                like ? "Like" : "Dislike", restaurantId);
-
-        // Vérifier que le restaurant existe
-        Restaurant restaurant = restaurantDao.findById(restaurantId);
-        if (restaurant == null) {
-            logger.error("Erreur: Le restaurant avec l'ID {} n'existe pas", restaurantId);
-            return null;
-        }
+        return timed("addBasicEvaluation", restaurantId, () -> {
+            logger.info("Service: Ajout d'une évaluation basique ({}) pour le restaurant ID {}",
+                    like ? "Like" : "Dislike", restaurantId);
 
-        // Récupérer l'adresse IP de l'utilisateur
-        String ipAddress = getLocalIpAddress();
-
-        // Créer l'évaluation
-        BasicEvaluation evaluation = new BasicEvaluation(
-                new Date(),           // Date actuelle
-                restaurant,           // Le restaurant évalué
-                like,                 // Like ou dislike
-                ipAddress            // Adresse IP
-        );
-
-        // Ajouter l'évaluation au restaurant
-        restaurant.getEvaluations().add(evaluation);
+            // Vérifier que le restaurant existe
+            Restaurant restaurant = findRestaurantReference(restaurantId);
+            if (restaurant == null) {
+                return null;
+            }
 
-        // Sauvegarder le restaurant (cascade save sur l'évaluation)
-        restaurantDao.save(restaurant);
+            // Adresse IP du client de la requête (voir RequestContext), sans résolution DNS
+            String ipAddress = RequestContext.getClientAddress();
+
+            // Créer l'évaluation
+            BasicEvaluation evaluation = new BasicEvaluation(
+                    new Date(),           // Date actuelle
+                    restaurant,           // Le restaurant évalué
+                    like,                 // Like ou dislike
+                    ipAddress            // Adresse IP
+            );
+
+            // L'écriture est signalée aux compteurs jusqu'à ce que le like soit validé et compté (réconciliation)
+            LikeCounters counters = LikeCounters.getInstance();
+            if (counters != null) {
+                counters.begin(restaurantId);
+            }
+            boolean handedOver = false;
+            try {
+                CompletableFuture<Integer> written = likeQueue == null ? null
+                        : likeQueue.submit(restaurantId, evaluation);
+                if (written != null) {
+                    countLike(restaurantId, like);
+                    handedOver = true;
+                    written.whenComplete((id, failure) -> {
+                        if (failure != null) {
+                            uncountLike(restaurantId, like);
+                        }
+                        endLikeWrite(restaurantId);
+                    });
+                    if (written.isDone() && !written.isCompletedExceptionally()) {
+                        // Mode synchrone : l'ID est publié par le Future, l'entité n'est modifiée que par ce thread
+                        evaluation.setId(written.join());
+                    }
+                    logger.info("Évaluation basique mise en file d'écriture");
+                    return evaluation;
+                }
+
+                // Sauvegarder l'évaluation, sans fusionner le graphe du restaurant
+                evaluationDao.insert(evaluation);
+                addToLoadedEvaluations(restaurant, evaluation);
+                countLike(restaurantId, like);
+            } finally {
+                if (!handedOver) {
+                    endLikeWrite(restaurantId);
+                }
+            }
 
-        logger.info("Évaluation basique ajoutée avec succès");
-        return evaluation;
+            logger.info("Évaluation basique ajoutée avec succès");
+            return evaluation;
+        });
     }
 
     /**
-     * Compte le nombre de likes pour un restaurant
+     * Compte le nombre de likes pour un restaurant, lu dans les compteurs en mémoire ({@link LikeCounters})
+     * ou, s'ils sont désactivés, en base
      * @param restaurantId L'ID du restaurant
      * @return Le nombre de likes
      */
     public int countLikes(Integer restaurantId) {
-        Restaurant restaurant = restaurantDao.findById(restaurantId);
-        if (restaurant == null) {
-            return 0;
-        }
-
-        return (int) restaurant.getEvaluations().stream()
-                .filter(eval -> eval instanceof BasicEvaluation)
-                .map(eval -> (BasicEvaluation) eval)
-                .filter(BasicEvaluation::getLikeRestaurant)
-                .count();
+        return timed("countLikes", restaurantId, () -> (int) readLikeCount(restaurantId, true));
     }
 
     /**
      * Compte le nombre de dislikes pour un restaurant
      * @param restaurantId L'ID du restaurant
      * @return Le nombre de dislikes
+     * @see #countLikes(Integer)
      */
     public int countDislikes(Integer restaurantId) {
-        Restaurant restaurant = restaurantDao.findById(restaurantId);
-        if (restaurant == null) {
-            return 0;
-        }
-
-        return (int) restaurant.getEvaluations().stream()
-                .filter(eval -> eval instanceof BasicEvaluation)
-                .map(eval -> (BasicEvaluation) eval)
-                .filter(be -> !be.getLikeRestaurant())
-                .count();
+        return timed("countDislikes", restaurantId, () -> (int) readLikeCount(restaurantId, false));
     }
 
     // ==================== MÉTHODES POUR COMPLETE EVALUATION (AVEC NOTES) ====================
@@ -122,6 +162,9 @@ public class EvaluationService {
      * - Valide que les notes sont entre 1 et 5
      * - Crée automatiquement les objets Grade associés
      *
+     * L'évaluation est insérée directement (persist en cascade sur les notes), sans fusionner
+     * le graphe du restaurant : les INSERT de l'évaluation et des notes partent en lots JDBC.
+     *
      * @param restaurantId L'ID du restaurant à évaluer
      * @param username Le nom de l'utilisateur
      * @param comment Le commentaire
@@ -130,53 +173,69 @@ public class EvaluationService {
      */
     public CompleteEvaluation addCompleteEvaluation(Integer restaurantId, String username,
                                                     String comment,
-                                                    java.util.Map<String, Integer> criteriaGrades) {
-        logger.info("Service: Ajout d'une évaluation complète par '{}' pour le restaurant ID {}",
-                username, restaurantId);
-
-        // Vérifier que le restaurant existe
-        Restaurant restaurant = restaurantDao.findById(restaurantId);
-        if (restaurant == null) {
-            logger.error("Erreur: Le restaurant avec l'ID {} n'existe pas", restaurantId);
-            return null;
-        }
-
-        // Créer l'évaluation complète
-        CompleteEvaluation evaluation = new CompleteEvaluation(
-                new Date(),
-                restaurant,
-                comment,
-                username
-        );
-
-        // Ajouter les notes pour chaque critère
-        for (java.util.Map.Entry<String, Integer> entry : criteriaGrades.entrySet()) {
-            String criteriaName = entry.getKey();
-            Integer gradeValue = entry.getValue();
-
-            // Valider la note (doit être entre 1 et 5)
-            if (gradeValue < 1 || gradeValue > 5) {
-                logger.error("Erreur: La note {} n'est pas valide (doit être entre 1 et 5)", gradeValue);
+                                                    Map<String, Integer> criteriaGrades) {
+        return timed("addCompleteEvaluation", restaurantId, () -> {
+            logger.info("Service: Ajout d'une évaluation complète par '{}' pour le restaurant ID {}",
+                    username, restaurantId);
+
+            // Vérifier que le restaurant existe
+            Restaurant restaurant = findRestaurantReference(restaurantId);
+            if (restaurant == null) {
                 return null;
             }
 
-            // Récupérer le critère
-            EvaluationCriteria criteria = criteriaDao.findByExactName(criteriaName);
-            if (criteria == null) {
-                logger.error("Erreur: Le critère '{}' n'existe pas", criteriaName);
+            CompleteEvaluation evaluation = createCompleteEvaluation(restaurant, username, comment,
+                    criteriaGrades, criteriaRegistry::getReference);
+            return insertCompleteEvaluation(restaurant, evaluation);
+        });
+    }
+
+    /**
+     * Crée une évaluation complète dont les notes sont indexées par ID de critère
+     * (par exemple lorsque les critères proviennent de {@link #getCriteriaNamesById()}).
+     * Mêmes règles métier que {@link #addCompleteEvaluation(Integer, String, String, Map)}.
+     *
+     * @param restaurantId L'ID du restaurant à évaluer
+     * @param username Le nom de l'utilisateur
+     * @param comment Le commentaire
+     * @param gradesByCriteriaId Map des critères (ID du critère → note)
+     * @return L'évaluation créée, ou null en cas d'erreur
+     */
+    public CompleteEvaluation addCompleteEvaluationByCriteriaIds(Integer restaurantId, String username,
+                                                                 String comment,
+                                                                 Map<Integer, Integer> gradesByCriteriaId) {
+        return timed("addCompleteEvaluationByCriteriaIds", restaurantId, () -> {
+            logger.info("Service: Ajout d'une évaluation complète par '{}' pour le restaurant ID {}",
+                    username, restaurantId);
+
+            Restaurant restaurant = findRestaurantReference(restaurantId);
+            if (restaurant == null) {
                 return null;
             }
 
-            // Créer la note
-            Grade grade = new Grade(gradeValue, evaluation, criteria);
-            evaluation.getGrades().add(grade);
+            CompleteEvaluation evaluation = createCompleteEvaluation(restaurant, username, comment,
+                    gradesByCriteriaId, criteriaRegistry::getReference);
+            return insertCompleteEvaluation(restaurant, evaluation);
+        });
+    }
+
+    /**
+     * Retourne les critères d'évaluation disponibles, sans requête une fois le registre chargé
+     * @return Les noms des critères indexés par ID, dans l'ordre alphabétique
+     */
+    public Map<Integer, String> getCriteriaNamesById() {
+        return timed("getCriteriaNamesById", () -> criteriaRegistry.getNamesById());
+    }
+
+    private CompleteEvaluation insertCompleteEvaluation(Restaurant restaurant, CompleteEvaluation evaluation) {
+        if (evaluation == null) {
+            return null;
         }
 
-        // Ajouter l'évaluation au restaurant
-        restaurant.getEvaluations().add(evaluation);
+        // Sauvegarder (cascade persist sur les notes)
+        evaluationDao.insert(evaluation);
 
-        // Sauvegarder (cascade save sur l'évaluation et les grades)
-        restaurantDao.save(restaurant);
+        addToLoadedEvaluations(restaurant, evaluation);
 
         logger.info("Évaluation complète ajoutée avec succès avec {} notes",
                 evaluation.getGrades().size());
@@ -184,46 +243,91 @@ public class EvaluationService {
     }
 
     /**
-     * Calcule la moyenne des notes pour un critère donné sur un restaurant
+     * Crée plusieurs évaluations complètes dans une seule transaction, par exemple lors d'un import d'avis.
+     * LOGIQUE MÉTIER:
+     * - L'existence des restaurants est vérifiée en une seule requête
+     * - Les critères sont résolus par le registre en mémoire, sans requête
+     * - Une demande invalide (restaurant ou critère inconnu, note hors de 1 à 5) est ignorée et journalisée
+     *
+     * Les évaluations et leurs notes sont insérées par lots JDBC (une instruction par table et par lot)
+     * dans une unité de travail séparée : le contexte de persistance de l'appelant n'est pas vidé.
+     *
+     * @param requests Les évaluations à créer
+     * @return Les évaluations créées (détachées), dans l'ordre des demandes valides
+     */
+    public List<CompleteEvaluation> addCompleteEvaluations(List<CompleteEvaluationRequest> requests) {
+        return timed("addCompleteEvaluations", () -> {
+            logger.info("Service: Ajout en masse de {} évaluations complètes", requests.size());
+            if (requests.isEmpty()) {
+                return List.of();
+            }
+
+            return JpaUtils.inUnitOfWork(() -> {
+                // Vérifier l'existence de tous les restaurants en une requête
+                Set<Integer> restaurantIds = new HashSet<>();
+                for (CompleteEvaluationRequest request : requests) {
+                    restaurantIds.add(request.restaurantId());
+                }
+                Set<Integer> existingIds = restaurantDao.findExistingIds(restaurantIds);
+
+                List<CompleteEvaluation> evaluations = new ArrayList<>(requests.size());
+                for (CompleteEvaluationRequest request : requests) {
+                    if (!existingIds.contains(request.restaurantId())) {
+                        logger.error("Erreur: Le restaurant avec l'ID {} n'existe pas", request.restaurantId());
+                        continue;
+                    }
+                    CompleteEvaluation evaluation = createCompleteEvaluation(
+                            restaurantDao.getReference(request.restaurantId()),
+                            request.username(), request.comment(), request.criteriaGrades(),
+                            criteriaRegistry::getReference);
+                    if (evaluation != null) {
+                        evaluations.add(evaluation);
+                    }
+                }
+
+                evaluationDao.insertAll(evaluations);
+
+                logger.info("{} évaluations complètes ajoutées ({} ignorées)",
+                        evaluations.size(), requests.size() - evaluations.size());
+                return evaluations;
+            });
+        });
+    }
+
+    /**
+     * Retourne la moyenne des notes pour un critère donné sur un restaurant, lue sur une seule ligne
+     * de statistiques (RESTAURANT_STATS) quel que soit le nombre d'avis
      * @param restaurantId L'ID du restaurant
      * @param criteriaName Le nom du critère
      * @return La moyenne des notes, ou 0.0 si aucune note
      */
     public double getAverageGradeForCriteria(Integer restaurantId, String criteriaName) {
-        Restaurant restaurant = restaurantDao.findById(restaurantId);
-        if (restaurant == null) {
-            return 0.0;
-        }
-
-        // Filtrer les CompleteEvaluation et récupérer les grades du critère
-        return restaurant.getEvaluations().stream()
-                .filter(eval -> eval instanceof CompleteEvaluation)
-                .map(eval -> (CompleteEvaluation) eval)
-                .flatMap(ce -> ce.getGrades().stream())
-                .filter(grade -> grade.getCriteria().getName().equalsIgnoreCase(criteriaName))
-                .mapToInt(Grade::getGrade)
-                .average()
-                .orElse(0.0);
+        return timed("getAverageGradeForCriteria", restaurantId, () -> {
+            Integer criteriaId = criteriaRegistry.findId(criteriaName);
+            if (criteriaId == null) {
+                return 0.0;
+            }
+            RestaurantStats stats = statsDao.find(restaurantId, criteriaId);
+            return stats == null ? 0.0 : stats.getAverage();
+        });
     }
 
     /**
-     * Calcule la moyenne générale de toutes les notes d'un restaurant
+     * Retourne la moyenne générale de toutes les notes d'un restaurant, à partir de ses statistiques
+     * par critère (une ligne par critère noté)
      * @param restaurantId L'ID du restaurant
      * @return La moyenne générale, ou 0.0 si aucune note
      */
     public double getOverallAverageGrade(Integer restaurantId) {
-        Restaurant restaurant = restaurantDao.findById(restaurantId);
-        if (restaurant == null) {
-            return 0.0;
-        }
-
-        return restaurant.getEvaluations().stream()
-                .filter(eval -> eval instanceof CompleteEvaluation)
-                .map(eval -> (CompleteEvaluation) eval)
-                .flatMap(ce -> ce.getGrades().stream())
-                .mapToInt(Grade::getGrade)
-                .average()
-                .orElse(0.0);
+        return timed("getOverallAverageGrade", restaurantId, () -> {
+            long count = 0;
+            long sum = 0;
+            for (RestaurantStats stats : statsDao.findByRestaurant(restaurantId)) {
+                count += stats.getGradeCount();
+                sum += stats.getGradeSum();
+            }
+            return count == 0 ? 0.0 : (double) sum / count;
+        });
     }
 
     /**
@@ -232,59 +336,205 @@ public class EvaluationService {
      * @return Le nombre d'évaluations complètes
      */
     public int countCompleteEvaluations(Integer restaurantId) {
-        Restaurant restaurant = restaurantDao.findById(restaurantId);
-        if (restaurant == null) {
-            return 0;
-        }
+        return timed("countCompleteEvaluations", restaurantId, () -> (int) evaluationDao.countCompleteEvaluations(restaurantId));
+    }
+
+    /**
+     * Récupère toutes les statistiques d'un restaurant : likes, dislikes, nombre d'évaluations complètes,
+     * moyenne générale et moyennes par critère. Les moyennes sont lues dans RESTAURANT_STATS et les likes
+     * dans les compteurs en mémoire : le coût ne dépend pas du nombre d'avis.
+     * @param restaurantId L'ID du restaurant
+     * @return La synthèse des évaluations du restaurant
+     */
+    public RestaurantRatingSummary getRatingSummary(Integer restaurantId) {
+        return timed("getRatingSummary", restaurantId, () -> {
+            Map<Integer, RestaurantStats> statsByCriteria = new HashMap<>();
+            for (RestaurantStats stats : statsDao.findByRestaurant(restaurantId)) {
+                statsByCriteria.put(stats.getCriteriaId(), stats);
+            }
+
+            // Tous les critères, dans l'ordre alphabétique, à 0.0 s'ils n'ont pas de note
+            Map<String, Double> averageByCriteria = new LinkedHashMap<>();
+            long gradeCount = 0;
+            long gradeSum = 0;
+            for (Map.Entry<Integer, String> criteria : criteriaRegistry.getNamesById().entrySet()) {
+                RestaurantStats stats = statsByCriteria.get(criteria.getKey());
+                averageByCriteria.put(criteria.getValue(), stats == null ? 0.0 : stats.getAverage());
+                if (stats != null) {
+                    gradeCount += stats.getGradeCount();
+                    gradeSum += stats.getGradeSum();
+                }
+            }
 
-        return (int) restaurant.getEvaluations().stream()
-                .filter(eval -> eval instanceof CompleteEvaluation)
-                .count();
+            return new RestaurantRatingSummary(restaurantId,
+                    readLikeCount(restaurantId, true),
+                    readLikeCount(restaurantId, false),
+                    evaluationDao.countCompleteEvaluations(restaurantId),
+                    gradeCount,
+                    gradeCount == 0 ? 0.0 : (double) gradeSum / gradeCount,
+                    averageByCriteria);
+        });
     }
 
     /**
-     * Récupère toutes les évaluations complètes d'un restaurant
+     * Récupère toutes les évaluations complètes d'un restaurant, avec leurs notes et critères (une requête)
      * @param restaurantId L'ID du restaurant
      * @return Liste des évaluations complètes
      */
     public List<CompleteEvaluation> getCompleteEvaluations(Integer restaurantId) {
-        Restaurant restaurant = restaurantDao.findById(restaurantId);
-        if (restaurant == null) {
-            return List.of();
-        }
+        return timed("getCompleteEvaluations", restaurantId, () -> evaluationDao.findCompleteEvaluationsWithGrades(restaurantId));
+    }
+
+    // ==================== MÉTHODES DE SUPPRESSION ====================
 
-        return restaurant.getEvaluations().stream()
-                .filter(eval -> eval instanceof CompleteEvaluation)
-                .map(eval -> (CompleteEvaluation) eval)
-                .toList();
+    /**
+     * Supprime une évaluation (like, dislike ou évaluation complète avec ses notes)
+     * LOGIQUE MÉTIER:
+     * - Vérifie que l'évaluation existe
+     * - Les notes d'une évaluation complète sont retirées des statistiques du restaurant dans la même transaction
+     * - Un like ou un dislike est décompté des compteurs en mémoire
+     *
+     * @param evaluationId L'ID de l'évaluation à supprimer
+     * @return true si la suppression a réussi, false sinon
+     */
+    public boolean deleteEvaluation(Integer evaluationId) {
+        return timed("deleteEvaluation", () -> {
+            logger.info("Service: Suppression de l'évaluation ID {}", evaluationId);
+
+            Evaluation evaluation = evaluationDao.findById(evaluationId);
+            if (evaluation == null) {
+                logger.error("Erreur: L'évaluation avec l'ID {} n'existe pas", evaluationId);
+                return false;
+            }
+            Integer restaurantId = evaluation.getRestaurant().getId();
+
+            LikeCounters counters = evaluation instanceof BasicEvaluation ? LikeCounters.getInstance() : null;
+            if (counters != null) {
+                counters.begin(restaurantId);
+            }
+            try {
+                evaluationDao.deleteById(evaluationId);
+                if (evaluation instanceof BasicEvaluation basicEvaluation) {
+                    uncountLike(restaurantId, basicEvaluation.getLikeRestaurant());
+                }
+            } catch (Exception e) {
+                logger.error("Erreur lors de la suppression de l'évaluation", e);
+                return false;
+            } finally {
+                if (counters != null) {
+                    counters.end(restaurantId);
+                }
+            }
+            logger.info("Évaluation supprimée avec succès");
+            return true;
+        });
     }
 
     // ==================== MÉTHODES UTILITAIRES ====================
 
     /**
-     * Récupère l'adresse IP locale de la machine
-     * @return L'adresse IP, ou "Indisponible" en cas d'erreur
+     * Vérifie qu'un restaurant existe (SELECT 1) et retourne une référence vers lui, sans le charger
+     * @param restaurantId L'ID du restaurant
+     * @return Une référence vers le restaurant, ou null s'il n'existe pas
+     */
+    private Restaurant findRestaurantReference(Integer restaurantId) {
+        if (!restaurantDao.existsById(restaurantId)) {
+            logger.error("Erreur: Le restaurant avec l'ID {} n'existe pas", restaurantId);
+            return null;
+        }
+        return restaurantDao.getReference(restaurantId);
+    }
+
+    private long readLikeCount(Integer restaurantId, boolean like) {
+        LikeCounters counters = LikeCounters.getInstance();
+        return counters != null ? counters.get(restaurantId, like)
+                : evaluationDao.countBasicEvaluations(restaurantId, like);
+    }
+
+    private void countLike(Integer restaurantId, boolean like) {
+        LikeCounters counters = LikeCounters.getInstance();
+        if (counters != null) {
+            counters.increment(restaurantId, like);
+        }
+    }
+
+    private void uncountLike(Integer restaurantId, boolean like) {
+        LikeCounters counters = LikeCounters.getInstance();
+        if (counters != null) {
+            counters.decrement(restaurantId, like);
+        }
+    }
+
+    private void endLikeWrite(Integer restaurantId) {
+        LikeCounters counters = LikeCounters.getInstance();
+        if (counters != null) {
+            counters.end(restaurantId);
+        }
+    }
+
+    /**
+     * Ajoute une nouvelle évaluation à la collection du restaurant si celle-ci est déjà chargée,
+     * pour la garder cohérente sans déclencher son chargement
+     * @param restaurant Le restaurant (éventuellement un proxy non initialisé)
+     * @param evaluation L'évaluation ajoutée
      */
-    private String getLocalIpAddress() {
-        try {
-            return Inet4Address.getLocalHost().toString();
-        } catch (UnknownHostException ex) {
-            logger.error("Erreur lors de la récupération de l'adresse IP", ex);
-            return "Indisponible";
+    private void addToLoadedEvaluations(Restaurant restaurant, Evaluation evaluation) {
+        if (Hibernate.isInitialized(restaurant) && Hibernate.isInitialized(restaurant.getEvaluations())) {
+            restaurant.getEvaluations().add(evaluation);
         }
     }
 
+    /**
+     * Construit une évaluation complète et ses notes, sans l'enregistrer
+     * @param restaurant Le restaurant évalué
+     * @param username Le nom de l'utilisateur
+     * @param comment Le commentaire
+     * @param criteriaGrades Map des critères (nom ou ID du critère → note)
+     * @param criteriaResolver Résolution d'un critère par sa clé (null si inconnu)
+     * @return L'évaluation construite, ou null si une note ou un critère est invalide
+     */
+    private <K> CompleteEvaluation createCompleteEvaluation(Restaurant restaurant, String username, String comment,
+                                                            Map<K, Integer> criteriaGrades,
+                                                            Function<K, EvaluationCriteria> criteriaResolver) {
+        CompleteEvaluation evaluation = new CompleteEvaluation(
+                new Date(),
+                restaurant,
+                comment,
+                username
+        );
+
+        // Ajouter les notes pour chaque critère
+        for (Map.Entry<K, Integer> entry : criteriaGrades.entrySet()) {
+            K criteriaKey = entry.getKey();
+            Integer gradeValue = entry.getValue();
+
+            // Valider la note (doit être entre 1 et 5)
+            if (gradeValue == null || gradeValue < 1 || gradeValue > 5) {
+                logger.error("Erreur: La note {} n'est pas valide (doit être entre 1 et 5)", gradeValue);
+                return null;
+            }
+
+            // Récupérer le critère
+            EvaluationCriteria criteria = criteriaResolver.apply(criteriaKey);
+            if (criteria == null) {
+                logger.error("Erreur: Le critère '{}' n'existe pas", criteriaKey);
+                return null;
+            }
+
+            // Créer la note
+            Grade grade = new Grade(gradeValue, evaluation, criteria);
+            evaluation.getGrades().add(grade);
+        }
+        return evaluation;
+    }
+
     /**
      * Compte le nombre total d'évaluations (basiques + complètes) pour un restaurant
      * @param restaurantId L'ID du restaurant
      * @return Le nombre total d'évaluations
      */
     public int countTotalEvaluations(Integer restaurantId) {
-        Restaurant restaurant = restaurantDao.findById(restaurantId);
-        if (restaurant == null) {
-            return 0;
-        }
-        return restaurant.getEvaluations().size();
+        return timed("countTotalEvaluations", restaurantId, () -> (int) evaluationDao.countByRestaurant(restaurantId));
     }
 
     /**
@@ -293,7 +543,21 @@ public class EvaluationService {
      * @return true si le restaurant a au moins une évaluation
      */
     public boolean hasEvaluations(Integer restaurantId) {
-        Restaurant restaurant = restaurantDao.findById(restaurantId);
-        return restaurant != null && restaurant.hasEvaluations();
+        return timed("hasEvaluations", restaurantId, () -> evaluationDao.existsByRestaurant(restaurantId));
+    }
+
+    /**
+     * Exécute et mesure une opération du service, sous le nom "EvaluationService.<opération>"
+     */
+    private static <R> R timed(String operation, Supplier<R> call) {
+        return timed(operation, null, call);
+    }
+
+    /**
+     * Exécute et mesure une opération du service portant sur un restaurant, dont l'ID est repris
+     * dans l'événement JFR ({@link ServiceOperationEvent})
+     */
+    private static <R> R timed(String operation, Integer restaurantId, Supplier<R> call) {
+        return Monitoring.time("EvaluationService." + operation, new ServiceOperationEvent(Restaurant.class, restaurantId), call);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,332 @@
+package ch.hearc.ig.guideresto.service;
+
+import ch.hearc.ig.guideresto.business.LikeCounts;
+import ch.hearc.ig.guideresto.persistence.dao.EvaluationDao;
+import ch.hearc.ig.guideresto.persistence.jpa.JpaUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compteurs de likes et de dislikes par restaurant, tenus en mémoire pour que
+ * {@link EvaluationService#countLikes} ne coûte qu'une lecture de table de hachage.
+ * <ul>
+ *     <li>Les compteurs sont initialisés au démarrage par une seule requête (GROUP BY sur LIKES)</li>
+ *     <li>Chaque like ajouté par {@link EvaluationService#addBasicEvaluation} les incrémente. Ce sont des
+ *     {@link LongAdder} : les incréments concurrents d'un restaurant très sollicité se répartissent sur plusieurs
+ *     cellules au lieu de se disputer une seule valeur.</li>
+ *     <li>Ils sont réconciliés avec la base toutes les {@code guideresto.likes.reconcileIntervalMs} millisecondes
+ *     (300000 par défaut, 0 pour désactiver), ce qui corrige les écarts dus aux écritures faites hors du service
+ *     (import, autre instance). Le service encadre chaque écriture de like par {@link #begin(Integer)} et
+ *     {@link #end(Integer)} : un restaurant sans écriture en cours autour de la requête de comptage est corrigé
+ *     directement ; un restaurant très sollicité est ensuite recalé seul, ses nouvelles écritures étant
+ *     retenues le temps de sa requête de comptage.</li>
+ * </ul>
+ * {@code -Dguideresto.likes.counters=false} désactive les compteurs : les likes sont alors comptés en base.
+ */
+public final class LikeCounters {
+
+    private static final Logger logger = LogManager.getLogger(LikeCounters.class);
+
+    private static final boolean ENABLED =
+            Boolean.parseBoolean(System.getProperty("guideresto.likes.counters", "true"));
+
+    // Attente maximale de la fin des écritures en cours d'un restaurant recalé seul
+    private static final long GATE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long GATE_POLL_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private static volatile LikeCounters instance;
+
+    private static final class Counts {
+        private final LongAdder likes = new LongAdder();
+        private final LongAdder dislikes = new LongAdder();
+        // Écritures de likes commencées et pas encore terminées (validées et comptées, ou échouées)
+        private final AtomicInteger inFlight = new AtomicInteger();
+        // Fermé pendant le recalage exact du restaurant : les nouvelles écritures attendent
+        private volatile boolean gated;
+
+        private LongAdder of(boolean like) {
+            return like ? likes : dislikes;
+        }
+    }
+
+    private final EvaluationDao evaluationDao = new EvaluationDao();
+    private final Map<Integer, Counts> counts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reconciler;
+
+    private LikeCounters(long reconcileIntervalMillis) {
+        for (LikeCounts row : JpaUtils.inUnitOfWork(evaluationDao::countBasicEvaluationsByRestaurant)) {
+            Counts cell = countsOf(row.restaurantId());
+            cell.likes.add(row.likes());
+            cell.dislikes.add(row.dislikes());
+        }
+        logger.info("Compteurs de likes initialisés pour {} restaurant(s)", counts.size());
+
+        if (reconcileIntervalMillis > 0) {
+            this.reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "guideresto-like-reconciler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reconciler.scheduleWithFixedDelay(this::reconcileQuietly, reconcileIntervalMillis,
+                    reconcileIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.reconciler = null;
+        }
+    }
+
+    /**
+     * Retourne les compteurs partagés, initialisés depuis la base au premier appel
+     * (l'application les initialise au démarrage)
+     * @return Les compteurs, ou null s'ils sont désactivés (guideresto.likes.counters)
+     */
+    public static LikeCounters getInstance() {
+        if (!ENABLED) {
+            return null;
+        }
+        LikeCounters counters = instance;
+        if (counters == null) {
+            synchronized (LikeCounters.class) {
+                counters = instance;
+                if (counters == null) {
+                    counters = new LikeCounters(Long.getLong("guideresto.likes.reconcileIntervalMs", 300_000));
+                    instance = counters;
+                }
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * Arrête la réconciliation périodique des compteurs partagés. Sans effet s'ils n'ont pas été initialisés.
+     */
+    public static void shutdown() {
+        LikeCounters counters = instance;
+        if (counters != null && counters.reconciler != null) {
+            counters.reconciler.shutdownNow();
+        }
+    }
+
+    /**
+     * @param restaurantId L'ID du restaurant
+     * @param like true pour les likes, false pour les dislikes
+     * @return Le nombre de likes ou de dislikes du restaurant
+     */
+    public long get(Integer restaurantId, boolean like) {
+        Counts cell = counts.get(restaurantId);
+        return cell == null ? 0 : cell.of(like).sum();
+    }
+
+    /**
+     * Annonce une écriture de like ou de dislike sur un restaurant, à terminer par {@link #end(Integer)}
+     * une fois le like validé et compté, ou en échec. Attend si le restaurant est en cours de recalage.
+     * @param restaurantId L'ID du restaurant
+     */
+    void begin(Integer restaurantId) {
+        Counts cell = countsOf(restaurantId);
+        while (true) {
+            while (cell.gated) {
+                LockSupport.parkNanos(this, GATE_POLL_NANOS);
+            }
+            cell.inFlight.incrementAndGet();
+            if (!cell.gated) {
+                return;
+            }
+            cell.inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Termine une écriture annoncée par {@link #begin(Integer)}
+     * @param restaurantId L'ID du restaurant
+     */
+    void end(Integer restaurantId) {
+        Counts cell = counts.get(restaurantId);
+        if (cell != null) {
+            // Plancher à 0 : les compteurs d'un restaurant supprimé pendant l'écriture ont pu être recréés
+            cell.inFlight.updateAndGet(value -> Math.max(0, value - 1));
+        }
+    }
+
+    /**
+     * Compte un like ou un dislike enregistré
+     * @param restaurantId L'ID du restaurant
+     * @param like true pour un like, false pour un dislike
+     */
+    void increment(Integer restaurantId, boolean like) {
+        countsOf(restaurantId).of(like).increment();
+    }
+
+    /**
+     * Décompte un like ou un dislike supprimé, ou dont l'écriture différée a échoué.
+     * Sans effet si le restaurant a été oublié entre-temps ({@link #remove(Integer)}).
+     * @param restaurantId L'ID du restaurant
+     * @param like true pour un like, false pour un dislike
+     */
+    void decrement(Integer restaurantId, boolean like) {
+        Counts cell = counts.get(restaurantId);
+        if (cell != null) {
+            cell.of(like).decrement();
+        }
+    }
+
+    /**
+     * Oublie les compteurs d'un restaurant supprimé (ses likes sont supprimés avec lui)
+     * @param restaurantId L'ID du restaurant
+     */
+    void remove(Integer restaurantId) {
+        counts.remove(restaurantId);
+    }
+
+    /**
+     * Recale les compteurs sur la base, en deux temps :
+     * <ul>
+     *     <li>une requête de comptage pour tous les restaurants. Un restaurant est corrigé si aucune de ses
+     *     écritures n'était en cours ni n'a été comptée pendant la requête : ses compteurs correspondaient alors
+     *     exactement aux likes validés lus en base. Les autres sont laissés de côté, pour ne pas effacer
+     *     ni compter deux fois un like écrit entre-temps.</li>
+     *     <li>chaque restaurant laissé de côté est recalé seul : ses nouvelles écritures sont retenues,
+     *     celles en cours terminées, puis ses compteurs sont remplacés par le comptage en base. Un restaurant
+     *     très sollicité converge ainsi à chaque réconciliation.</li>
+     * </ul>
+     * @return Le nombre de restaurants dont les compteurs ont été corrigés
+     */
+    public int reconcile() {
+        // Les likes en attente d'écriture différée sont déjà comptés : ils sont écrits avant la comparaison
+        LikeWriteBehindQueue likeQueue = LikeWriteBehindQueue.getInstance();
+        if (likeQueue != null) {
+            likeQueue.flush();
+        }
+
+        Map<Integer, long[]> before = snapshot(false);
+        List<LikeCounts> rows = JpaUtils.inUnitOfWork(evaluationDao::countBasicEvaluationsByRestaurant);
+        Map<Integer, long[]> after = snapshot(true);
+
+        int corrected = 0;
+        Set<Integer> seen = new HashSet<>();
+        List<Integer> busy = new ArrayList<>();
+        for (LikeCounts row : rows) {
+            seen.add(row.restaurantId());
+            corrected += adjust(row.restaurantId(), before, after, row.likes(), row.dislikes(), busy);
+        }
+        for (Integer restaurantId : after.keySet()) {
+            if (!seen.contains(restaurantId)) {
+                corrected += adjust(restaurantId, before, after, 0, 0, busy);
+            }
+        }
+        for (Integer restaurantId : busy) {
+            if (reconcileAlone(restaurantId, likeQueue)) {
+                corrected++;
+            }
+        }
+        return corrected;
+    }
+
+    /**
+     * @return 1 si les compteurs ont été corrigés, 0 sinon (le restaurant est ajouté à busy s'il était en écriture)
+     */
+    private int adjust(Integer restaurantId, Map<Integer, long[]> before, Map<Integer, long[]> after,
+                       long likes, long dislikes, List<Integer> busy) {
+        long[] start = before.getOrDefault(restaurantId, new long[3]);
+        long[] end = after.getOrDefault(restaurantId, new long[3]);
+        if (start[0] != end[0] || start[1] != end[1] || start[2] != 0 || end[2] != 0) {
+            busy.add(restaurantId);
+            return 0;
+        }
+        return correct(restaurantId, likes - end[0], dislikes - end[1]) ? 1 : 0;
+    }
+
+    /**
+     * Recale exactement un restaurant : ses nouvelles écritures attendent pendant que celles en cours
+     * se terminent et que la base est lue
+     * @return true si les compteurs ont été corrigés
+     */
+    private boolean reconcileAlone(Integer restaurantId, LikeWriteBehindQueue likeQueue) {
+        Counts cell = counts.get(restaurantId);
+        if (cell == null) {
+            return false;
+        }
+        cell.gated = true;
+        try {
+            if (likeQueue != null && cell.inFlight.get() > 0) {
+                likeQueue.flush();
+            }
+            long deadline = System.nanoTime() + GATE_TIMEOUT_NANOS;
+            while (cell.inFlight.get() > 0) {
+                if (System.nanoTime() - deadline > 0) {
+                    logger.debug("Compteurs du restaurant ID {} non réconciliés : écritures toujours en cours",
+                            restaurantId);
+                    return false;
+                }
+                LockSupport.parkNanos(this, GATE_POLL_NANOS);
+            }
+            long[] counted = JpaUtils.inUnitOfWork(() -> new long[]{
+                    evaluationDao.countBasicEvaluations(restaurantId, true),
+                    evaluationDao.countBasicEvaluations(restaurantId, false)});
+            return correct(restaurantId, counted[0] - cell.likes.sum(), counted[1] - cell.dislikes.sum());
+        } finally {
+            cell.gated = false;
+        }
+    }
+
+    private boolean correct(Integer restaurantId, long likeDrift, long dislikeDrift) {
+        if (likeDrift == 0 && dislikeDrift == 0) {
+            return false;
+        }
+        Counts cell = countsOf(restaurantId);
+        cell.likes.add(likeDrift);
+        cell.dislikes.add(dislikeDrift);
+        logger.debug("Compteurs du restaurant ID {} corrigés : {} like(s), {} dislike(s)",
+                restaurantId, likeDrift, dislikeDrift);
+        return true;
+    }
+
+    /**
+     * Relève les compteurs et les écritures en cours de chaque restaurant. Avant la requête, les écritures
+     * en cours sont lues après les compteurs, et après la requête avant eux : une écriture comptée entre
+     * les deux lectures est toujours vue, soit en cours, soit par un compteur qui a changé.
+     * @param afterQuery true pour le relevé qui suit la requête de comptage
+     * @return likes, dislikes et écritures en cours, par restaurant
+     */
+    private Map<Integer, long[]> snapshot(boolean afterQuery) {
+        Map<Integer, long[]> values = new HashMap<>(counts.size() * 2);
+        counts.forEach((restaurantId, cell) -> {
+            long inFlight = afterQuery ? cell.inFlight.get() : 0;
+            long likes = cell.likes.sum();
+            long dislikes = cell.dislikes.sum();
+            if (!afterQuery) {
+                inFlight = cell.inFlight.get();
+            }
+            values.put(restaurantId, new long[]{likes, dislikes, inFlight});
+        });
+        return values;
+    }
+
+    private void reconcileQuietly() {
+        try {
+            int corrected = reconcile();
+            if (corrected > 0) {
+                logger.info("Compteurs de likes réconciliés : {} restaurant(s) corrigé(s)", corrected);
+            }
+        } catch (RuntimeException ex) {
+            logger.warn("Réconciliation des compteurs de likes impossible : {}", ex.getMessage());
+        }
+    }
+
+    private Counts countsOf(Integer restaurantId) {
+        return counts.computeIfAbsent(restaurantId, id -> new Counts());
+    }
+}
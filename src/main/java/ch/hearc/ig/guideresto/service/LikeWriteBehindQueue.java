@@ -0,0 +1,391 @@
+package ch.hearc.ig.guideresto.service;
+
+import ch.hearc.ig.guideresto.business.BasicEvaluation;
+import ch.hearc.ig.guideresto.persistence.dao.EvaluationDao;
+import ch.hearc.ig.guideresto.persistence.dao.RestaurantDao;
+import ch.hearc.ig.guideresto.persistence.jpa.JpaUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Écriture différée des likes et dislikes (mode write-behind) : {@link EvaluationService#addBasicEvaluation}
+ * dépose le like dans une file mémoire bornée et sans verrou, vidée par un thread d'écriture qui insère les likes
+ * dans LIKES par lots JDBC, par référence à l'ID du restaurant, et valide chaque lot en une seule transaction
+ * (group commit) : une rafale de likes coûte une transaction par lot au lieu d'une par like.
+ *
+ * Paramètres (propriétés système) :
+ * <ul>
+ *     <li>{@code guideresto.likes.writeBehind} : active le mode (false par défaut : chaque like est inséré
+ *     dans sa propre transaction)</li>
+ *     <li>{@code guideresto.likes.capacity} : nombre maximal de likes en attente (10000 par défaut)</li>
+ *     <li>{@code guideresto.likes.batchSize} : nombre maximal de likes par transaction (500 par défaut) ;
+ *     le thread d'écriture est réveillé dès qu'un lot complet attend</li>
+ *     <li>{@code guideresto.likes.flushIntervalMs} : délai maximal avant l'écriture d'un like (200 ms par défaut),
+ *     soit les likes perdus au pire en cas d'arrêt brutal de la JVM</li>
+ *     <li>{@code guideresto.likes.offerTimeoutMs} : attente maximale d'une place lorsque la file est pleine
+ *     (1000 ms par défaut)</li>
+ *     <li>{@code guideresto.likes.synchronous} : l'appelant attend que son like soit validé (tests, durabilité
+ *     stricte) ; les likes déposés pendant l'écriture d'un lot partagent la transaction suivante</li>
+ * </ul>
+ * File pleine : l'appelant est freiné le temps que le thread d'écriture libère de la place, puis, au-delà
+ * du délai, insère lui-même son like. Aucun like n'est abandonné ; la base n'est jamais sollicitée par plus
+ * de transactions qu'en mode direct.
+ * Les compteurs de likes lus en base ({@link EvaluationService#countLikes}) ont au plus un intervalle de retard.
+ * La file est vidée à l'arrêt ({@link #shutdown()}, appelé par l'application avant la fermeture de JPA,
+ * et par un hook d'arrêt de la JVM à défaut).
+ */
+public final class LikeWriteBehindQueue {
+
+    private static final Logger logger = LogManager.getLogger(LikeWriteBehindQueue.class);
+
+    /**
+     * Paramètres de l'écriture différée
+     * @param capacity Nombre maximal de likes en attente
+     * @param maxBatchSize Nombre maximal de likes insérés par transaction
+     * @param flushInterval Délai maximal entre le dépôt d'un like et son écriture
+     * @param offerTimeout Attente maximale d'une place dans la file pleine
+     * @param synchronous true si l'appelant attend la validation de son like
+     */
+    public record Settings(int capacity, int maxBatchSize, Duration flushInterval, Duration offerTimeout,
+                           boolean synchronous) {
+
+        public Settings {
+            if (capacity < 1 || maxBatchSize < 1) {
+                throw new IllegalArgumentException("Paramètres d'écriture différée invalides : capacité=" + capacity
+                        + ", lot=" + maxBatchSize);
+            }
+        }
+
+        /**
+         * @return Les paramètres lus dans les propriétés système guideresto.likes.*
+         */
+        public static Settings fromSystemProperties() {
+            return new Settings(
+                    Integer.getInteger("guideresto.likes.capacity", 10_000),
+                    Integer.getInteger("guideresto.likes.batchSize", 500),
+                    Duration.ofMillis(Long.getLong("guideresto.likes.flushIntervalMs", 200)),
+                    Duration.ofMillis(Long.getLong("guideresto.likes.offerTimeoutMs", 1_000)),
+                    Boolean.getBoolean("guideresto.likes.synchronous"));
+        }
+    }
+
+    /**
+     * Photographie de l'activité de la file
+     * @param pending Likes en attente d'écriture
+     * @param written Likes insérés par le thread d'écriture
+     * @param batches Transactions validées par le thread d'écriture
+     * @param failed Likes dont l'insertion a échoué
+     * @param overflows Likes insérés par l'appelant faute de place dans la file
+     */
+    public record Statistics(int pending, long written, long batches, long failed, long overflows) {
+    }
+
+    /**
+     * Like en attente : une copie des valeurs du like, le restaurant n'étant désigné que par son ID.
+     * Le thread d'écriture ne touche jamais à l'entité de l'appelant : l'ID du like écrit est publié par
+     * {@code done}. Un élément sans restaurant est une marque de vidage ({@link #flush()}), terminée quand
+     * les likes déposés avant elle sont écrits.
+     */
+    private record Pending(Integer restaurantId, Date visitDate, Boolean like, String ipAddress,
+                           CompletableFuture<Integer> done) {
+
+        private static Pending marker() {
+            return new Pending(null, null, null, null, new CompletableFuture<>());
+        }
+
+        private boolean isLike() {
+            return restaurantId != null;
+        }
+    }
+
+    private static final boolean ENABLED = Boolean.getBoolean("guideresto.likes.writeBehind");
+
+    private static volatile LikeWriteBehindQueue instance;
+
+    private final Settings settings;
+    private final RestaurantDao restaurantDao = new RestaurantDao();
+    private final EvaluationDao evaluationDao = new EvaluationDao();
+
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    // Likes en attente : borne la file sans verrou (la taille d'une ConcurrentLinkedQueue n'est pas en O(1))
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private volatile boolean flushRequested;
+    private final Thread writer;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+
+    LikeWriteBehindQueue(Settings settings) {
+        this.settings = settings;
+        this.writer = new Thread(this::drainLoop, "guideresto-like-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Retourne la file partagée, démarrée au premier appel
+     * @return La file, ou null si le mode write-behind n'est pas activé (guideresto.likes.writeBehind)
+     */
+    static LikeWriteBehindQueue getInstance() {
+        if (!ENABLED) {
+            return null;
+        }
+        LikeWriteBehindQueue queue = instance;
+        if (queue == null) {
+            synchronized (LikeWriteBehindQueue.class) {
+                queue = instance;
+                if (queue == null) {
+                    queue = new LikeWriteBehindQueue(Settings.fromSystemProperties());
+                    Runtime.getRuntime().addShutdownHook(new Thread(LikeWriteBehindQueue::shutdown,
+                            "guideresto-like-writer-shutdown"));
+                    logger.info("Écriture différée des likes activée : {}", queue.settings);
+                    instance = queue;
+                }
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * Vide la file partagée et arrête son thread d'écriture. Sans effet si elle n'a pas été démarrée.
+     * À appeler avant {@link JpaUtils#shutdown()}.
+     */
+    public static void shutdown() {
+        LikeWriteBehindQueue queue = instance;
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
+    /**
+     * @return L'activité de la file partagée, ou null si elle n'a pas été démarrée
+     */
+    public static Statistics getSharedStatistics() {
+        LikeWriteBehindQueue queue = instance;
+        return queue == null ? null : queue.getStatistics();
+    }
+
+    /**
+     * Dépose un like à écrire. En mode synchrone, attend que le like soit validé en base.
+     * Seules les valeurs du like sont copiées : l'évaluation reste à l'appelant et n'est pas modifiée.
+     * @param restaurantId L'ID du restaurant évalué, dont l'existence a été vérifiée
+     * @param evaluation Le like
+     * @return L'ID du like, disponible à son écriture (déjà terminé en mode synchrone) ou en erreur si
+     * l'écriture a échoué ; null si la file est restée pleine ou est arrêtée : l'appelant doit alors
+     * insérer le like lui-même
+     */
+    CompletableFuture<Integer> submit(Integer restaurantId, BasicEvaluation evaluation) {
+        Pending pending = new Pending(restaurantId, evaluation.getVisitDate(), evaluation.getLikeRestaurant(),
+                evaluation.getIpAddress(), new CompletableFuture<>());
+        if (!offer(pending)) {
+            overflows.increment();
+            return null;
+        }
+        if (settings.synchronous()) {
+            flushRequested = true;
+            LockSupport.unpark(writer);
+            await(pending.done());
+        }
+        return pending.done();
+    }
+
+    /**
+     * Attend l'écriture des likes déposés avant l'appel
+     */
+    public void flush() {
+        if (!running.get()) {
+            return;
+        }
+        Pending marker = Pending.marker();
+        queue.add(marker);
+        drainIfClosed();
+        flushRequested = true;
+        LockSupport.unpark(writer);
+        await(marker.done());
+    }
+
+    /**
+     * Arrête le thread d'écriture après avoir écrit les likes en attente. Les likes déposés ensuite
+     * sont insérés par leur appelant.
+     */
+    public void close() {
+        if (!running.compareAndSet(true, false)) {
+            return;
+        }
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Écriture différée des likes arrêtée : {}", getStatistics());
+    }
+
+    /**
+     * @return L'activité de la file
+     */
+    public Statistics getStatistics() {
+        return new Statistics(size.get(), written.sum(), batches.sum(), failed.sum(), overflows.sum());
+    }
+
+    private boolean offer(Pending pending) {
+        long deadline = System.nanoTime() + settings.offerTimeout().toNanos();
+        long backoff = 10_000;
+        while (running.get()) {
+            int current = size.get();
+            if (current < settings.capacity()) {
+                if (size.compareAndSet(current, current + 1)) {
+                    queue.add(pending);
+                    drainIfClosed();
+                    if (current + 1 >= settings.maxBatchSize()) {
+                        LockSupport.unpark(writer);
+                    }
+                    return true;
+                }
+                continue;
+            }
+            // File pleine : l'appelant attend que le thread d'écriture libère de la place
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                logger.debug("File des likes pleine ({} en attente) : like inséré directement", current);
+                return false;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(this, Math.min(backoff, remaining));
+            backoff = Math.min(backoff * 2, 1_000_000);
+        }
+        return false;
+    }
+
+    /**
+     * Écrit depuis le thread appelant ce qui a été déposé pendant l'arrêt, après la dernière vidange
+     * du thread d'écriture : si l'arrêt n'est pas encore visible ici, le thread d'écriture le verra après le dépôt
+     * et écrira l'élément dans sa vidange finale.
+     */
+    private void drainIfClosed() {
+        if (running.get()) {
+            return;
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+    }
+
+    private static void await(CompletableFuture<?> done) {
+        try {
+            done.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private void drainLoop() {
+        long intervalNanos = settings.flushInterval().toNanos();
+        while (running.get()) {
+            long deadline = System.nanoTime() + intervalNanos;
+            while (running.get() && !flushRequested && size.get() < settings.maxBatchSize()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+            flushRequested = false;
+            drain();
+        }
+        // Arrêt : les likes encore en attente sont écrits avant de rendre la main
+        drain();
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(Math.min(settings.maxBatchSize(), settings.capacity()));
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            batch.add(pending);
+            if (pending.isLike()) {
+                size.decrementAndGet();
+            }
+            if (batch.size() >= settings.maxBatchSize()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    /**
+     * Insère un lot de likes dans une transaction. Si elle échoue (par exemple un restaurant supprimé
+     * entre-temps), les likes du lot sont réessayés un par un pour n'écarter que les fautifs.
+     */
+    private void write(List<Pending> batch) {
+        List<Pending> likes = batch.stream().filter(Pending::isLike).toList();
+        if (!likes.isEmpty()) {
+            try {
+                List<Integer> ids = insert(likes);
+                batches.increment();
+                written.add(likes.size());
+                for (int i = 0; i < likes.size(); i++) {
+                    likes.get(i).done().complete(ids.get(i));
+                }
+            } catch (RuntimeException ex) {
+                logger.warn("Échec de l'écriture d'un lot de {} likes, nouvel essai un par un : {}",
+                        likes.size(), ex.getMessage());
+                likes.forEach(this::writeAlone);
+            }
+        }
+        // Les marques de vidage sont terminées une fois les likes qui les précèdent écrits
+        batch.stream().filter(pending -> !pending.isLike()).forEach(marker -> marker.done().complete(null));
+    }
+
+    private void writeAlone(Pending pending) {
+        try {
+            Integer id = insert(List.of(pending)).get(0);
+            batches.increment();
+            written.increment();
+            pending.done().complete(id);
+        } catch (RuntimeException ex) {
+            failed.increment();
+            logger.error("Like perdu pour le restaurant ID {} : {}", pending.restaurantId(), ex.getMessage());
+            pending.done().completeExceptionally(ex);
+        }
+    }
+
+    /**
+     * @return Les IDs des likes insérés, dans l'ordre du lot
+     */
+    private List<Integer> insert(List<Pending> likes) {
+        return JpaUtils.inUnitOfWork(() -> {
+            List<BasicEvaluation> rows = new ArrayList<>(likes.size());
+            for (Pending pending : likes) {
+                rows.add(new BasicEvaluation(pending.visitDate(), restaurantDao.getReference(pending.restaurantId()),
+                        pending.like(), pending.ipAddress()));
+            }
+            evaluationDao.insertAll(rows);
+            return rows.stream().map(BasicEvaluation::getId).toList();
+        });
+    }
+}
@@ -0,0 +1,122 @@
+package ch.hearc.ig.guideresto.service;
+
+import ch.hearc.ig.guideresto.persistence.jpa.JpaUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Portée de recherches concurrentes (concurrence structurée) : les recherches indépendantes d'une page
+ * sont lancées en parallèle, chacune sur son thread virtuel et dans sa propre unité de travail, puis
+ * attendues ensemble avec une échéance. La durée totale est celle de la recherche la plus lente.
+ *
+ * Dès qu'une recherche échoue ou que l'échéance est dépassée, les autres sont annulées (interrompues) ;
+ * aucune recherche ne survit à la fermeture de la portée. StructuredTaskScope n'étant qu'en preview
+ * dans Java 21, cette classe en reprend le principe avec un ExecutorService propre à la portée.
+ *
+ * <pre>
+ * try (LookupScope scope = new LookupScope(Duration.ofSeconds(2))) {
+ *     Supplier&lt;Restaurant&gt; restaurant = scope.fork(() -> ...);
+ *     Supplier&lt;RestaurantRatingSummary&gt; summary = scope.fork(() -> ...);
+ *     scope.join();
+ *     ... restaurant.get(), summary.get()
+ * }
+ * </pre>
+ */
+public class LookupScope implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorCompletionService<Object> completion = new ExecutorCompletionService<>(executor);
+    private final List<Future<Object>> forked = new ArrayList<>();
+    private final long deadline;
+    private boolean joined;
+
+    /**
+     * @param timeout Délai maximal pour l'ensemble des recherches, à compter de la création de la portée
+     */
+    public LookupScope(Duration timeout) {
+        this.deadline = System.nanoTime() + timeout.toNanos();
+    }
+
+    /**
+     * Lance une recherche dans la portée
+     * @param lookup La recherche, exécutée dans sa propre unité de travail et pour le compte du client
+     * de la requête en cours ({@link RequestContext})
+     * @return Un accès au résultat, utilisable après {@link #join()}
+     */
+    public <T> Supplier<T> fork(Supplier<T> lookup) {
+        if (joined) {
+            throw new IllegalStateException("La portée a déjà été jointe");
+        }
+        String clientAddress = RequestContext.getBoundClientAddress();
+        Future<Object> future = clientAddress == null
+                ? completion.submit(() -> JpaUtils.inUnitOfWork(lookup))
+                : completion.submit(() -> RequestContext.withClientAddress(clientAddress,
+                        () -> JpaUtils.inUnitOfWork(lookup)));
+        forked.add(future);
+        return () -> result(future);
+    }
+
+    /**
+     * Attend la fin de toutes les recherches
+     * @throws TimeoutException si l'échéance est dépassée (les recherches en cours sont annulées)
+     * @throws ExecutionException si une recherche a échoué (les autres sont annulées)
+     * @throws InterruptedException si le thread appelant est interrompu
+     */
+    public void join() throws TimeoutException, ExecutionException, InterruptedException {
+        joined = true;
+        try {
+            for (int done = 0; done < forked.size(); done++) {
+                long remaining = deadline - System.nanoTime();
+                Future<Object> next = completion.poll(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    throw new TimeoutException("Recherches non terminées avant l'échéance");
+                }
+                next.get();
+            }
+        } catch (TimeoutException | ExecutionException | InterruptedException ex) {
+            cancelAll();
+            throw ex;
+        }
+    }
+
+    /**
+     * Annule les recherches encore en cours et libère les threads de la portée
+     */
+    @Override
+    public void close() {
+        cancelAll();
+        executor.close();
+    }
+
+    private void cancelAll() {
+        for (Future<Object> future : forked) {
+            future.cancel(true);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T result(Future<Object> future) {
+        if (!joined || !future.isDone()) {
+            throw new IllegalStateException("Le résultat n'est disponible qu'après join()");
+        }
+        try {
+            return (T) future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrompu");
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("La recherche a échoué", ex.getCause());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ch.hearc.ig.guideresto.service;
+
+import ch.hearc.ig.guideresto.business.IpAddresses;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.function.Supplier;
+
+/**
+ * Contexte de la requête utilisateur en cours sur le thread : l'adresse IP du client qui l'a émise.
+ * La couche de présentation lie l'adresse du client pour la durée de la requête, sans la faire passer
+ * par toutes les signatures :
+ * <pre>
+ * RequestContext.withClientAddress(request.getRemoteAddr(), () -> evaluationService.addBasicEvaluation(id, true));
+ * </pre>
+ * Sans adresse liée (application console), l'adresse de la machine est utilisée. Elle n'est résolue
+ * qu'une fois, au démarrage ({@link #getLocalAddress()}), et jamais sur le chemin d'écriture d'un like.
+ * Les services asynchrones transmettent l'adresse liée à leurs threads virtuels.
+ */
+public final class RequestContext {
+
+    private static final Logger logger = LogManager.getLogger(RequestContext.class);
+
+    private static final ThreadLocal<String> clientAddress = new ThreadLocal<>();
+
+    private static volatile String localAddress;
+
+    private RequestContext() {
+    }
+
+    /**
+     * Exécute un traitement pour le compte d'un client. L'adresse éventuellement liée avant l'appel
+     * est restaurée ensuite.
+     * @param address L'adresse IP du client, mise sous forme canonique ({@link IpAddresses#canonical(String)})
+     * @param work Le traitement
+     * @return Le résultat du traitement
+     */
+    public static <R> R withClientAddress(String address, Supplier<R> work) {
+        String previous = clientAddress.get();
+        clientAddress.set(IpAddresses.canonical(address));
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                clientAddress.set(previous);
+            } else {
+                clientAddress.remove();
+            }
+        }
+    }
+
+    /**
+     * Exécute un traitement sans résultat pour le compte d'un client
+     * @param address L'adresse IP du client
+     * @param work Le traitement
+     * @see #withClientAddress(String, Supplier)
+     */
+    public static void withClientAddress(String address, Runnable work) {
+        withClientAddress(address, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return L'adresse du client de la requête en cours, ou à défaut celle de la machine
+     */
+    public static String getClientAddress() {
+        String address = clientAddress.get();
+        return address != null ? address : getLocalAddress();
+    }
+
+    /**
+     * @return L'adresse liée au thread courant, ou null
+     */
+    static String getBoundClientAddress() {
+        return clientAddress.get();
+    }
+
+    /**
+     * Retourne l'adresse IP de la machine, résolue au premier appel puis conservée.
+     * À appeler au démarrage de l'application pour que la résolution ne retarde aucune requête.
+     * @return L'adresse de la machine, ou {@link IpAddresses#UNAVAILABLE} si elle n'a pas pu être résolue
+     */
+    public static String getLocalAddress() {
+        String address = localAddress;
+        if (address == null) {
+            synchronized (RequestContext.class) {
+                address = localAddress;
+                if (address == null) {
+                    address = resolveLocalAddress();
+                    localAddress = address;
+                }
+            }
+        }
+        return address;
+    }
+
+    private static String resolveLocalAddress() {
+        try {
+            return IpAddresses.canonical(InetAddress.getLocalHost().getHostAddress());
+        } catch (UnknownHostException ex) {
+            logger.warn("Adresse IP de la machine indisponible : {}", ex.getMessage());
+            return IpAddresses.UNAVAILABLE;
+        }
+    }
+}
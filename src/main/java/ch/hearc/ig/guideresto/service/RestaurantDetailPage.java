@@ -0,0 +1,12 @@
+package ch.hearc.ig.guideresto.service;
+
+import ch.hearc.ig.guideresto.business.Restaurant;
+import ch.hearc.ig.guideresto.business.RestaurantRatingSummary;
+
+/**
+ * Données de la vue détaillée d'un restaurant, chargées en parallèle par {@link AsyncRestaurantService}
+ * @param restaurant Le restaurant (détaché) avec son type, sa ville, ses évaluations et leurs notes
+ * @param ratingSummary La synthèse de ses évaluations
+ */
+public record RestaurantDetailPage(Restaurant restaurant, RestaurantRatingSummary ratingSummary) {
+}
@@ -2,15 +2,21 @@ package ch.hearc.ig.guideresto.service;
 
 import ch.hearc.ig.guideresto.business.City;
 import ch.hearc.ig.guideresto.business.Restaurant;
+import ch.hearc.ig.guideresto.business.RestaurantListItem;
 import ch.hearc.ig.guideresto.business.RestaurantType;
 import ch.hearc.ig.guideresto.business.Localisation;
+import ch.hearc.ig.guideresto.monitoring.Monitoring;
+import ch.hearc.ig.guideresto.monitoring.ServiceOperationEvent;
 import ch.hearc.ig.guideresto.persistence.dao.CityDao;
+import ch.hearc.ig.guideresto.persistence.dao.KeysetCursor;
 import ch.hearc.ig.guideresto.persistence.dao.RestaurantDao;
 import ch.hearc.ig.guideresto.persistence.dao.RestaurantTypeDao;
+import ch.hearc.ig.guideresto.persistence.dao.Slice;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Service pour gérer la logique métier des restaurants
@@ -41,8 +47,35 @@ public class RestaurantService {
      * @return Liste de tous les restaurants
      */
     public List<Restaurant> getAllRestaurants() {
-        logger.debug("Service: Récupération de tous les restaurants");
-        return restaurantDao.findAll();
+        return timed("getAllRestaurants", () -> {
+            logger.debug("Service: Récupération de tous les restaurants");
+            return restaurantDao.findAll();
+        });
+    }
+
+    /**
+     * Récupère une tranche de la liste des restaurants (colonnes affichées uniquement), triés par nom
+     * @param after Le curseur de la tranche précédente, ou null pour la première tranche
+     * @param size Le nombre maximal de restaurants
+     * @return La tranche de la liste
+     */
+    public Slice<RestaurantListItem> getRestaurants(KeysetCursor after, int size) {
+        return timed("getRestaurants", () -> {
+            logger.debug("Service: Récupération d'une tranche de {} restaurants", size);
+            return restaurantDao.findListItems(after, size);
+        });
+    }
+
+    /**
+     * Construit les index de recherche par nom (restaurants et villes), à appeler au démarrage
+     * pour que la première recherche ne paie pas le chargement des noms
+     */
+    public void buildSearchIndexes() {
+        timed("buildSearchIndexes", () -> {
+            logger.debug("Service: Construction des index de recherche par nom");
+            restaurantDao.buildNameIndex();
+            cityDao.buildNameIndex();
+        });
     }
 
     /**
@@ -51,8 +84,23 @@ public class RestaurantService {
      * @return Le restaurant trouvé, ou null
      */
     public Restaurant getRestaurantById(Integer id) {
-        logger.debug("Service: Recherche du restaurant avec ID {}", id);
-        return restaurantDao.findById(id);
+        return timed("getRestaurantById", id, () -> {
+            logger.debug("Service: Recherche du restaurant avec ID {}", id);
+            return restaurantDao.findById(id);
+        });
+    }
+
+    /**
+     * Recherche un restaurant avec tout ce qu'affiche sa vue détaillée (type, ville, évaluations,
+     * notes et critères), en un nombre fixe de requêtes
+     * @param id L'ID du restaurant
+     * @return Le restaurant trouvé, ou null
+     */
+    public Restaurant getRestaurantWithDetails(Integer id) {
+        return timed("getRestaurantWithDetails", id, () -> {
+            logger.debug("Service: Chargement du détail du restaurant avec ID {}", id);
+            return restaurantDao.findByIdWithDetails(id);
+        });
     }
 
     /**
@@ -61,8 +109,24 @@ public class RestaurantService {
      * @return Liste des restaurants correspondants
      */
     public List<Restaurant> searchRestaurantsByName(String name) {
-        logger.debug("Service: Recherche de restaurants contenant '{}'", name);
-        return restaurantDao.findByName(name);
+        return timed("searchRestaurantsByName", () -> {
+            logger.debug("Service: Recherche de restaurants contenant '{}'", name);
+            return restaurantDao.findByName(name);
+        });
+    }
+
+    /**
+     * Recherche une tranche de restaurants par nom (recherche partielle)
+     * @param name Le nom (ou partie du nom) à rechercher
+     * @param after Le curseur de la tranche précédente, ou null pour la première tranche
+     * @param size Le nombre maximal de restaurants
+     * @return La tranche de la liste des restaurants correspondants, triés par nom
+     */
+    public Slice<RestaurantListItem> searchRestaurantsByName(String name, KeysetCursor after, int size) {
+        return timed("searchRestaurantsByNameSlice", () -> {
+            logger.debug("Service: Recherche de restaurants contenant '{}'", name);
+            return restaurantDao.findListItemsByName(name, after, size);
+        });
     }
 
     /**
@@ -71,16 +135,18 @@ public class RestaurantService {
      * @return Le restaurant trouvé, ou null
      */
     public Restaurant getRestaurantByExactName(String name) {
-        logger.debug("Service: Recherche du restaurant avec le nom exact '{}'", name);
-        List<Restaurant> restaurants = restaurantDao.findByName(name);
-
-        // Filtrer pour obtenir le match exact
-        for (Restaurant restaurant : restaurants) {
-            if (restaurant.getName().equalsIgnoreCase(name)) {
-                return restaurant;
+        return timed("getRestaurantByExactName", () -> {
+            logger.debug("Service: Recherche du restaurant avec le nom exact '{}'", name);
+            List<Restaurant> restaurants = restaurantDao.findByName(name);
+
+            // Filtrer pour obtenir le match exact
+            for (Restaurant restaurant : restaurants) {
+                if (restaurant.getName().equalsIgnoreCase(name)) {
+                    return restaurant;
+                }
             }
-        }
-        return null;
+            return null;
+        });
     }
 
     /**
@@ -89,8 +155,24 @@ public class RestaurantService {
      * @return Liste des restaurants dans cette ville
      */
     public List<Restaurant> getRestaurantsByCity(Integer cityId) {
-        logger.debug("Service: Recherche des restaurants dans la ville ID {}", cityId);
-        return restaurantDao.findByCity(cityId);
+        return timed("getRestaurantsByCity", () -> {
+            logger.debug("Service: Recherche des restaurants dans la ville ID {}", cityId);
+            return restaurantDao.findByCity(cityId);
+        });
+    }
+
+    /**
+     * Recherche une tranche de restaurants dans une ville donnée
+     * @param cityId L'ID de la ville
+     * @param after Le curseur de la tranche précédente, ou null pour la première tranche
+     * @param size Le nombre maximal de restaurants
+     * @return La tranche de la liste des restaurants de cette ville, triés par nom
+     */
+    public Slice<RestaurantListItem> getRestaurantsByCity(Integer cityId, KeysetCursor after, int size) {
+        return timed("getRestaurantsByCitySlice", () -> {
+            logger.debug("Service: Recherche des restaurants dans la ville ID {}", cityId);
+            return restaurantDao.findListItemsByCity(cityId, after, size);
+        });
     }
 
     /**
@@ -99,8 +181,24 @@ public class RestaurantService {
      * @return Liste des restaurants de ce type
      */
     public List<Restaurant> getRestaurantsByType(Integer typeId) {
-        logger.debug("Service: Recherche des restaurants du type ID {}", typeId);
-        return restaurantDao.findByType(typeId);
+        return timed("getRestaurantsByType", () -> {
+            logger.debug("Service: Recherche des restaurants du type ID {}", typeId);
+            return restaurantDao.findByType(typeId);
+        });
+    }
+
+    /**
+     * Recherche une tranche de restaurants par type gastronomique
+     * @param typeId L'ID du type gastronomique
+     * @param after Le curseur de la tranche précédente, ou null pour la première tranche
+     * @param size Le nombre maximal de restaurants
+     * @return La tranche de la liste des restaurants de ce type, triés par nom
+     */
+    public Slice<RestaurantListItem> getRestaurantsByType(Integer typeId, KeysetCursor after, int size) {
+        return timed("getRestaurantsByTypeSlice", () -> {
+            logger.debug("Service: Recherche des restaurants du type ID {}", typeId);
+            return restaurantDao.findListItemsByType(typeId, after, size);
+        });
     }
 
     // ==================== MÉTHODES DE CRÉATION ====================
@@ -119,33 +217,35 @@ public class RestaurantService {
      */
     public Restaurant createRestaurant(String name, String description, String website,
                                        String street, Integer cityId, Integer typeId) {
-        logger.info("Service: Création d'un nouveau restaurant '{}'", name);
-
-        // VALIDATION: Vérifier que la ville existe
-        City city = cityDao.findById(cityId);
-        if (city == null) {
-            logger.error("Erreur: La ville avec l'ID {} n'existe pas", cityId);
-            return null;
-        }
+        return timed("createRestaurant", () -> {
+            logger.info("Service: Création d'un nouveau restaurant '{}'", name);
+
+            // VALIDATION: Vérifier que la ville existe
+            City city = cityDao.findById(cityId);
+            if (city == null) {
+                logger.error("Erreur: La ville avec l'ID {} n'existe pas", cityId);
+                return null;
+            }
 
-        // VALIDATION: Vérifier que le type existe
-        RestaurantType type = typeDao.findById(typeId);
-        if (type == null) {
-            logger.error("Erreur: Le type avec l'ID {} n'existe pas", typeId);
-            return null;
-        }
+            // VALIDATION: Vérifier que le type existe
+            RestaurantType type = typeDao.findById(typeId);
+            if (type == null) {
+                logger.error("Erreur: Le type avec l'ID {} n'existe pas", typeId);
+                return null;
+            }
 
-        // Création de l'adresse (composition)
-        Localisation address = new Localisation(street, city);
+            // Création de l'adresse (composition)
+            Localisation address = new Localisation(street, city);
 
-        // Création du restaurant
-        Restaurant restaurant = new Restaurant(null, name, description, website, address, type);
+            // Création du restaurant
+            Restaurant restaurant = new Restaurant(null, name, description, website, address, type);
 
-        // Sauvegarde en base de données
-        Restaurant savedRestaurant = restaurantDao.save(restaurant);
-        logger.info("Restaurant créé avec succès (ID: {})", savedRestaurant.getId());
+            // Sauvegarde en base de données
+            Restaurant savedRestaurant = restaurantDao.save(restaurant);
+            logger.info("Restaurant créé avec succès (ID: {})", savedRestaurant.getId());
 
-        return savedRestaurant;
+            return savedRestaurant;
+        });
     }
 
     /**
@@ -154,8 +254,10 @@ public class RestaurantService {
      * @return Le restaurant créé
      */
     public Restaurant createRestaurant(Restaurant restaurant) {
-        logger.info("Service: Création du restaurant '{}'", restaurant.getName());
-        return restaurantDao.save(restaurant);
+        return timed("createRestaurantEntity", () -> {
+            logger.info("Service: Création du restaurant '{}'", restaurant.getName());
+            return restaurantDao.save(restaurant);
+        });
     }
 
     // ==================== MÉTHODES DE MISE À JOUR ====================
@@ -171,25 +273,27 @@ public class RestaurantService {
      * @return Le restaurant mis à jour, ou null si non trouvé
      */
     public Restaurant updateRestaurant(Integer id, String name, String description, String website) {
-        logger.info("Service: Mise à jour du restaurant ID {}", id);
-
-        // Vérifier que le restaurant existe
-        Restaurant restaurant = restaurantDao.findById(id);
-        if (restaurant == null) {
-            logger.error("Erreur: Le restaurant avec l'ID {} n'existe pas", id);
-            return null;
-        }
+        return timed("updateRestaurant", id, () -> {
+            logger.info("Service: Mise à jour du restaurant ID {}", id);
+
+            // Vérifier que le restaurant existe
+            Restaurant restaurant = restaurantDao.findById(id);
+            if (restaurant == null) {
+                logger.error("Erreur: Le restaurant avec l'ID {} n'existe pas", id);
+                return null;
+            }
 
-        // Mettre à jour les propriétés
-        restaurant.setName(name);
-        restaurant.setDescription(description);
-        restaurant.setWebsite(website);
+            // Mettre à jour les propriétés
+            restaurant.setName(name);
+            restaurant.setDescription(description);
+            restaurant.setWebsite(website);
 
-        // Sauvegarder les modifications
-        Restaurant updatedRestaurant = restaurantDao.save(restaurant);
-        logger.info("Restaurant mis à jour avec succès");
+            // Sauvegarder les modifications
+            Restaurant updatedRestaurant = restaurantDao.save(restaurant);
+            logger.info("Restaurant mis à jour avec succès");
 
-        return updatedRestaurant;
+            return updatedRestaurant;
+        });
     }
 
     /**
@@ -202,31 +306,33 @@ public class RestaurantService {
      * @return Le restaurant mis à jour, ou null en cas d'erreur
      */
     public Restaurant updateRestaurantAddress(Integer restaurantId, String street, Integer cityId) {
-        logger.info("Service: Mise à jour de l'adresse du restaurant ID {}", restaurantId);
-
-        // Vérifier que le restaurant existe
-        Restaurant restaurant = restaurantDao.findById(restaurantId);
-        if (restaurant == null) {
-            logger.error("Erreur: Le restaurant avec l'ID {} n'existe pas", restaurantId);
-            return null;
-        }
+        return timed("updateRestaurantAddress", restaurantId, () -> {
+            logger.info("Service: Mise à jour de l'adresse du restaurant ID {}", restaurantId);
+
+            // Vérifier que le restaurant existe
+            Restaurant restaurant = restaurantDao.findById(restaurantId);
+            if (restaurant == null) {
+                logger.error("Erreur: Le restaurant avec l'ID {} n'existe pas", restaurantId);
+                return null;
+            }
 
-        // Vérifier que la nouvelle ville existe
-        City city = cityDao.findById(cityId);
-        if (city == null) {
-            logger.error("Erreur: La ville avec l'ID {} n'existe pas", cityId);
-            return null;
-        }
+            // Vérifier que la nouvelle ville existe
+            City city = cityDao.findById(cityId);
+            if (city == null) {
+                logger.error("Erreur: La ville avec l'ID {} n'existe pas", cityId);
+                return null;
+            }
 
-        // Mettre à jour l'adresse
-        restaurant.getAddress().setStreet(street);
-        restaurant.getAddress().setCity(city);
+            // Mettre à jour l'adresse
+            restaurant.getAddress().setStreet(street);
+            restaurant.getAddress().setCity(city);
 
-        // Sauvegarder
-        Restaurant updatedRestaurant = restaurantDao.save(restaurant);
-        logger.info("Adresse mise à jour avec succès");
+            // Sauvegarder
+            Restaurant updatedRestaurant = restaurantDao.save(restaurant);
+            logger.info("Adresse mise à jour avec succès");
 
-        return updatedRestaurant;
+            return updatedRestaurant;
+        });
     }
 
     /**
@@ -238,30 +344,32 @@ public class RestaurantService {
      * @return Le restaurant mis à jour, ou null en cas d'erreur
      */
     public Restaurant updateRestaurantType(Integer restaurantId, Integer typeId) {
-        logger.info("Service: Mise à jour du type du restaurant ID {}", restaurantId);
-
-        // Vérifier que le restaurant existe
-        Restaurant restaurant = restaurantDao.findById(restaurantId);
-        if (restaurant == null) {
-            logger.error("Erreur: Le restaurant avec l'ID {} n'existe pas", restaurantId);
-            return null;
-        }
+        return timed("updateRestaurantType", restaurantId, () -> {
+            logger.info("Service: Mise à jour du type du restaurant ID {}", restaurantId);
+
+            // Vérifier que le restaurant existe
+            Restaurant restaurant = restaurantDao.findById(restaurantId);
+            if (restaurant == null) {
+                logger.error("Erreur: Le restaurant avec l'ID {} n'existe pas", restaurantId);
+                return null;
+            }
 
-        // Vérifier que le nouveau type existe
-        RestaurantType type = typeDao.findById(typeId);
-        if (type == null) {
-            logger.error("Erreur: Le type avec l'ID {} n'existe pas", typeId);
-            return null;
-        }
+            // Vérifier que le nouveau type existe
+            RestaurantType type = typeDao.findById(typeId);
+            if (type == null) {
+                logger.error("Erreur: Le type avec l'ID {} n'existe pas", typeId);
+                return null;
+            }
 
-        // Mettre à jour le type
-        restaurant.setType(type);
+            // Mettre à jour le type
+            restaurant.setType(type);
 
-        // Sauvegarder
-        Restaurant updatedRestaurant = restaurantDao.save(restaurant);
-        logger.info("Type mis à jour avec succès");
+            // Sauvegarder
+            Restaurant updatedRestaurant = restaurantDao.save(restaurant);
+            logger.info("Type mis à jour avec succès");
 
-        return updatedRestaurant;
+            return updatedRestaurant;
+        });
     }
 
     // ==================== MÉTHODES DE SUPPRESSION ====================
@@ -274,23 +382,28 @@ public class RestaurantService {
      * @return true si la suppression a réussi, false sinon
      */
     public boolean deleteRestaurant(Integer id) {
-        logger.info("Service: Suppression du restaurant ID {}", id);
-
-        // Vérifier que le restaurant existe
-        Restaurant restaurant = restaurantDao.findById(id);
-        if (restaurant == null) {
-            logger.error("Erreur: Le restaurant avec l'ID {} n'existe pas", id);
-            return false;
-        }
-
-        try {
-            restaurantDao.deleteById(id);
-            logger.info("Restaurant supprimé avec succès");
-            return true;
-        } catch (Exception e) {
-            logger.error("Erreur lors de la suppression du restaurant", e);
-            return false;
-        }
+        return timed("deleteRestaurant", id, () -> {
+            logger.info("Service: Suppression du restaurant ID {}", id);
+
+            // Vérifier que le restaurant existe
+            if (!restaurantDao.existsById(id)) {
+                logger.error("Erreur: Le restaurant avec l'ID {} n'existe pas", id);
+                return false;
+            }
+
+            try {
+                restaurantDao.deleteById(id);
+                LikeCounters likeCounters = LikeCounters.getInstance();
+                if (likeCounters != null) {
+                    likeCounters.remove(id);
+                }
+                logger.info("Restaurant supprimé avec succès");
+                return true;
+            } catch (Exception e) {
+                logger.error("Erreur lors de la suppression du restaurant", e);
+                return false;
+            }
+        });
     }
 
     // ==================== MÉTHODES UTILITAIRES ====================
@@ -300,7 +413,7 @@ public class RestaurantService {
      * @return Le nombre de restaurants
      */
     public int countRestaurants() {
-        return restaurantDao.findAll().size();
+        return timed("countRestaurants", () -> (int) restaurantDao.count());
     }
 
     /**
@@ -309,6 +422,28 @@ public class RestaurantService {
      * @return true si le restaurant existe, false sinon
      */
     public boolean restaurantExists(Integer id) {
-        return restaurantDao.findById(id) != null;
+        return timed("restaurantExists", id, () -> restaurantDao.existsById(id));
+    }
+
+    /**
+     * Exécute et mesure une opération du service, sous le nom "RestaurantService.<opération>"
+     */
+    private static <R> R timed(String operation, Supplier<R> call) {
+        return timed(operation, null, call);
+    }
+
+    /**
+     * Exécute et mesure une opération du service portant sur un restaurant, dont l'ID est repris
+     * dans l'événement JFR ({@link ServiceOperationEvent})
+     */
+    private static <R> R timed(String operation, Integer restaurantId, Supplier<R> call) {
+        return Monitoring.time("RestaurantService." + operation, new ServiceOperationEvent(Restaurant.class, restaurantId), call);
+    }
+
+    /**
+     * Exécute et mesure une opération sans résultat du service
+     */
+    private static void timed(String operation, Runnable call) {
+        Monitoring.time("RestaurantService." + operation, new ServiceOperationEvent(Restaurant.class, null), call);
     }
-}
\ No newline at end of file
+}